@@ -0,0 +1,115 @@
+package com.hotelbooking.service.catalog;
+
+import com.hotelbooking.dto.response.HotelResponseDto;
+import com.hotelbooking.dto.response.HotelSuggestionDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время подсказки отелей по префиксному дереву и время изменения отеля в дереве.
+ * Запуск: ./gradlew jmh. Словарь из нескольких тысяч слов, составленных из слогов, и несколько сотен
+ * городов приближают разнообразие ключей к реальному каталогу; запросы - начала слов словаря разной
+ * длины, от одной буквы, под которой находится большая часть каталога, до нескольких слов.
+ * @author Кирилл_Христич
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HotelSuggestionIndexBenchmark {
+
+    private static final String[] SYLLABLES = {"ка", "ра", "мо", "ле", "ни", "то", "ве", "су", "па", "го",
+            "ри", "за", "ло", "ми", "ту", "ор", "ан", "ел", "ды", "ston", "ber", "lin", "mar", "ta", "ro",
+            "vi", "sa", "del", "mon", "ca"};
+    private static final int VOCABULARY_SIZE = 5000;
+    private static final int CITIES = 600;
+    private static final int QUERIES = 256;
+
+    @Param({"10000", "100000"})
+    private int hotels;
+
+    private HotelSuggestionIndex index;
+    private List<HotelResponseDto> catalog;
+    private String[] vocabulary;
+    private String[] queries;
+    private Random random;
+    private int query;
+
+    @Setup
+    public void setUp() {
+        random = new Random(42);
+        vocabulary = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = word();
+        }
+        queries = new String[QUERIES];
+        for (int i = 0; i < queries.length; i++) {
+            String words = words(1 + random.nextInt(2));
+            queries[i] = words.substring(0, 1 + random.nextInt(words.length()));
+        }
+
+        catalog = new ArrayList<>(hotels);
+        for (long id = 1; id <= hotels; id++) {
+            catalog.add(hotel(id));
+        }
+        index = new HotelSuggestionIndex(32, 10);
+        index.rebuild(catalog);
+    }
+
+    @Benchmark
+    public List<HotelSuggestionDto> suggest() {
+        return index.suggest(queries[query++ % queries.length], 10);
+    }
+
+    /**
+     * Замена отеля с новым рейтингом, как после оценки.
+     */
+    @Benchmark
+    public void put() {
+        index.put(hotel(1 + random.nextInt(hotels)));
+    }
+
+    private HotelResponseDto hotel(long id) {
+        HotelResponseDto hotel = new HotelResponseDto();
+        hotel.setId(id);
+        hotel.setName(words(2));
+        hotel.setCity(vocabulary[random.nextInt(CITIES)]);
+        hotel.setTitle(words(5));
+        hotel.setRating(BigDecimal.valueOf(10 + random.nextInt(41), 1));
+        hotel.setNumberOfRatings(random.nextInt(1000));
+        return hotel;
+    }
+
+    private String words(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(vocabulary[random.nextInt(vocabulary.length)]);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Слово из двух-четырех слогов.
+     */
+    private String word() {
+        StringBuilder word = new StringBuilder();
+        for (int i = 2 + random.nextInt(3); i > 0; i--) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,143 @@
+package com.hotelbooking.service.statistics;
+
+import com.hotelbooking.entity.mongo.BookingPayload;
+import com.hotelbooking.entity.mongo.RegistrationPayload;
+import com.hotelbooking.entity.mongo.StatisticsPayload;
+import com.hotelbooking.entity.mongo.StatisticsRecord;
+import com.opencsv.CSVWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение форматирования строк CSV через CSVWriter и через StatisticsCsvWriter.
+ * Запуск: ./gradlew jmh; аллокации на строку выводятся профилировщиком gc
+ * в метрике gc.alloc.rate.norm.
+ * @author Кирилл_Христич
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StatisticsCsvWriterBenchmark {
+
+    private static final int RECORDS = 1000;
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private List<StatisticsRecord> records;
+
+    @Setup
+    public void setUp() {
+        records = new ArrayList<>(RECORDS);
+        LocalDateTime timestamp = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        for (int i = 0; i < RECORDS; i++) {
+            String eventType;
+            StatisticsPayload data;
+            if (i % 4 == 0) {
+                eventType = "USER_REGISTRATION";
+                data = new RegistrationPayload("user" + i, "user" + i + "@example.com", "ROLE_USER");
+            } else {
+                eventType = "BOOKING_CREATED";
+                data = new BookingPayload((long) i, (long) (i % 50), (long) (i % 10),
+                        LocalDate.of(2024, 2, 10), LocalDate.of(2024, 2, 14));
+            }
+
+            records.add(StatisticsRecord.builder()
+                    .id(String.format("65a1f0c2e4b0%012d", i))
+                    .eventType(eventType)
+                    .userId((long) (i % 200))
+                    .timestamp(timestamp.plusSeconds(i * 37L))
+                    .data(data)
+                    .build());
+        }
+    }
+
+    /**
+     * Прежняя реализация экспорта: карта данных, String.format, массив строк и CSVWriter.
+     */
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public byte[] csvWriter() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (CSVWriter csvWriter = new CSVWriter(new OutputStreamWriter(baos, StandardCharsets.UTF_8))) {
+            for (StatisticsRecord record : records) {
+                String eventType = record.getEventType();
+                String eventName = eventType.equals("USER_REGISTRATION") ? "Регистрация пользователя" : "Создание бронирования";
+
+                String additionalData = "";
+                if ("USER_REGISTRATION".equals(eventType)) {
+                    Map<String, Object> data = toMap(record.getData());
+                    additionalData = String.format("Имя: %s, Email: %s, Роль: %s",
+                            data.get("username"), data.get("email"), data.get("role"));
+                } else if ("BOOKING_CREATED".equals(eventType)) {
+                    Map<String, Object> data = toMap(record.getData());
+                    additionalData = String.format("ID бронирования: %s, ID комнаты: %s, Заезд: %s, Выезд: %s",
+                            data.get("bookingId"), data.get("roomId"),
+                            data.get("checkInDate"), data.get("checkOutDate"));
+                }
+
+                csvWriter.writeNext(new String[]{
+                        record.getId(),
+                        eventName,
+                        record.getUserId().toString(),
+                        DATE_FORMATTER.format(record.getTimestamp()),
+                        additionalData
+                });
+            }
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Форматирование интервала выгрузки, как в StatisticsExportService: новый писатель с буфером,
+     * рассчитанным по числу записей, и запись буфера в выходной поток без копирования.
+     */
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public StatisticsCsvWriter statisticsCsvWriter() throws IOException {
+        StatisticsCsvWriter writer = StatisticsCsvWriter.forRows(records.size());
+        for (StatisticsRecord record : records) {
+            writer.writeRow(record);
+        }
+        writer.writeTo(OutputStream.nullOutputStream());
+        return writer;
+    }
+
+    /**
+     * Воспроизводит прежнее представление данных события в виде карты.
+     */
+    private static Map<String, Object> toMap(StatisticsPayload payload) {
+        Map<String, Object> data = new HashMap<>();
+        if (payload instanceof RegistrationPayload registration) {
+            data.put("username", registration.getUsername());
+            data.put("email", registration.getEmail());
+            data.put("role", registration.getRole());
+        } else if (payload instanceof BookingPayload booking) {
+            data.put("bookingId", booking.getBookingId());
+            data.put("roomId", booking.getRoomId());
+            data.put("hotelId", booking.getHotelId());
+            data.put("checkInDate", booking.getCheckInDate().toString());
+            data.put("checkOutDate", booking.getCheckOutDate().toString());
+        }
+        return data;
+    }
+}
@@ -0,0 +1,136 @@
+package com.hotelbooking.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение примитивных коллекций с HashSet&lt;Long&gt; и HashMap&lt;Long, ...&gt;.
+ * Запуск: ./gradlew jmh; методы build* создают коллекцию заданного размера с заранее
+ * рассчитанной емкостью, поэтому gc.alloc.rate.norm профилировщика gc показывает занимаемую
+ * коллекцией память. Методы contains* и get* измеряют время проверки половины
+ * присутствующих и половины отсутствующих ключей.
+ * @author Кирилл_Христич
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PrimitiveCollectionsBenchmark {
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private long[] ids;
+    private long[] probes;
+    private Set<Long> hashSet;
+    private LongHashSet longHashSet;
+    private Map<Long, Integer> hashMap;
+    private LongIntHashMap longIntHashMap;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        ids = new long[size];
+        probes = new long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = 1 + random.nextInt(size * 10);
+            probes[i] = i % 2 == 0 ? ids[i] : -ids[i];
+        }
+
+        hashSet = buildHashSet();
+        longHashSet = buildLongHashSet();
+        hashMap = buildHashMap();
+        longIntHashMap = buildLongIntHashMap();
+    }
+
+    @Benchmark
+    public Set<Long> buildHashSet() {
+        Set<Long> set = new HashSet<>((int) (size / 0.75f) + 1);
+        for (long id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+
+    @Benchmark
+    public LongHashSet buildLongHashSet() {
+        LongHashSet set = new LongHashSet(size);
+        for (long id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+
+    @Benchmark
+    public int containsHashSet() {
+        int found = 0;
+        for (long probe : probes) {
+            if (hashSet.contains(probe)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int containsLongHashSet() {
+        int found = 0;
+        for (long probe : probes) {
+            if (longHashSet.contains(probe)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Счетчики по ключу, как занятость ночей типов номеров.
+     */
+    @Benchmark
+    public Map<Long, Integer> buildHashMap() {
+        Map<Long, Integer> map = new HashMap<>((int) (size / 0.75f) + 1);
+        for (long id : ids) {
+            map.merge(id, 1, Integer::sum);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public LongIntHashMap buildLongIntHashMap() {
+        LongIntHashMap map = new LongIntHashMap(size);
+        for (long id : ids) {
+            map.addTo(id, 1);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public long getHashMap() {
+        long sum = 0;
+        for (long probe : probes) {
+            sum += hashMap.getOrDefault(probe, 0);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long getLongIntHashMap() {
+        long sum = 0;
+        for (long probe : probes) {
+            sum += longIntHashMap.get(probe, 0);
+        }
+        return sum;
+    }
+}
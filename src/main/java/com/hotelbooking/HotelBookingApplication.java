@@ -2,12 +2,14 @@ package com.hotelbooking;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Главный класс приложения.
  * @author Кирилл_Христич
  */
 @SpringBootApplication
+@EnableScheduling
 public class HotelBookingApplication {
 
     /**
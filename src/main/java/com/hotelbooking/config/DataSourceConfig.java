@@ -0,0 +1,98 @@
+package com.hotelbooking.config;
+
+import com.hotelbooking.datasource.ReadYourWritesTracker;
+import com.hotelbooking.datasource.ReplicaLagMonitor;
+import com.hotelbooking.datasource.ReplicaProperties;
+import com.hotelbooking.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Конфигурация маршрутизации транзакций только для чтения на реплики PostgreSQL.
+ * Включается свойством app.datasource.routing-enabled; без него используется
+ * стандартный источник данных Spring Boot.
+ * @author Кирилл_Христич
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+@ConditionalOnProperty(prefix = "app.datasource", name = "routing-enabled", havingValue = "true")
+public class DataSourceConfig {
+
+    /**
+     * Создает пулы соединений реплик и монитор их отставания.
+     * @param properties настройки реплик
+     * @param primaryDataSource пул основной базы, с которой сравниваются позиции WAL реплик
+     * @return монитор отставания реплик
+     */
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(ReplicaProperties properties, HikariDataSource primaryDataSource) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<ReplicaProperties.Replica> configured = properties.getReplicas();
+
+        for (int i = 0; i < configured.size(); i++) {
+            ReplicaProperties.Replica replica = configured.get(i);
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(replica.getUrl())
+                    .username(replica.getUsername())
+                    .password(replica.getPassword())
+                    .build();
+            dataSource.setPoolName("replica-" + i);
+            dataSource.setReadOnly(true);
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            replicas.put("replica-" + i, dataSource);
+        }
+
+        return new ReplicaLagMonitor(primaryDataSource, replicas, properties.getMaxLag());
+    }
+
+    /**
+     * Создает пул соединений основной базы.
+     * @param dataSourceProperties настройки основной базы (spring.datasource)
+     * @return пул основной базы
+     */
+    @Bean
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName("primary");
+        return primary;
+    }
+
+    /**
+     * Создает основной источник данных приложения.
+     * @param primaryDataSource пул основной базы
+     * @param lagMonitor монитор отставания реплик
+     * @param readYourWritesTracker трекер недавних записей пользователей
+     * @return маршрутизирующий источник данных с отложенным получением соединения
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource,
+                                 ReplicaLagMonitor lagMonitor,
+                                 ReadYourWritesTracker readYourWritesTracker) {
+        Map<Object, Object> targets = new HashMap<>(lagMonitor.getReplicas());
+        targets.put(ReplicaRoutingDataSource.PRIMARY, primaryDataSource);
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(lagMonitor, readYourWritesTracker);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -1,7 +1,12 @@
 package com.hotelbooking.config;
 
+import com.hotelbooking.service.statistics.PartitionAggregateStore;
+import com.hotelbooking.service.statistics.StatisticsService;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,10 +14,13 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -27,6 +35,33 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${app.kafka.partitions:6}")
+    private int partitions;
+
+    /**
+     * Создает топик событий регистрации пользователей.
+     * @return описание топика
+     */
+    @Bean
+    public NewTopic userRegistrationTopic() {
+        return TopicBuilder.name(StatisticsService.USER_REGISTRATION_TOPIC)
+                .partitions(partitions)
+                .replicas(1)
+                .build();
+    }
+
+    /**
+     * Создает топик событий бронирования.
+     * @return описание топика
+     */
+    @Bean
+    public NewTopic bookingEventsTopic() {
+        return TopicBuilder.name(StatisticsService.BOOKING_EVENTS_TOPIC)
+                .partitions(partitions)
+                .replicas(1)
+                .build();
+    }
+
     /**
      * Создает фабрику продюсеров Kafka.
      * @return фабрика продюсеров
@@ -78,14 +113,39 @@ public class KafkaConfig {
 
     /**
      * Создает фабрику слушателей Kafka.
+     * При назначении партиций их агрегаты восстанавливаются из снимков, перед отзывом снимки сохраняются,
+     * после отзыва или потери партиций локальные агрегаты сбрасываются.
+     * @param partitionAggregateStore хранилище агрегатов партиций
      * @return фабрика слушателей
      */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory(
+            PartitionAggregateStore partitionAggregateStore) {
         ConcurrentKafkaListenerContainerFactory<String, Object> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
         factory.setConcurrency(3);
+        factory.getContainerProperties().setConsumerRebalanceListener(new ConsumerAwareRebalanceListener() {
+            @Override
+            public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> assigned) {
+                partitionAggregateStore.restore(consumer, assigned);
+            }
+
+            @Override
+            public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> revoked) {
+                partitionAggregateStore.snapshot(revoked);
+            }
+
+            @Override
+            public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> revoked) {
+                partitionAggregateStore.release(revoked);
+            }
+
+            @Override
+            public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> lost) {
+                partitionAggregateStore.release(lost);
+            }
+        });
         return factory;
     }
 }
@@ -1,9 +1,15 @@
 package com.hotelbooking.config;
 
+import com.hotelbooking.entity.mongo.converter.StatisticsRecordReadConverter;
+import com.hotelbooking.entity.mongo.converter.StatisticsRecordWriteConverter;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 
+import java.util.List;
+
 /**
  * Конфигурация MongoDB для хранения статистики.
  * @author Кирилл_Христич
@@ -12,4 +18,14 @@ import org.springframework.data.mongodb.repository.config.EnableMongoRepositorie
 @EnableMongoAuditing
 @EnableMongoRepositories(basePackages = "com.hotelbooking.repository.mongo")
 public class MongoConfig {
+
+    /**
+     * Регистрирует конвертеры записей статистики вместо рефлексивного маппинга.
+     */
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(
+                new StatisticsRecordWriteConverter(),
+                new StatisticsRecordReadConverter()));
+    }
 }
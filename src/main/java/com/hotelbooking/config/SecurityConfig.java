@@ -1,17 +1,29 @@
 package com.hotelbooking.config;
 
+import com.hotelbooking.exception.PasswordHashingUnavailableException;
+import com.hotelbooking.security.BoundedPasswordEncoder;
+import com.hotelbooking.security.PasswordHashingProperties;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationEntryPoint;
+
+import java.util.Map;
 
 /**
  * Конфигурация безопасности приложения.
@@ -20,9 +32,12 @@ import org.springframework.security.web.SecurityFilterChain;
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity(securedEnabled = true, jsr250Enabled = true)
+@EnableConfigurationProperties(PasswordHashingProperties.class)
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    private static final String REALM_NAME = "Hotel Booking API";
+
     /**
      * Конфигурирует цепочку фильтров безопасности.
      * @param http объект для конфигурации безопасности
@@ -54,7 +69,10 @@ public class SecurityConfig {
 
                         .anyRequest().permitAll()
                 )
-                .httpBasic(httpBasic -> httpBasic.realmName("Hotel Booking API"))
+                .httpBasic(httpBasic -> httpBasic
+                        .realmName(REALM_NAME)
+                        .authenticationEntryPoint(authenticationEntryPoint())
+                )
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 );
@@ -64,10 +82,51 @@ public class SecurityConfig {
 
     /**
      * Создает кодировщик паролей.
-     * @return кодировщик BCrypt
+     * Новые хеши получают префикс алгоритма; хеши без префикса, созданные прежним кодировщиком,
+     * проверяются как BCrypt. Хеширование и проверка выполняются в ограниченном пуле потоков.
+     * @param properties настройки хеширования паролей
+     * @return кодировщик паролей
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+    public PasswordEncoder passwordEncoder(PasswordHashingProperties properties) {
+        PasswordHashingProperties.Argon2 argon2 = properties.getArgon2();
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(properties.getBcrypt().getStrength());
+
+        Map<String, PasswordEncoder> encoders = Map.of(
+                "bcrypt", bcrypt,
+                "argon2", new Argon2PasswordEncoder(argon2.getSaltLength(), argon2.getHashLength(),
+                        argon2.getParallelism(), argon2.getMemory(), argon2.getIterations())
+        );
+        if (!encoders.containsKey(properties.getEncoder())) {
+            throw new IllegalStateException("Unknown password encoder: " + properties.getEncoder());
+        }
+
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(properties.getEncoder(), encoders);
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        PasswordHashingProperties.Pool pool = properties.getPool();
+        int threads = pool.getThreads() > 0 ? pool.getThreads() : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(delegating, threads, pool.getQueueCapacity(),
+                pool.getMaxWait(), pool.getRetryAfter());
+    }
+
+    /**
+     * Создает точку входа Basic аутентификации.
+     * Если проверить пароль не удалось из-за перегрузки пула хеширования,
+     * отвечает 503 с заголовком Retry-After вместо запроса учетных данных.
+     * @return точка входа аутентификации
+     */
+    private AuthenticationEntryPoint authenticationEntryPoint() {
+        BasicAuthenticationEntryPoint basic = new BasicAuthenticationEntryPoint();
+        basic.setRealmName(REALM_NAME);
+
+        return (request, response, authException) -> {
+            if (authException instanceof PasswordHashingUnavailableException unavailable) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(unavailable.getRetryAfterSeconds()));
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), unavailable.getMessage());
+                return;
+            }
+            basic.commence(request, response, authException);
+        };
     }
 }
@@ -1,12 +1,16 @@
 package com.hotelbooking.config;
 
+import com.hotelbooking.security.CurrentUserArgumentResolver;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 /**
- * Конфигурация MVC для работы с админ панелью.
+ * Конфигурация MVC для работы с админ панелью и API.
  * @author Кирилл_Христич
  */
 @Configuration
@@ -22,6 +26,15 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addViewController("/admin").setViewName("redirect:/admin/dashboard");
     }
 
+    /**
+     * Добавляет обработчик параметров с данными текущего пользователя.
+     * @param resolvers список обработчиков аргументов
+     */
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new CurrentUserArgumentResolver());
+    }
+
     /**
      * Добавляет обработчики статических ресурсов.
      * @param registry реестр обработчиков ресурсов
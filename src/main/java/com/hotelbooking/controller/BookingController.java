@@ -1,9 +1,13 @@
 package com.hotelbooking.controller;
 
 import com.hotelbooking.dto.request.BookingRequestDto;
+import com.hotelbooking.dto.response.BookingHoldResponseDto;
 import com.hotelbooking.dto.response.BookingResponseDto;
 import com.hotelbooking.dto.response.PaginatedResponse;
+import com.hotelbooking.security.AuthenticatedUser;
+import com.hotelbooking.security.CurrentUser;
 import com.hotelbooking.service.BookingService;
+import com.hotelbooking.service.booking.BookingIdempotencyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -15,8 +19,6 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 /**
@@ -30,11 +32,14 @@ import org.springframework.web.bind.annotation.*;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final BookingIdempotencyService bookingIdempotencyService;
 
     /**
      * Создает новое бронирование.
+     * Повтор запроса с тем же заголовком Idempotency-Key возвращает ответ на первый запрос.
      * @param bookingRequestDto данные бронирования
-     * @param userDetails данные текущего пользователя
+     * @param idempotencyKey ключ идемпотентности
+     * @param user текущий пользователь
      * @return информация о созданном бронировании
      */
     @PostMapping
@@ -42,20 +47,89 @@ public class BookingController {
     @Operation(summary = "Создать новое бронирование")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Бронирование создано"),
-            @ApiResponse(responseCode = "400", description = "Неверные данные"),
+            @ApiResponse(responseCode = "400", description = "Неверные данные или ключ использован с другими данными"),
             @ApiResponse(responseCode = "401", description = "Требуется аутентификация"),
             @ApiResponse(responseCode = "404", description = "Комната или пользователь не найдены")
     })
     public BookingResponseDto createBooking(
             @Valid @RequestBody BookingRequestDto bookingRequestDto,
-            @AuthenticationPrincipal UserDetails userDetails) {
-        return bookingService.createBooking(bookingRequestDto, userDetails.getUsername());
+            @Parameter(description = "Ключ идемпотентности для безопасного повтора запроса")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Parameter(hidden = true) @CurrentUser AuthenticatedUser user) {
+        if (idempotencyKey == null) {
+            return bookingService.createBooking(bookingRequestDto, user);
+        }
+        return bookingIdempotencyService.execute(user.username(), idempotencyKey, bookingRequestDto,
+                () -> bookingService.createBooking(bookingRequestDto, user));
+    }
+
+    /**
+     * Временно удерживает комнату на период оформления бронирования.
+     * @param bookingRequestDto данные бронирования
+     * @param user текущий пользователь
+     * @return информация об удержании
+     */
+    @PostMapping("/holds")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "Удержать комнату", description = "Комната удерживается до подтверждения или истечения удержания. Комнаты с типом номера не удерживаются")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Комната удержана"),
+            @ApiResponse(responseCode = "400", description = "Неверные данные или комната недоступна"),
+            @ApiResponse(responseCode = "401", description = "Требуется аутентификация"),
+            @ApiResponse(responseCode = "404", description = "Комната не найдена")
+    })
+    public BookingHoldResponseDto holdRoom(
+            @Valid @RequestBody BookingRequestDto bookingRequestDto,
+            @Parameter(hidden = true) @CurrentUser AuthenticatedUser user) {
+        return bookingService.holdRoom(bookingRequestDto, user);
+    }
+
+    /**
+     * Подтверждает удержание, создавая бронирование.
+     * @param holdId ID удержания
+     * @param user текущий пользователь
+     * @return информация о созданном бронировании
+     */
+    @PostMapping("/holds/{holdId}/confirm")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "Подтвердить удержание")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Бронирование создано"),
+            @ApiResponse(responseCode = "400", description = "Комната недоступна"),
+            @ApiResponse(responseCode = "401", description = "Требуется аутентификация"),
+            @ApiResponse(responseCode = "404", description = "Удержание не найдено или истекло")
+    })
+    public BookingResponseDto confirmHold(
+            @Parameter(description = "ID удержания", required = true)
+            @PathVariable String holdId,
+            @Parameter(hidden = true) @CurrentUser AuthenticatedUser user) {
+        return bookingService.confirmHold(holdId, user);
+    }
+
+    /**
+     * Снимает удержание комнаты.
+     * @param holdId ID удержания
+     * @param user текущий пользователь
+     */
+    @DeleteMapping("/holds/{holdId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @Operation(summary = "Снять удержание")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Удержание снято"),
+            @ApiResponse(responseCode = "401", description = "Требуется аутентификация"),
+            @ApiResponse(responseCode = "404", description = "Удержание не найдено или истекло")
+    })
+    public void releaseHold(
+            @Parameter(description = "ID удержания", required = true)
+            @PathVariable String holdId,
+            @Parameter(hidden = true) @CurrentUser AuthenticatedUser user) {
+        bookingService.releaseHold(holdId, user);
     }
 
     /**
      * Получает бронирование по ID.
      * @param id ID бронирования
-     * @param userDetails данные текущего пользователя
+     * @param user текущий пользователь
      * @return информация о бронировании
      */
     @GetMapping("/{id}")
@@ -69,14 +143,14 @@ public class BookingController {
     public BookingResponseDto getBooking(
             @Parameter(description = "ID бронирования", required = true)
             @PathVariable Long id,
-            @AuthenticationPrincipal UserDetails userDetails) {
-        return bookingService.getBookingById(id, userDetails.getUsername());
+            @Parameter(hidden = true) @CurrentUser AuthenticatedUser user) {
+        return bookingService.getBookingById(id, user);
     }
 
     /**
      * Отменяет бронирование.
      * @param id ID бронирования
-     * @param userDetails данные текущего пользователя
+     * @param user текущий пользователь
      */
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
@@ -91,13 +165,13 @@ public class BookingController {
     public void cancelBooking(
             @Parameter(description = "ID бронирования", required = true)
             @PathVariable Long id,
-            @AuthenticationPrincipal UserDetails userDetails) {
-        bookingService.cancelBooking(id, userDetails.getUsername());
+            @Parameter(hidden = true) @CurrentUser AuthenticatedUser user) {
+        bookingService.cancelBooking(id, user);
     }
 
     /**
      * Получает бронирования текущего пользователя.
-     * @param userDetails данные текущего пользователя
+     * @param user текущий пользователь
      * @param page номер страницы
      * @param size размер страницы
      * @return пагинированный список бронирований
@@ -109,14 +183,14 @@ public class BookingController {
             @ApiResponse(responseCode = "401", description = "Требуется аутентификация")
     })
     public PaginatedResponse<BookingResponseDto> getMyBookings(
-            @AuthenticationPrincipal UserDetails userDetails,
+            @Parameter(hidden = true) @CurrentUser AuthenticatedUser user,
             @Parameter(description = "Номер страницы (начиная с 0)", example = "0")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Размер страницы", example = "10")
             @RequestParam(defaultValue = "10") int size) {
 
         Pageable pageable = PageRequest.of(page, size);
-        return bookingService.getUserBookings(userDetails.getUsername(), pageable);
+        return bookingService.getUserBookings(user, pageable);
     }
 
     /**
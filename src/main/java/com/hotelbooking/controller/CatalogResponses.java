@@ -0,0 +1,60 @@
+package com.hotelbooking.controller;
+
+import com.hotelbooking.datasource.PrimaryReads;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Условные ответы для чтения каталога.
+ * @author Кирилл_Христич
+ */
+final class CatalogResponses {
+
+    private CatalogResponses() {
+    }
+
+    /**
+     * Возвращает 304, если ETag клиента совпадает с текущим, иначе ответ с ETag и Cache-Control.
+     * Тело ответа вычисляется только при несовпадении ETag и читается с основной базы:
+     * версия в ETag увеличивается после фиксации на основной базе, и отстающая реплика
+     * вернула бы под новым ETag прежние данные, которые клиент затем подтверждал бы ответами 304.
+     * @param request веб-запрос
+     * @param etag текущий ETag
+     * @param cacheControl заголовок Cache-Control
+     * @param body вычисление тела ответа
+     * @param <T> тип тела ответа
+     * @return ответ
+     */
+    static <T> ResponseEntity<T> conditional(WebRequest request, String etag, CacheControl cacheControl,
+                                             Supplier<T> body) {
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(PrimaryReads.call(body));
+    }
+
+    /**
+     * Сравнивает ETag из If-None-Match с текущим слабым сравнением.
+     * Слабые ETag появляются, когда сервер сжимает ответ.
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -2,10 +2,14 @@ package com.hotelbooking.controller;
 
 import com.hotelbooking.dto.request.HotelRequestDto;
 import com.hotelbooking.dto.request.HotelSearchCriteria;
+import com.hotelbooking.dto.request.HotelSortField;
 import com.hotelbooking.dto.request.RateHotelRequestDto;
+import com.hotelbooking.dto.response.FacetedSearchResponse;
 import com.hotelbooking.dto.response.HotelResponseDto;
+import com.hotelbooking.dto.response.HotelSuggestionDto;
 import com.hotelbooking.dto.response.PaginatedResponse;
 import com.hotelbooking.service.HotelService;
+import com.hotelbooking.service.catalog.CatalogVersions;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -17,8 +21,12 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
 
 /**
  * Контроллер для работы с отелями.
@@ -31,6 +39,7 @@ import org.springframework.web.bind.annotation.*;
 public class HotelController {
 
     private final HotelService hotelService;
+    private final CatalogVersions catalogVersions;
 
     /**
      * Создает новый отель.
@@ -53,19 +62,24 @@ public class HotelController {
 
     /**
      * Получает отель по ID.
+     * Повторный запрос с актуальным If-None-Match получает 304 без обращения к базе.
      * @param id ID отеля
+     * @param request веб-запрос
      * @return информация об отеле
      */
     @GetMapping("/{id}")
     @Operation(summary = "Получить отель по ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Отель найден"),
+            @ApiResponse(responseCode = "304", description = "Отель не изменялся"),
             @ApiResponse(responseCode = "404", description = "Отель не найден")
     })
-    public HotelResponseDto getHotel(
+    public ResponseEntity<HotelResponseDto> getHotel(
             @Parameter(description = "ID отеля", required = true)
-            @PathVariable Long id) {
-        return hotelService.getHotelById(id);
+            @PathVariable Long id,
+            WebRequest request) {
+        return CatalogResponses.conditional(request, catalogVersions.getHotelTag(id), catalogVersions.getCacheControl(),
+                () -> hotelService.getHotelById(id));
     }
 
     /**
@@ -117,25 +131,30 @@ public class HotelController {
      * @param size размер страницы
      * @param sortBy поле для сортировки
      * @param direction направление сортировки
+     * @param request веб-запрос
      * @return пагинированный список отелей
      */
     @GetMapping
     @Operation(summary = "Получить список отелей с пагинацией")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Список отелей получен")
+            @ApiResponse(responseCode = "200", description = "Список отелей получен"),
+            @ApiResponse(responseCode = "304", description = "Каталог не изменялся"),
+            @ApiResponse(responseCode = "400", description = "Недопустимое поле сортировки")
     })
-    public PaginatedResponse<HotelResponseDto> getAllHotels(
+    public ResponseEntity<PaginatedResponse<HotelResponseDto>> getAllHotels(
             @Parameter(description = "Номер страницы (начиная с 0)", example = "0")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Размер страницы", example = "10")
             @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Поле для сортировки", example = "id")
+            @Parameter(description = "Поле для сортировки: id, rating, distance", example = "id")
             @RequestParam(defaultValue = "id") String sortBy,
             @Parameter(description = "Направление сортировки", example = "ASC")
-            @RequestParam(defaultValue = "ASC") Sort.Direction direction) {
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+            WebRequest request) {
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
-        return hotelService.getAllHotels(pageable);
+        Pageable pageable = PageRequest.of(page, size, HotelSortField.of(sortBy).toSort(direction));
+        return CatalogResponses.conditional(request, catalogVersions.getListTag("hotels"),
+                catalogVersions.getCacheControl(), () -> hotelService.getAllHotels(pageable));
     }
 
     /**
@@ -143,24 +162,84 @@ public class HotelController {
      * @param criteria критерии поиска
      * @param page номер страницы
      * @param size размер страницы
+     * @param sortBy поле для сортировки
+     * @param direction направление сортировки
      * @return пагинированный список найденных отелей
      */
     @GetMapping("/search")
     @Operation(summary = "Поиск отелей по критериям с пагинацией")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Результаты поиска получены")
+            @ApiResponse(responseCode = "200", description = "Результаты поиска получены"),
+            @ApiResponse(responseCode = "400", description = "Недопустимое поле сортировки")
     })
     public PaginatedResponse<HotelResponseDto> searchHotels(
             HotelSearchCriteria criteria,
             @Parameter(description = "Номер страницы (начиная с 0)", example = "0")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Размер страницы", example = "10")
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Поле для сортировки: id, rating, distance", example = "rating")
+            @RequestParam(defaultValue = "id") String sortBy,
+            @Parameter(description = "Направление сортировки", example = "DESC")
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction) {
 
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = PageRequest.of(page, size, HotelSortField.of(sortBy).toSort(direction));
         return hotelService.searchHotels(criteria, pageable);
     }
 
+    /**
+     * Ищет отели по критериям и считает количество результатов по городам и диапазонам рейтинга.
+     * @param criteria критерии поиска
+     * @param page номер страницы
+     * @param size размер страницы
+     * @param sortBy поле для сортировки
+     * @param direction направление сортировки
+     * @return страница найденных отелей с фасетами
+     */
+    @GetMapping("/search/facets")
+    @Operation(summary = "Поиск отелей с количеством результатов по городам и рейтингу",
+            description = "Количество для значения фасета учитывает все критерии, кроме критерия самого фасета")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Результаты поиска и фасеты получены"),
+            @ApiResponse(responseCode = "400", description = "Недопустимое поле сортировки"),
+            @ApiResponse(responseCode = "503", description = "Каталог еще не загружен")
+    })
+    public FacetedSearchResponse<HotelResponseDto> searchHotelsWithFacets(
+            HotelSearchCriteria criteria,
+            @Parameter(description = "Номер страницы (начиная с 0)", example = "0")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Размер страницы", example = "10")
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Поле для сортировки: id, rating, distance", example = "rating")
+            @RequestParam(defaultValue = "id") String sortBy,
+            @Parameter(description = "Направление сортировки", example = "DESC")
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction) {
+
+        Pageable pageable = PageRequest.of(page, size, HotelSortField.of(sortBy).toSort(direction));
+        return hotelService.searchHotelsWithFacets(criteria, pageable);
+    }
+
+    /**
+     * Подсказывает отели при вводе поискового запроса.
+     * @param query введенная часть запроса
+     * @param limit количество подсказок
+     * @return отели по убыванию рейтинга и количества оценок
+     */
+    @GetMapping("/suggest")
+    @Operation(summary = "Подсказки отелей по началу слова в названии, городе или заголовке")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Подсказки получены"),
+            @ApiResponse(responseCode = "400", description = "Недопустимое количество подсказок"),
+            @ApiResponse(responseCode = "503", description = "Каталог еще не загружен")
+    })
+    public List<HotelSuggestionDto> suggestHotels(
+            @Parameter(description = "Введенная часть запроса", example = "гранд мос")
+            @RequestParam String query,
+            @Parameter(description = "Количество подсказок", example = "10")
+            @RequestParam(defaultValue = "10") int limit) {
+        return hotelService.suggestHotels(query, limit);
+    }
+
     /**
      * Оценивает отель.
      * @param id ID отеля
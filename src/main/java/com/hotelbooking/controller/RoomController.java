@@ -2,9 +2,12 @@ package com.hotelbooking.controller;
 
 import com.hotelbooking.dto.request.RoomRequestDto;
 import com.hotelbooking.dto.request.RoomSearchCriteria;
+import com.hotelbooking.dto.request.RoomSortField;
+import com.hotelbooking.dto.response.FacetedSearchResponse;
 import com.hotelbooking.dto.response.PaginatedResponse;
 import com.hotelbooking.dto.response.RoomResponseDto;
 import com.hotelbooking.service.RoomService;
+import com.hotelbooking.service.catalog.CatalogVersions;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -16,8 +19,10 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * Контроллер для работы с комнатами.
@@ -30,6 +35,7 @@ import org.springframework.web.bind.annotation.*;
 public class RoomController {
 
     private final RoomService roomService;
+    private final CatalogVersions catalogVersions;
 
     /**
      * Создает новую комнату.
@@ -53,19 +59,24 @@ public class RoomController {
 
     /**
      * Получает комнату по ID.
+     * Повторный запрос с актуальным If-None-Match получает 304 без обращения к базе.
      * @param id ID комнаты
+     * @param request веб-запрос
      * @return информация о комнате
      */
     @GetMapping("/{id}")
     @Operation(summary = "Получить комнату по ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Комната найдена"),
+            @ApiResponse(responseCode = "304", description = "Комната не изменялась"),
             @ApiResponse(responseCode = "404", description = "Комната не найдена")
     })
-    public RoomResponseDto getRoom(
+    public ResponseEntity<RoomResponseDto> getRoom(
             @Parameter(description = "ID комнаты", required = true)
-            @PathVariable Long id) {
-        return roomService.getRoomById(id);
+            @PathVariable Long id,
+            WebRequest request) {
+        return CatalogResponses.conditional(request, catalogVersions.getRoomTag(id), catalogVersions.getCacheControl(),
+                () -> roomService.getRoomById(id));
     }
 
     /**
@@ -117,25 +128,30 @@ public class RoomController {
      * @param size размер страницы
      * @param sortBy поле для сортировки
      * @param direction направление сортировки
+     * @param request веб-запрос
      * @return пагинированный список комнат
      */
     @GetMapping
     @Operation(summary = "Получить список комнат с пагинацией")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Список комнат получен")
+            @ApiResponse(responseCode = "200", description = "Список комнат получен"),
+            @ApiResponse(responseCode = "304", description = "Каталог не изменялся"),
+            @ApiResponse(responseCode = "400", description = "Недопустимое поле сортировки")
     })
-    public PaginatedResponse<RoomResponseDto> getAllRooms(
+    public ResponseEntity<PaginatedResponse<RoomResponseDto>> getAllRooms(
             @Parameter(description = "Номер страницы (начиная с 0)", example = "0")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Размер страницы", example = "10")
             @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Поле для сортировки", example = "id")
+            @Parameter(description = "Поле для сортировки: id, price", example = "id")
             @RequestParam(defaultValue = "id") String sortBy,
             @Parameter(description = "Направление сортировки", example = "ASC")
-            @RequestParam(defaultValue = "ASC") Sort.Direction direction) {
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+            WebRequest request) {
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
-        return roomService.getAllRooms(pageable);
+        Pageable pageable = PageRequest.of(page, size, RoomSortField.of(sortBy).toSort(direction));
+        return CatalogResponses.conditional(request, catalogVersions.getListTag("rooms"),
+                catalogVersions.getCacheControl(), () -> roomService.getAllRooms(pageable));
     }
 
     /**
@@ -143,21 +159,60 @@ public class RoomController {
      * @param criteria критерии поиска
      * @param page номер страницы
      * @param size размер страницы
+     * @param sortBy поле для сортировки
+     * @param direction направление сортировки
      * @return пагинированный список найденных комнат
      */
     @GetMapping("/search")
     @Operation(summary = "Поиск доступных комнат по критериям с пагинацией")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Результаты поиска получены")
+            @ApiResponse(responseCode = "200", description = "Результаты поиска получены"),
+            @ApiResponse(responseCode = "400", description = "Неверные критерии или поле сортировки")
     })
     public PaginatedResponse<RoomResponseDto> searchAvailableRooms(
             @Valid RoomSearchCriteria criteria,
             @Parameter(description = "Номер страницы (начиная с 0)", example = "0")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Размер страницы", example = "10")
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Поле для сортировки: id, price", example = "price")
+            @RequestParam(defaultValue = "id") String sortBy,
+            @Parameter(description = "Направление сортировки", example = "DESC")
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction) {
 
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = PageRequest.of(page, size, RoomSortField.of(sortBy).toSort(direction));
         return roomService.searchAvailableRooms(criteria, pageable);
     }
+
+    /**
+     * Ищет доступные комнаты по критериям и считает количество результатов по диапазонам цены и вместимости.
+     * @param criteria критерии поиска
+     * @param page номер страницы
+     * @param size размер страницы
+     * @param sortBy поле для сортировки
+     * @param direction направление сортировки
+     * @return страница найденных комнат с фасетами
+     */
+    @GetMapping("/search/facets")
+    @Operation(summary = "Поиск доступных комнат с количеством результатов по цене и вместимости",
+            description = "Количество для значения фасета учитывает все критерии, кроме критерия самого фасета")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Результаты поиска и фасеты получены"),
+            @ApiResponse(responseCode = "400", description = "Неверные критерии или поле сортировки"),
+            @ApiResponse(responseCode = "503", description = "Каталог еще не загружен")
+    })
+    public FacetedSearchResponse<RoomResponseDto> searchAvailableRoomsWithFacets(
+            @Valid RoomSearchCriteria criteria,
+            @Parameter(description = "Номер страницы (начиная с 0)", example = "0")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Размер страницы", example = "10")
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Поле для сортировки: id, price", example = "price")
+            @RequestParam(defaultValue = "id") String sortBy,
+            @Parameter(description = "Направление сортировки", example = "DESC")
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction) {
+
+        Pageable pageable = PageRequest.of(page, size, RoomSortField.of(sortBy).toSort(direction));
+        return roomService.searchAvailableRoomsWithFacets(criteria, pageable);
+    }
 }
@@ -0,0 +1,95 @@
+package com.hotelbooking.controller;
+
+import com.hotelbooking.dto.request.RoomTypeRequestDto;
+import com.hotelbooking.dto.response.RoomTypeAvailabilityDto;
+import com.hotelbooking.dto.response.RoomTypeResponseDto;
+import com.hotelbooking.service.RoomTypeService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Контроллер для работы с типами номеров и их доступностью.
+ * @author Кирилл_Христич
+ */
+@RestController
+@RequestMapping("/room-types")
+@RequiredArgsConstructor
+@Tag(name = "Типы номеров", description = "API для управления типами номеров и проверки доступности")
+public class RoomTypeController {
+
+    private final RoomTypeService roomTypeService;
+
+    /**
+     * Создает новый тип номера.
+     * @param roomTypeRequestDto данные типа номера
+     * @return информация о созданном типе номера
+     */
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Создать тип номера", description = "Доступно только администраторам")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Тип номера создан"),
+            @ApiResponse(responseCode = "400", description = "Неверные данные"),
+            @ApiResponse(responseCode = "401", description = "Требуется аутентификация"),
+            @ApiResponse(responseCode = "403", description = "Недостаточно прав"),
+            @ApiResponse(responseCode = "404", description = "Отель не найден")
+    })
+    public RoomTypeResponseDto createRoomType(@Valid @RequestBody RoomTypeRequestDto roomTypeRequestDto) {
+        return roomTypeService.createRoomType(roomTypeRequestDto);
+    }
+
+    /**
+     * Получает типы номеров отеля.
+     * @param hotelId ID отеля
+     * @return список типов номеров
+     */
+    @GetMapping("/hotel/{hotelId}")
+    @Operation(summary = "Получить типы номеров отеля")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Список типов номеров получен")
+    })
+    public List<RoomTypeResponseDto> getHotelRoomTypes(
+            @Parameter(description = "ID отеля", required = true)
+            @PathVariable Long hotelId) {
+        return roomTypeService.getHotelRoomTypes(hotelId);
+    }
+
+    /**
+     * Получает доступность типов номеров отеля на период.
+     * @param hotelId ID отеля
+     * @param checkInDate дата заезда
+     * @param checkOutDate дата выезда
+     * @param guests количество гостей
+     * @return доступность типов номеров
+     */
+    @GetMapping("/availability")
+    @Operation(summary = "Получить доступность типов номеров отеля на период")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Доступность получена"),
+            @ApiResponse(responseCode = "400", description = "Неверный период")
+    })
+    public List<RoomTypeAvailabilityDto> getAvailability(
+            @Parameter(description = "ID отеля", required = true, example = "1")
+            @RequestParam Long hotelId,
+            @Parameter(description = "Дата заезда", required = true, example = "2024-12-01")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkInDate,
+            @Parameter(description = "Дата выезда", required = true, example = "2024-12-10")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOutDate,
+            @Parameter(description = "Количество гостей", example = "2")
+            @RequestParam(required = false) Integer guests) {
+        return roomTypeService.getAvailability(hotelId, checkInDate, checkOutDate, guests);
+    }
+}
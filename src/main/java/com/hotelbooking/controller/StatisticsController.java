@@ -1,18 +1,39 @@
 package com.hotelbooking.controller;
 
-import com.hotelbooking.service.statistics.StatisticsService;
+import com.hotelbooking.dto.response.LiveStatisticsDto;
+import com.hotelbooking.dto.response.SearchCacheStatsDto;
+import com.hotelbooking.dto.response.UserFilterStatsDto;
+import com.hotelbooking.entity.enums.RollupGranularity;
+import com.hotelbooking.entity.mongo.StatisticsRollup;
+import com.hotelbooking.service.catalog.SearchResultCache;
+import com.hotelbooking.service.statistics.ExportFormat;
+import com.hotelbooking.service.statistics.PartitionAggregateStore;
+import com.hotelbooking.service.statistics.StatisticsExportService;
+import com.hotelbooking.service.statistics.StatisticsRollupService;
+import com.hotelbooking.service.user.UserIdentityFilter;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Контроллер для работы со статистикой.
@@ -25,29 +46,168 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "Статистика", description = "API для работы со статистикой (только для администраторов)")
 public class StatisticsController {
 
-    private final StatisticsService statisticsService;
+    private final StatisticsExportService statisticsExportService;
+    private final PartitionAggregateStore partitionAggregateStore;
+    private final StatisticsRollupService statisticsRollupService;
+    private final UserIdentityFilter userIdentityFilter;
+    private final SearchResultCache searchResultCache;
 
     /**
-     * Экспортирует статистику в CSV файл.
-     * @return CSV файл со статистикой
+     * Экспортирует статистику в файл выбранного формата, передавая его клиенту потоком.
+     * @param format формат экспорта
+     * @return файл со статистикой
      */
     @GetMapping("/export")
-    @Operation(summary = "Экспорт статистики в CSV", description = "Выгружает статистику в формате CSV файла")
+    @Operation(summary = "Экспорт статистики", description = "Выгружает статистику потоком в формате CSV или NDJSON")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "CSV файл сгенерирован"),
+            @ApiResponse(responseCode = "200", description = "Файл сгенерирован"),
             @ApiResponse(responseCode = "401", description = "Требуется аутентификация"),
             @ApiResponse(responseCode = "403", description = "Недостаточно прав")
     })
-    public ResponseEntity<byte[]> exportStatistics() {
-        byte[] csvData = statisticsService.exportStatisticsToCsv();
+    public ResponseEntity<StreamingResponseBody> exportStatistics(
+            @Parameter(description = "Формат экспорта", example = "CSV")
+            @RequestParam(defaultValue = "CSV") ExportFormat format) {
 
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-        headers.setContentDispositionFormData("attachment", "statistics.csv");
-        headers.setContentLength(csvData.length);
+        headers.setContentType(MediaType.parseMediaType(format.getContentType()));
+        headers.setContentDispositionFormData("attachment", "statistics." + format.getExtension());
 
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(csvData);
+                .body(out -> statisticsExportService.export(format, out));
+    }
+
+    /**
+     * Экспортирует статистику в локальный файл на сервере.
+     * @param format формат экспорта
+     * @return путь к созданному файлу
+     * @throws IOException если не удалось записать файл
+     */
+    @PostMapping("/export/file")
+    @Operation(summary = "Экспорт статистики в файл на сервере", description = "Сохраняет выгрузку в каталог экспорта")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Файл сохранен"),
+            @ApiResponse(responseCode = "401", description = "Требуется аутентификация"),
+            @ApiResponse(responseCode = "403", description = "Недостаточно прав")
+    })
+    public String exportStatisticsToFile(
+            @Parameter(description = "Формат экспорта", example = "NDJSON")
+            @RequestParam(defaultValue = "CSV") ExportFormat format) throws IOException {
+        return statisticsExportService.exportToFile(format).toAbsolutePath().toString();
+    }
+
+    /**
+     * Получает оперативную статистику, собранную консьюмерами Kafka.
+     * @return агрегаты по отелям и ролям пользователей
+     */
+    @GetMapping("/live")
+    @Operation(summary = "Оперативная статистика", description = "Агрегаты, которые консьюмеры ведут в памяти по партициям")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Статистика получена"),
+            @ApiResponse(responseCode = "401", description = "Требуется аутентификация"),
+            @ApiResponse(responseCode = "403", description = "Недостаточно прав")
+    })
+    public LiveStatisticsDto getLiveStatistics() {
+        return new LiveStatisticsDto(
+                partitionAggregateStore.getHotelBookings(),
+                partitionAggregateStore.getHotelNights(),
+                partitionAggregateStore.getRegistrationsByRole()
+        );
+    }
+
+    /**
+     * Получает количество действующих бронирований комнаты по оперативной статистике.
+     * @param roomId ID комнаты
+     * @return количество бронирований
+     */
+    @GetMapping("/live/rooms/{roomId}")
+    @Operation(summary = "Оперативная статистика комнаты", description = "Количество действующих бронирований комнаты по данным консьюмеров")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Статистика получена"),
+            @ApiResponse(responseCode = "401", description = "Требуется аутентификация"),
+            @ApiResponse(responseCode = "403", description = "Недостаточно прав")
+    })
+    public long getLiveRoomBookings(
+            @Parameter(description = "ID комнаты", example = "1")
+            @PathVariable Long roomId) {
+        return partitionAggregateStore.getRoomBookings(roomId);
+    }
+
+    /**
+     * Получает показатели фильтра занятых имен пользователей и email.
+     * @return размер фильтра, доля ложных срабатываний и количество пропущенных запросов к базе
+     */
+    @GetMapping("/user-filter")
+    @Operation(summary = "Показатели фильтра регистрации", description = "Память, ожидаемая и наблюдаемая доля ложных срабатываний")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Показатели получены"),
+            @ApiResponse(responseCode = "401", description = "Требуется аутентификация"),
+            @ApiResponse(responseCode = "403", description = "Недостаточно прав")
+    })
+    public UserFilterStatsDto getUserFilterStats() {
+        return userIdentityFilter.getStats();
+    }
+
+    /**
+     * Получает показатели кэша результатов поиска.
+     * @return заполненность кэша и доля попаданий по формам запросов
+     */
+    @GetMapping("/search-cache")
+    @Operation(summary = "Показатели кэша поиска", description = "Память, вытеснения и доля попаданий по формам запросов поиска отелей и комнат")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Показатели получены"),
+            @ApiResponse(responseCode = "401", description = "Требуется аутентификация"),
+            @ApiResponse(responseCode = "403", description = "Недостаточно прав")
+    })
+    public SearchCacheStatsDto getSearchCacheStats() {
+        return searchResultCache.getStats();
+    }
+
+    /**
+     * Получает предагрегированную статистику за период.
+     * @param granularity гранулярность агрегатов
+     * @param from начало периода
+     * @param to конец периода
+     * @param hotelId ID отеля (если не указан - итог по всем отелям)
+     * @return список агрегатов по интервалам
+     */
+    @GetMapping("/rollups")
+    @Operation(summary = "Агрегаты статистики за период", description = "Счетчики бронирований, ночей и регистраций по часам или суткам")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Агрегаты получены"),
+            @ApiResponse(responseCode = "401", description = "Требуется аутентификация"),
+            @ApiResponse(responseCode = "403", description = "Недостаточно прав")
+    })
+    public List<StatisticsRollup> getRollups(
+            @Parameter(description = "Гранулярность", example = "DAY")
+            @RequestParam(defaultValue = "DAY") RollupGranularity granularity,
+            @Parameter(description = "Начало периода", example = "2024-01-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Конец периода", example = "2024-02-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "ID отеля", example = "1")
+            @RequestParam(required = false) Long hotelId) {
+        return statisticsRollupService.getRollups(granularity, hotelId, from, to);
+    }
+
+    /**
+     * Пересчитывает агрегаты статистики за период по исходным событиям.
+     * @param from первый день периода
+     * @param to последний день периода
+     * @return количество пересчитанных агрегатов
+     */
+    @PostMapping("/rollups/rebuild")
+    @Operation(summary = "Пересчитать агрегаты статистики", description = "Заполняет агрегаты по сохраненным событиям за закрытый период")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Агрегаты пересчитаны"),
+            @ApiResponse(responseCode = "401", description = "Требуется аутентификация"),
+            @ApiResponse(responseCode = "403", description = "Недостаточно прав")
+    })
+    public int rebuildRollups(
+            @Parameter(description = "Первый день периода", example = "2024-01-01")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Последний день периода", example = "2024-01-31")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return statisticsRollupService.rebuild(from, to);
     }
 }
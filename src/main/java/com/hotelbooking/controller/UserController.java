@@ -1,7 +1,12 @@
 package com.hotelbooking.controller;
 
 import com.hotelbooking.dto.request.UserRequestDto;
+import com.hotelbooking.dto.response.KeysetResponse;
+import com.hotelbooking.dto.response.PaginatedResponse;
 import com.hotelbooking.dto.response.UserResponseDto;
+import com.hotelbooking.entity.enums.Role;
+import com.hotelbooking.security.AuthenticatedUser;
+import com.hotelbooking.security.CurrentUser;
 import com.hotelbooking.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,12 +16,11 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Контроллер для работы с пользователями.
@@ -33,7 +37,7 @@ public class UserController {
     /**
      * Получает пользователя по ID.
      * @param id ID пользователя
-     * @param userDetails данные текущего пользователя
+     * @param user текущий пользователь
      * @return информация о пользователе
      */
     @GetMapping("/{id}")
@@ -47,7 +51,7 @@ public class UserController {
     public UserResponseDto getUser(
             @Parameter(description = "ID пользователя", required = true)
             @PathVariable Long id,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @Parameter(hidden = true) @CurrentUser AuthenticatedUser user) {
         return userService.getUserById(id);
     }
 
@@ -55,7 +59,7 @@ public class UserController {
      * Обновляет информацию о пользователе.
      * @param id ID пользователя
      * @param userRequestDto новые данные пользователя
-     * @param userDetails данные текущего пользователя
+     * @param user текущий пользователь
      * @return обновленная информация о пользователе
      */
     @PutMapping("/{id}")
@@ -71,14 +75,14 @@ public class UserController {
             @Parameter(description = "ID пользователя", required = true)
             @PathVariable Long id,
             @Valid @RequestBody UserRequestDto userRequestDto,
-            @AuthenticationPrincipal UserDetails userDetails) {
-        return userService.updateUser(id, userRequestDto, userDetails.getUsername());
+            @Parameter(hidden = true) @CurrentUser AuthenticatedUser user) {
+        return userService.updateUser(id, userRequestDto, user);
     }
 
     /**
      * Удаляет пользователя.
      * @param id ID пользователя
-     * @param userDetails данные текущего пользователя
+     * @param user текущий пользователь
      */
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
@@ -92,29 +96,87 @@ public class UserController {
     public void deleteUser(
             @Parameter(description = "ID пользователя", required = true)
             @PathVariable Long id,
-            @AuthenticationPrincipal UserDetails userDetails) {
-        userService.deleteUser(id, userDetails.getUsername());
+            @Parameter(hidden = true) @CurrentUser AuthenticatedUser user) {
+        userService.deleteUser(id, user);
     }
 
     /**
-     * Получает всех пользователей.
-     * @return список всех пользователей
+     * Получает список пользователей с пагинацией.
+     * @param role роль пользователя
+     * @param page номер страницы
+     * @param size размер страницы
+     * @return пагинированный список пользователей
      */
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Получить всех пользователей", description = "Доступно только администраторам")
+    @Operation(summary = "Получить список пользователей с пагинацией", description = "Доступно только администраторам")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Список пользователей получен"),
+            @ApiResponse(responseCode = "400", description = "Неверные параметры пагинации"),
+            @ApiResponse(responseCode = "401", description = "Требуется аутентификация"),
+            @ApiResponse(responseCode = "403", description = "Недостаточно прав")
+    })
+    public PaginatedResponse<UserResponseDto> getAllUsers(
+            @Parameter(description = "Роль пользователя", example = "ROLE_USER")
+            @RequestParam(required = false) Role role,
+            @Parameter(description = "Номер страницы (начиная с 0)", example = "0")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Размер страницы", example = "20")
+            @RequestParam(defaultValue = "20") int size) {
+        return userService.getUsers(role, page, size);
+    }
+
+    /**
+     * Получает список пользователей по курсору.
+     * @param role роль пользователя
+     * @param cursor курсор, полученный с предыдущей страницей
+     * @param size размер страницы
+     * @return страница пользователей с курсором следующей страницы
+     */
+    @GetMapping("/keyset")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Получить список пользователей по курсору",
+            description = "Постраничный обход в порядке ID без подсчета общего количества. Доступно только администраторам")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Список пользователей получен"),
+            @ApiResponse(responseCode = "400", description = "Неверные параметры пагинации"),
+            @ApiResponse(responseCode = "401", description = "Требуется аутентификация"),
+            @ApiResponse(responseCode = "403", description = "Недостаточно прав")
+    })
+    public KeysetResponse<UserResponseDto> getUsersAfter(
+            @Parameter(description = "Роль пользователя", example = "ROLE_USER")
+            @RequestParam(required = false) Role role,
+            @Parameter(description = "Курсор следующей страницы из предыдущего ответа", example = "1250")
+            @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Размер страницы", example = "100")
+            @RequestParam(defaultValue = "100") int size) {
+        return userService.getUsersAfter(role, cursor, size);
+    }
+
+    /**
+     * Выгружает пользователей потоком в формате NDJSON.
+     * @param role роль пользователя
+     * @return поток пользователей, по одному JSON объекту в строке
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Выгрузка пользователей", description = "Выгружает пользователей потоком в формате NDJSON. Доступно только администраторам")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Выгрузка начата"),
             @ApiResponse(responseCode = "401", description = "Требуется аутентификация"),
             @ApiResponse(responseCode = "403", description = "Недостаточно прав")
     })
-    public List<UserResponseDto> getAllUsers() {
-        return userService.getAllUsers();
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @Parameter(description = "Роль пользователя", example = "ROLE_USER")
+            @RequestParam(required = false) Role role) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(out -> userService.exportUsers(role, out));
     }
 
     /**
      * Получает информацию о текущем пользователе.
-     * @param userDetails данные текущего пользователя
+     * @param user текущий пользователь
      * @return информация о текущем пользователе
      */
     @GetMapping("/me")
@@ -123,7 +185,7 @@ public class UserController {
             @ApiResponse(responseCode = "200", description = "Информация получена"),
             @ApiResponse(responseCode = "401", description = "Требуется аутентификация")
     })
-    public UserResponseDto getCurrentUser(@AuthenticationPrincipal UserDetails userDetails) {
-        return userService.findByUsername(userDetails.getUsername());
+    public UserResponseDto getCurrentUser(@Parameter(hidden = true) @CurrentUser AuthenticatedUser user) {
+        return userService.getUserById(user.id());
     }
 }
@@ -1,6 +1,7 @@
 package com.hotelbooking.controller.admin;
 
 import com.hotelbooking.dto.response.PaginatedResponse;
+import com.hotelbooking.entity.enums.Role;
 import com.hotelbooking.service.BookingService;
 import com.hotelbooking.service.HotelService;
 import com.hotelbooking.service.RoomService;
@@ -17,8 +18,6 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import java.util.Base64;
-
 /**
  * Контроллер для админ панели.
  * @author Кирилл_Христич
@@ -93,12 +92,26 @@ public class AdminController {
 
     /**
      * Отображает страницу с пользователями.
+     * @param role роль пользователя
+     * @param page номер страницы
+     * @param size размер страницы
      * @param model модель для передачи данных
      * @return имя шаблона
      */
     @GetMapping("/users")
-    public String users(Model model) {
-        model.addAttribute("users", userService.getAllUsers());
+    public String users(
+            @RequestParam(required = false) Role role,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            Model model) {
+
+        PaginatedResponse<?> users = userService.getUsers(role, page, size);
+
+        model.addAttribute("users", users);
+        model.addAttribute("role", role);
+        model.addAttribute("currentPage", page);
+        model.addAttribute("totalPages", users.getTotalPages());
+
         return "admin/users";
     }
 
@@ -132,21 +145,17 @@ public class AdminController {
      */
     @GetMapping("/statistics")
     public String statistics(Model model) {
-        byte[] csvData = statisticsService.exportStatisticsToCsv();
-        String csvBase64 = Base64.getEncoder().encodeToString(csvData);
-
-        model.addAttribute("csvData", csvBase64);
         model.addAttribute("statistics", statisticsService.getAllStatistics());
 
         return "admin/statistics";
     }
 
     /**
-     * Перенаправляет на экспорт CSV.
+     * Перенаправляет на потоковый экспорт CSV.
      * @return редирект на эндпоинт экспорта
      */
     @GetMapping("/export-csv")
     public String exportCsv() {
-        return "redirect:/api/admin/statistics/export";
+        return "redirect:/admin/statistics/export?format=CSV";
     }
 }
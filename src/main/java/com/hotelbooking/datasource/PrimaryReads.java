@@ -0,0 +1,46 @@
+package com.hotelbooking.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Выполнение чтений на основной базе независимо от признака readOnly транзакции.
+ * Нужно для чтений, результат которых связывается с версией, увеличенной после фиксации
+ * на основной базе: отстающая реплика вернула бы под новой версией прежние данные.
+ * @author Кирилл_Христич
+ */
+public final class PrimaryReads {
+
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    private PrimaryReads() {
+    }
+
+    /**
+     * Выполняет действие, направляя все транзакции текущего потока на основную базу.
+     * Источник данных выбирается при первом обращении транзакции к базе, поэтому действие должно
+     * выполнять первое обращение своей транзакции: соединение, уже полученное транзакцией, не меняется.
+     * @param action действие
+     * @param <T> тип результата
+     * @return результат действия
+     */
+    public static <T> T call(Supplier<T> action) {
+        if (isActive()) {
+            return action.get();
+        }
+
+        ACTIVE.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            ACTIVE.remove();
+        }
+    }
+
+    /**
+     * Проверяет, должны ли чтения текущего потока выполняться на основной базе.
+     * @return true внутри {@link #call(Supplier)}
+     */
+    public static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+}
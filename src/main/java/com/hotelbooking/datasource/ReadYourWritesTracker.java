@@ -0,0 +1,59 @@
+package com.hotelbooking.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Отслеживает недавние записи пользователей для чтения собственных записей.
+ * После записи чтения пользователя в течение заданного времени направляются на основную базу,
+ * чтобы он не увидел на отстающей реплике состояние без своего бронирования.
+ * @author Кирилл_Христич
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final ConcurrentMap<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final long stickinessNanos;
+
+    public ReadYourWritesTracker(@Value("${app.datasource.stickiness:10s}") Duration stickiness) {
+        this.stickinessNanos = stickiness.toNanos();
+    }
+
+    /**
+     * Отмечает запись, выполненную пользователем.
+     * @param username имя пользователя
+     */
+    public void markWrite(String username) {
+        lastWrites.put(username, System.nanoTime());
+    }
+
+    /**
+     * Проверяет, должны ли чтения текущего пользователя выполняться на основной базе.
+     * @return true если текущий пользователь недавно выполнял запись
+     */
+    public boolean isCurrentUserSticky() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return false;
+        }
+
+        Long lastWrite = lastWrites.get(authentication.getName());
+        return lastWrite != null && System.nanoTime() - lastWrite < stickinessNanos;
+    }
+
+    /**
+     * Удаляет устаревшие отметки о записях.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.stickiness-cleanup-ms:60000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(lastWrite -> now - lastWrite >= stickinessNanos);
+    }
+}
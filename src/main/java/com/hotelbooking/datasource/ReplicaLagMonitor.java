@@ -0,0 +1,175 @@
+package com.hotelbooking.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Периодически измеряет отставание реплик и ведет список реплик, пригодных для чтения.
+ * При каждой проверке запоминается текущая позиция WAL основной базы. Реплика отстает не больше,
+ * чем на время с момента самой поздней запомненной позиции, которую она уже применила, поэтому
+ * простой основной базы не делает реплику отстающей, а отключенная реплика перестает
+ * применять новые позиции и исключается по истечении допустимого отставания.
+ * Реплика без работающего приемника WAL исключается сразу, как и недоступная реплика,
+ * до следующей успешной проверки.
+ * @author Кирилл_Христич
+ */
+@Slf4j
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    private static final String PRIMARY_LSN_QUERY = "SELECT pg_current_wal_lsn()::text";
+    private static final String REPLICA_QUERY = """
+            SELECT (SELECT status FROM pg_stat_wal_receiver), pg_last_wal_replay_lsn()::text""";
+    private static final String STREAMING = "streaming";
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final Duration maxLag;
+    private final Deque<LsnSample> primarySamples = new ArrayDeque<>();
+    private volatile List<String> healthyReplicas = List.of();
+
+    public ReplicaLagMonitor(DataSource primary, Map<String, DataSource> replicas, Duration maxLag) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.maxLag = maxLag;
+    }
+
+    /**
+     * Получает пулы соединений реплик.
+     * @return пулы реплик по ключам
+     */
+    public Map<String, DataSource> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Получает ключи реплик, отставание которых не превышает допустимое.
+     * @return список ключей реплик
+     */
+    public List<String> getHealthyReplicas() {
+        return healthyReplicas;
+    }
+
+    /**
+     * Проверяет отставание всех реплик.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.lag-check-interval-ms:2000}")
+    public synchronized void checkLag() {
+        List<String> healthy;
+        try {
+            samplePrimary();
+            healthy = replicas.entrySet().stream()
+                    .filter(replica -> isWithinTolerance(replica.getKey(), replica.getValue()))
+                    .map(Map.Entry::getKey)
+                    .sorted()
+                    .toList();
+        } catch (Exception e) {
+            log.warn("Failed to read WAL position of primary: {}", e.getMessage());
+            healthy = List.of();
+        }
+
+        if (!healthy.equals(healthyReplicas)) {
+            log.info("Replicas available for reads: {}", healthy);
+        }
+        healthyReplicas = healthy;
+    }
+
+    /**
+     * Запоминает текущую позицию WAL основной базы и забывает позиции старше допустимого отставания,
+     * кроме последней из них.
+     */
+    private void samplePrimary() throws SQLException {
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(PRIMARY_LSN_QUERY)) {
+            resultSet.next();
+            primarySamples.addLast(new LsnSample(Instant.now(), parseLsn(resultSet.getString(1))));
+        }
+
+        Instant oldest = Instant.now().minus(maxLag);
+        while (primarySamples.size() > 1 && primarySamples.peekFirst().time().isBefore(oldest)) {
+            primarySamples.removeFirst();
+        }
+    }
+
+    private boolean isWithinTolerance(String key, DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(REPLICA_QUERY)) {
+            resultSet.next();
+            String receiverStatus = resultSet.getString(1);
+            String replayLsn = resultSet.getString(2);
+            if (!STREAMING.equals(receiverStatus) || replayLsn == null) {
+                log.warn("Replica {} has no streaming WAL receiver (status: {})", key, receiverStatus);
+                return false;
+            }
+
+            Duration lag = lag(parseLsn(replayLsn));
+            if (lag.compareTo(maxLag) > 0) {
+                log.warn("Replica {} lags behind primary by more than {}s", key, lag.toMillis() / 1000.0);
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to check lag of replica {}: {}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Оценивает отставание по самой поздней запомненной позиции основной базы, которую применила реплика.
+     * Если реплика не применила ни одной запомненной позиции, отставание больше допустимого.
+     */
+    private Duration lag(long replayLsn) {
+        Iterator<LsnSample> samples = primarySamples.descendingIterator();
+        while (samples.hasNext()) {
+            LsnSample sample = samples.next();
+            if (Long.compareUnsigned(replayLsn, sample.lsn()) >= 0) {
+                return Duration.between(sample.time(), Instant.now());
+            }
+        }
+        return maxLag.plusMillis(1);
+    }
+
+    /**
+     * Переводит позицию WAL из текстового вида X/Y в число.
+     */
+    private static long parseLsn(String lsn) {
+        int slash = lsn.indexOf('/');
+        return (Long.parseLong(lsn.substring(0, slash), 16) << 32) | Long.parseLong(lsn.substring(slash + 1), 16);
+    }
+
+    /**
+     * Закрывает пулы соединений реплик.
+     */
+    @Override
+    public void close() {
+        for (DataSource dataSource : replicas.values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Failed to close replica pool", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Позиция WAL основной базы на момент проверки.
+     */
+    private record LsnSample(Instant time, long lsn) {
+    }
+}
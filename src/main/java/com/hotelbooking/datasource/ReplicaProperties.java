@@ -0,0 +1,35 @@
+package com.hotelbooking.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Настройки маршрутизации транзакций только для чтения на реплики PostgreSQL.
+ * @author Кирилл_Христич
+ */
+@Data
+@ConfigurationProperties(prefix = "app.datasource")
+public class ReplicaProperties {
+
+    /**
+     * Реплики, на которые направляются транзакции только для чтения.
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * Допустимое отставание реплики; реплики с большим отставанием исключаются из маршрутизации.
+     */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
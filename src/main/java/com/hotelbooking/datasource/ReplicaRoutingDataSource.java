@@ -0,0 +1,45 @@
+package com.hotelbooking.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Источник данных, направляющий транзакции только для чтения на реплики.
+ * Запись, чтение вне транзакции, чтение пользователя сразу после его записи и чтения
+ * внутри {@link PrimaryReads#call} выполняются на основной базе, как и любое чтение
+ * при отсутствии реплик с допустимым отставанием.
+ * Должен оборачиваться в LazyConnectionDataSourceProxy, чтобы соединение запрашивалось
+ * после того, как признак readOnly транзакции уже установлен.
+ * @author Кирилл_Христич
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(ReplicaLagMonitor lagMonitor, ReadYourWritesTracker readYourWritesTracker) {
+        this.lagMonitor = lagMonitor;
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || PrimaryReads.isActive()
+                || readYourWritesTracker.isCurrentUserSticky()) {
+            return PRIMARY;
+        }
+
+        List<String> replicas = lagMonitor.getHealthyReplicas();
+        if (replicas.isEmpty()) {
+            return PRIMARY;
+        }
+        return replicas.get(Math.floorMod(counter.getAndIncrement(), replicas.size()));
+    }
+}
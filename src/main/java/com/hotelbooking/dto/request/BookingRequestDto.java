@@ -25,7 +25,9 @@ public class BookingRequestDto {
     @Schema(description = "Дата выезда", example = "2024-12-10")
     private LocalDate checkOutDate;
 
-    @NotNull(message = "ID комнаты обязательно")
-    @Schema(description = "ID комнаты", example = "1")
+    @Schema(description = "ID комнаты; указывается либо комната, либо тип номера", example = "1")
     private Long roomId;
+
+    @Schema(description = "ID типа номера; комната типа назначается при бронировании", example = "1")
+    private Long roomTypeId;
 }
@@ -0,0 +1,50 @@
+package com.hotelbooking.dto.request;
+
+import com.hotelbooking.exception.ValidationException;
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Перечисление допустимых полей сортировки отелей.
+ * Для каждого поля есть индекс, отдающий строки в порядке сортировки, поэтому
+ * страница читается без сортировки всего результата.
+ * @author Кирилл_Христич
+ */
+public enum HotelSortField {
+    ID("id"),
+    RATING("rating"),
+    DISTANCE("distanceFromCityCenter");
+
+    private final String property;
+
+    HotelSortField(String property) {
+        this.property = property;
+    }
+
+    /**
+     * Находит поле сортировки по названию без учета регистра или по имени свойства отеля.
+     * @param value название поля
+     * @return поле сортировки
+     */
+    public static HotelSortField of(String value) {
+        return Arrays.stream(values())
+                .filter(field -> field.name().equalsIgnoreCase(value) || field.property.equals(value))
+                .findFirst()
+                .orElseThrow(() -> new ValidationException("Недопустимое поле сортировки отелей: " + value
+                        + ". Допустимые значения: " + Arrays.stream(values())
+                        .map(field -> field.name().toLowerCase())
+                        .collect(Collectors.joining(", "))));
+    }
+
+    /**
+     * Создает сортировку по полю с ID в том же направлении для однозначного порядка строк.
+     * @param direction направление сортировки
+     * @return сортировка
+     */
+    public Sort toSort(Sort.Direction direction) {
+        Sort sort = Sort.by(direction, property);
+        return this == ID ? sort : sort.and(Sort.by(direction, ID.property));
+    }
+}
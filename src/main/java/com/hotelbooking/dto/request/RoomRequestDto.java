@@ -38,4 +38,7 @@ public class RoomRequestDto {
     @NotNull(message = "ID отеля обязательно")
     @Schema(description = "ID отеля", example = "1")
     private Long hotelId;
+
+    @Schema(description = "ID типа номера того же отеля", example = "1")
+    private Long roomTypeId;
 }
@@ -0,0 +1,40 @@
+package com.hotelbooking.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO для создания типа номера.
+ * @author Кирилл_Христич
+ */
+@Data
+@Schema(description = "DTO для создания типа номера")
+public class RoomTypeRequestDto {
+
+    @NotBlank(message = "Название типа номера обязательно")
+    @Schema(description = "Название типа номера", example = "Двухместный стандарт")
+    private String name;
+
+    @Schema(description = "Описание типа номера", example = "Номер с двуспальной кроватью")
+    private String description;
+
+    @NotNull(message = "Цена обязательна")
+    @Positive(message = "Цена должна быть положительной")
+    @Schema(description = "Цена за ночь", example = "5000.00")
+    private BigDecimal price;
+
+    @NotNull(message = "Максимальное количество гостей обязательно")
+    @Min(value = 1, message = "Минимум 1 гость")
+    @Schema(description = "Максимальное количество гостей", example = "2")
+    private Integer maxGuests;
+
+    @NotNull(message = "ID отеля обязательно")
+    @Schema(description = "ID отеля", example = "1")
+    private Long hotelId;
+}
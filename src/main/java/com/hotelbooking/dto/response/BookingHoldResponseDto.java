@@ -0,0 +1,31 @@
+package com.hotelbooking.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * DTO для ответа с информацией об удержании комнаты.
+ * @author Кирилл_Христич
+ */
+@Data
+@Schema(description = "DTO для ответа с информацией об удержании комнаты")
+public class BookingHoldResponseDto {
+
+    @Schema(description = "ID удержания", example = "3f1c2a9e-6a47-4d5b-9a53-0c1f0e2b7d11")
+    private String holdId;
+
+    @Schema(description = "ID комнаты", example = "1")
+    private Long roomId;
+
+    @Schema(description = "Дата заезда", example = "2024-12-01")
+    private LocalDate checkInDate;
+
+    @Schema(description = "Дата выезда", example = "2024-12-10")
+    private LocalDate checkOutDate;
+
+    @Schema(description = "Время истечения удержания", example = "2024-11-20T12:10:00")
+    private LocalDateTime expiresAt;
+}
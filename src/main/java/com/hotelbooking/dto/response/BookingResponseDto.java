@@ -1,5 +1,6 @@
 package com.hotelbooking.dto.response;
 
+import com.hotelbooking.entity.enums.BookingStatus;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 
@@ -22,12 +23,21 @@ public class BookingResponseDto {
     @Schema(description = "Дата выезда", example = "2024-12-10")
     private LocalDate checkOutDate;
 
+    @Schema(description = "Статус бронирования", example = "CONFIRMED")
+    private BookingStatus status;
+
     @Schema(description = "ID комнаты", example = "1")
     private Long roomId;
 
     @Schema(description = "Название комнаты", example = "Люкс с видом на море")
     private String roomName;
 
+    @Schema(description = "ID типа номера", example = "1")
+    private Long roomTypeId;
+
+    @Schema(description = "Название типа номера", example = "Двухместный стандарт")
+    private String roomTypeName;
+
     @Schema(description = "ID отеля", example = "1")
     private Long hotelId;
 
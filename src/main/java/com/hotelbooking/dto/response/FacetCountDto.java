@@ -0,0 +1,23 @@
+package com.hotelbooking.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO для количества результатов в значении фасета.
+ * @author Кирилл_Христич
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO для количества результатов в значении фасета")
+public class FacetCountDto {
+
+    @Schema(description = "Значение или диапазон значений", example = "4-5")
+    private String value;
+
+    @Schema(description = "Количество результатов", example = "42")
+    private long count;
+}
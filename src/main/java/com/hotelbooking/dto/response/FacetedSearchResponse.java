@@ -0,0 +1,27 @@
+package com.hotelbooking.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO для ответа поиска с количеством результатов по фасетам.
+ * @author Кирилл_Христич
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO для ответа поиска с количеством результатов по фасетам")
+public class FacetedSearchResponse<T> {
+
+    @Schema(description = "Страница результатов поиска")
+    private PaginatedResponse<T> results;
+
+    @Schema(description = "Количество результатов по значениям фасетов. Количество для значения фасета "
+            + "учитывает все критерии, кроме критерия самого фасета")
+    private Map<String, List<FacetCountDto>> facets;
+}
@@ -0,0 +1,34 @@
+package com.hotelbooking.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO для подсказки отеля при вводе поискового запроса.
+ * @author Кирилл_Христич
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO для подсказки отеля при вводе поискового запроса")
+public class HotelSuggestionDto {
+
+    @Schema(description = "ID отеля", example = "1")
+    private Long id;
+
+    @Schema(description = "Название отеля", example = "Grand Hotel")
+    private String name;
+
+    @Schema(description = "Город расположения отеля", example = "Москва")
+    private String city;
+
+    @Schema(description = "Рейтинг отеля (от 1 до 5)", example = "4.5")
+    private BigDecimal rating;
+
+    @Schema(description = "Количество поставленных оценок", example = "150")
+    private Integer numberOfRatings;
+}
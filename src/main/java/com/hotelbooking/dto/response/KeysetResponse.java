@@ -0,0 +1,43 @@
+package com.hotelbooking.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO для ответа с постраничной выборкой по ключу.
+ * Следующая страница запрашивается с переданным курсором вместо номера страницы,
+ * поэтому стоимость запроса не растет с глубиной выборки.
+ * @author Кирилл_Христич
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO для ответа с постраничной выборкой по ключу")
+public class KeysetResponse<T> {
+
+    @Schema(description = "Список элементов на текущей странице")
+    private List<T> content;
+
+    @Schema(description = "Размер страницы", example = "100")
+    private int pageSize;
+
+    @Schema(description = "Курсор следующей страницы (null, если страница последняя)", example = "1250")
+    private Long nextCursor;
+
+    /**
+     * Создает KeysetResponse из элементов страницы.
+     * Страница считается последней, если она заполнена не полностью.
+     * @param content элементы страницы
+     * @param pageSize размер страницы
+     * @param lastKey ключ последнего элемента страницы
+     * @param <T> тип элементов
+     * @return KeysetResponse
+     */
+    public static <T> KeysetResponse<T> of(List<T> content, int pageSize, Long lastKey) {
+        return new KeysetResponse<>(content, pageSize, content.size() < pageSize ? null : lastKey);
+    }
+}
@@ -0,0 +1,26 @@
+package com.hotelbooking.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * DTO для оперативной статистики, собранной консьюмерами Kafka.
+ * @author Кирилл_Христич
+ */
+@Data
+@AllArgsConstructor
+@Schema(description = "DTO для оперативной статистики по партициям Kafka")
+public class LiveStatisticsDto {
+
+    @Schema(description = "Количество бронирований по ID отеля")
+    private Map<Long, Long> hotelBookings;
+
+    @Schema(description = "Количество забронированных ночей по ID отеля")
+    private Map<Long, Long> hotelNights;
+
+    @Schema(description = "Количество регистраций по ролям")
+    private Map<String, Long> registrationsByRole;
+}
@@ -36,4 +36,10 @@ public class RoomResponseDto {
 
     @Schema(description = "Название отеля", example = "Grand Hotel")
     private String hotelName;
+
+    @Schema(description = "ID типа номера", example = "1")
+    private Long roomTypeId;
+
+    @Schema(description = "Название типа номера", example = "Двухместный стандарт")
+    private String roomTypeName;
 }
@@ -0,0 +1,27 @@
+package com.hotelbooking.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * DTO доступности типа номера на период.
+ * @author Кирилл_Христич
+ */
+@Data
+@AllArgsConstructor
+@Schema(description = "Доступность типа номера на период")
+public class RoomTypeAvailabilityDto {
+
+    @Schema(description = "Тип номера")
+    private RoomTypeResponseDto roomType;
+
+    @Schema(description = "Количество номеров, свободных на весь период", example = "3")
+    private int availableRooms;
+
+    @Schema(description = "Количество свободных номеров по ночам")
+    private Map<LocalDate, Integer> nightlyAvailability;
+}
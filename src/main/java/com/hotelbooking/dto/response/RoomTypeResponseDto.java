@@ -0,0 +1,36 @@
+package com.hotelbooking.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO для ответа с информацией о типе номера.
+ * @author Кирилл_Христич
+ */
+@Data
+@Schema(description = "DTO для ответа с информацией о типе номера")
+public class RoomTypeResponseDto {
+
+    @Schema(description = "ID типа номера", example = "1")
+    private Long id;
+
+    @Schema(description = "Название типа номера", example = "Двухместный стандарт")
+    private String name;
+
+    @Schema(description = "Описание типа номера", example = "Номер с двуспальной кроватью")
+    private String description;
+
+    @Schema(description = "Цена за ночь", example = "5000.00")
+    private BigDecimal price;
+
+    @Schema(description = "Максимальное количество гостей", example = "2")
+    private Integer maxGuests;
+
+    @Schema(description = "Количество номеров типа", example = "12")
+    private Integer totalRooms;
+
+    @Schema(description = "ID отеля", example = "1")
+    private Long hotelId;
+}
@@ -0,0 +1,56 @@
+package com.hotelbooking.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO с показателями кэша результатов поиска.
+ * @author Кирилл_Христич
+ */
+@Data
+@Builder
+@Schema(description = "Показатели кэша результатов поиска")
+public class SearchCacheStatsDto {
+
+    @Schema(description = "Количество записей", example = "1200")
+    private int entries;
+
+    @Schema(description = "Оценка занятой памяти в байтах", example = "4194304")
+    private long weightBytes;
+
+    @Schema(description = "Предел памяти в байтах", example = "33554432")
+    private long maxWeightBytes;
+
+    @Schema(description = "Записи, вытесненные по пределу памяти", example = "15")
+    private long evictions;
+
+    @Schema(description = "Записи, удаленные при изменении каталога или бронированиях", example = "340")
+    private long invalidations;
+
+    @Schema(description = "Показатели по формам запросов")
+    private List<ShapeStats> shapes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Показатели формы запроса")
+    public static class ShapeStats {
+
+        @Schema(description = "Вид поиска и заданные критерии", example = "hotels:city,minRating")
+        private String shape;
+
+        @Schema(description = "Попадания", example = "9000")
+        private long hits;
+
+        @Schema(description = "Промахи", example = "1000")
+        private long misses;
+
+        @Schema(description = "Доля попаданий", example = "0.9")
+        private double hitRatio;
+    }
+}
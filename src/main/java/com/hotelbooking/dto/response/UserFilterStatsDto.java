@@ -0,0 +1,45 @@
+package com.hotelbooking.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * DTO с показателями фильтра занятых имен пользователей и email.
+ * @author Кирилл_Христич
+ */
+@Data
+@Builder
+@Schema(description = "Показатели фильтра занятых имен пользователей и email")
+public class UserFilterStatsDto {
+
+    @Schema(description = "Фильтр заполнен и используется для проверок", example = "true")
+    private boolean ready;
+
+    @Schema(description = "Количество добавленных ключей", example = "20000")
+    private long insertions;
+
+    @Schema(description = "Размер битового массива в байтах", example = "47928")
+    private long memoryBytes;
+
+    @Schema(description = "Количество хеш-функций", example = "7")
+    private int hashCount;
+
+    @Schema(description = "Ожидаемая вероятность ложного срабатывания по заполненности", example = "0.0004")
+    private double expectedFalsePositiveRate;
+
+    @Schema(description = "Количество проверок", example = "150000")
+    private long checks;
+
+    @Schema(description = "Проверки, завершенные без обращения к базе", example = "149000")
+    private long skippedDatabaseChecks;
+
+    @Schema(description = "Проверки, подтвержденные запросом к базе", example = "1000")
+    private long verifiedChecks;
+
+    @Schema(description = "Ложные срабатывания фильтра", example = "60")
+    private long falsePositives;
+
+    @Schema(description = "Наблюдаемая доля ложных срабатываний среди свободных ключей", example = "0.0004")
+    private double observedFalsePositiveRate;
+}
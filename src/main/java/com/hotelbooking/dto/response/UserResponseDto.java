@@ -2,13 +2,17 @@ package com.hotelbooking.dto.response;
 
 import com.hotelbooking.entity.enums.Role;
 import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 /**
  * DTO для ответа с информацией о пользователе.
  * @author Кирилл_Христич
  */
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 @Schema(description = "DTO для ответа с информацией о пользователе")
 public class UserResponseDto {
 
@@ -1,27 +1,39 @@
 package com.hotelbooking.entity;
 
+import com.hotelbooking.entity.enums.BookingStatus;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 /**
  * Сущность бронирования.
+ * Бронирование по типу номера получает комнату типа, свободную на весь период, при создании.
+ * Отмененное бронирование сохраняется со статусом CANCELLED. Частичные индексы действующих бронирований
+ * idx_booking_active_room_dates и idx_booking_active_dates создаются миграциями V6 и V10 и здесь
+ * не объявлены: {@link Index} не задает условие WHERE.
  * @author Кирилл_Христич
  */
 @Entity
 @Table(name = "bookings", indexes = {
         @Index(name = "idx_booking_user_id", columnList = "user_id"),
-        @Index(name = "idx_booking_room_id", columnList = "room_id"),
         @Index(name = "idx_booking_dates", columnList = "check_in_date, check_out_date")
 })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@ToString(exclude = {"room", "user"})
+@ToString(exclude = {"room", "roomType", "user"})
 public class Booking {
 
+    /**
+     * Наибольшая длительность проживания в ночах, закрепленная ограничением chk_booking_stay_length (V12).
+     * Поиск пересечений ограничивает просмотр секций датами заезда не раньше чем за столько дней
+     * до начала периода; настройка app.booking.max-stay-days не может ее превышать.
+     */
+    public static final int MAX_STAY_DAYS = 30;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -32,10 +44,22 @@ public class Booking {
     @Column(name = "check_out_date", nullable = false)
     private LocalDate checkOutDate;
 
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private BookingStatus status = BookingStatus.CONFIRMED;
+
+    @Column(name = "cancelled_at")
+    private LocalDateTime cancelledAt;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "room_id", nullable = false, foreignKey = @ForeignKey(name = "fk_booking_room"))
     private Room room;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "room_type_id", foreignKey = @ForeignKey(name = "fk_booking_room_type"))
+    private RoomType roomType;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false, foreignKey = @ForeignKey(name = "fk_booking_user"))
     private User user;
@@ -0,0 +1,38 @@
+package com.hotelbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ключ идемпотентности запроса создания бронирования и сохраненный ответ на него.
+ * Ключи действуют в пределах пользователя.
+ * @author Кирилл_Христич
+ */
+@Entity
+@Table(name = "booking_idempotency_keys")
+@IdClass(BookingIdempotencyKeyId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookingIdempotencyKey {
+
+    @Id
+    @Column(length = 50)
+    private String username;
+
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
+    @Column(name = "request_fingerprint", nullable = false, length = 200)
+    private String requestFingerprint;
+
+    @Column(columnDefinition = "TEXT")
+    private String response;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,19 @@
+package com.hotelbooking.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Составной ключ идемпотентности бронирования.
+ * @author Кирилл_Христич
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingIdempotencyKeyId implements Serializable {
+    private String username;
+    private String idempotencyKey;
+}
@@ -14,8 +14,8 @@ import java.util.List;
  */
 @Entity
 @Table(name = "hotels", indexes = {
-        @Index(name = "idx_hotel_city", columnList = "city"),
-        @Index(name = "idx_hotel_rating", columnList = "rating")
+        @Index(name = "idx_hotel_rating_id", columnList = "rating, id"),
+        @Index(name = "idx_hotel_distance_id", columnList = "distance_from_city_center, id")
 })
 @Data
 @NoArgsConstructor
@@ -13,15 +13,16 @@ import java.util.List;
  */
 @Entity
 @Table(name = "rooms", indexes = {
-        @Index(name = "idx_room_hotel_id", columnList = "hotel_id"),
-        @Index(name = "idx_room_price", columnList = "price"),
-        @Index(name = "idx_room_max_guests", columnList = "max_guests")
+        @Index(name = "idx_room_hotel_price", columnList = "hotel_id, price, id"),
+        @Index(name = "idx_room_price_id", columnList = "price, id"),
+        @Index(name = "idx_room_max_guests", columnList = "max_guests"),
+        @Index(name = "idx_room_room_type_id", columnList = "room_type_id")
 })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@ToString(exclude = {"hotel", "bookings"})
+@ToString(exclude = {"hotel", "roomType", "bookings"})
 public class Room {
 
     @Id
@@ -47,6 +48,10 @@ public class Room {
     @JoinColumn(name = "hotel_id", nullable = false, foreignKey = @ForeignKey(name = "fk_room_hotel"))
     private Hotel hotel;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "room_type_id", foreignKey = @ForeignKey(name = "fk_room_room_type"))
+    private RoomType roomType;
+
     @OneToMany(mappedBy = "room", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<Booking> bookings = new ArrayList<>();
@@ -0,0 +1,32 @@
+package com.hotelbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Количество забронированных номеров типа на одну ночь.
+ * Счетчик изменяется только условными UPDATE в RoomInventoryRepository.
+ * @author Кирилл_Христич
+ */
+@Entity
+@Table(name = "room_inventory")
+@IdClass(RoomInventoryId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RoomInventory {
+
+    @Id
+    @Column(name = "room_type_id")
+    private Long roomTypeId;
+
+    @Id
+    @Column(name = "stay_date")
+    private LocalDate stayDate;
+
+    @Column(nullable = false)
+    private Integer booked;
+}
@@ -0,0 +1,20 @@
+package com.hotelbooking.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Составной ключ посуточной занятости типа номера.
+ * @author Кирилл_Христич
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomInventoryId implements Serializable {
+    private Long roomTypeId;
+    private LocalDate stayDate;
+}
@@ -0,0 +1,48 @@
+package com.hotelbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Сущность типа номера.
+ * Количество номеров типа поддерживается при изменении комнат и используется
+ * как емкость при посуточном учете занятости.
+ * @author Кирилл_Христич
+ */
+@Entity
+@Table(name = "room_types",
+        uniqueConstraints = @UniqueConstraint(name = "uk_room_type_hotel_name", columnNames = {"hotel_id", "name"})
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString(exclude = "hotel")
+public class RoomType {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal price;
+
+    @Column(name = "max_guests", nullable = false)
+    private Integer maxGuests;
+
+    @Column(name = "total_rooms", nullable = false)
+    @Builder.Default
+    private Integer totalRooms = 0;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "hotel_id", nullable = false, foreignKey = @ForeignKey(name = "fk_room_type_hotel"))
+    private Hotel hotel;
+}
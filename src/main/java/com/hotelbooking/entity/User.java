@@ -17,7 +17,7 @@ import java.util.List;
                 @UniqueConstraint(name = "uk_user_username", columnNames = "username"),
                 @UniqueConstraint(name = "uk_user_email", columnNames = "email")
         },
-        indexes = @Index(name = "idx_user_role", columnList = "role")
+        indexes = @Index(name = "idx_user_role_id", columnList = "role, id")
 )
 @Data
 @NoArgsConstructor
@@ -33,7 +33,7 @@ public class User {
     @Column(nullable = false, unique = true, length = 50)
     private String username;
 
-    @Column(nullable = false, length = 100)
+    @Column(nullable = false)
     private String password;
 
     @Column(nullable = false, unique = true, length = 100)
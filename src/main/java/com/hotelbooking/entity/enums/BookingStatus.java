@@ -0,0 +1,10 @@
+package com.hotelbooking.entity.enums;
+
+/**
+ * Перечисление статусов бронирования.
+ * @author Кирилл_Христич
+ */
+public enum BookingStatus {
+    CONFIRMED,
+    CANCELLED
+}
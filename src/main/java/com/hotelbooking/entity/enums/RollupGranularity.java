@@ -0,0 +1,28 @@
+package com.hotelbooking.entity.enums;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Перечисление гранулярностей агрегатов статистики.
+ * @author Кирилл_Христич
+ */
+public enum RollupGranularity {
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Вычисляет начало интервала, в который попадает момент времени.
+     * @param timestamp момент времени
+     * @return начало интервала
+     */
+    public LocalDateTime bucketStart(LocalDateTime timestamp) {
+        return timestamp.truncatedTo(unit);
+    }
+}
@@ -0,0 +1,24 @@
+package com.hotelbooking.entity.mongo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Данные события бронирования.
+ * @author Кирилл_Христич
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingPayload implements StatisticsPayload {
+    private Long bookingId;
+    private Long roomId;
+    private Long hotelId;
+    private LocalDate checkInDate;
+    private LocalDate checkOutDate;
+}
@@ -0,0 +1,20 @@
+package com.hotelbooking.entity.mongo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Данные события регистрации пользователя.
+ * @author Кирилл_Христич
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegistrationPayload implements StatisticsPayload {
+    private String username;
+    private String email;
+    private String role;
+}
@@ -0,0 +1,17 @@
+package com.hotelbooking.entity.mongo;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * Данные события статистики.
+ * Конкретный тип определяется типом события записи, поэтому в MongoDB дискриминатор не хранится.
+ * @author Кирилл_Христич
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = BookingPayload.class, name = "BOOKING"),
+        @JsonSubTypes.Type(value = RegistrationPayload.class, name = "REGISTRATION")
+})
+public interface StatisticsPayload {
+}
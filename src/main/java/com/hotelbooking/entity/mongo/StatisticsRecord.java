@@ -5,39 +5,43 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
 import java.time.LocalDateTime;
-import java.util.Map;
 
 /**
  * Сущность для хранения статистики в MongoDB.
+ * Индексы соответствуют реальным запросам: выборкам по типу события за период
+ * и диапазонным выборкам по времени (экспорт, пересчет агрегатов, архивация).
+ * Чтение и запись выполняются конвертерами из пакета converter, а не рефлексивным маппингом.
  * @author Кирилл_Христич
  */
-@Document(collection = "statistics_records")
+@Document(collection = StatisticsRecord.COLLECTION)
+@CompoundIndex(name = "idx_stat_type_time", def = "{'event_type': 1, 'timestamp': 1}")
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class StatisticsRecord {
 
+    public static final String COLLECTION = "statistics_records";
+
     @Id
     private String id;
 
-    @Indexed
     @Field("event_type")
     private String eventType;
 
-    @Indexed
     @Field("user_id")
     private Long userId;
 
-    @Indexed
+    @Indexed(name = "idx_stat_timestamp")
     @Field("timestamp")
     private LocalDateTime timestamp;
 
     @Field("data")
-    private Map<String, Object> data;
+    private StatisticsPayload data;
 }
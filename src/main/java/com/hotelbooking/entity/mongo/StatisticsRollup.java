@@ -0,0 +1,71 @@
+package com.hotelbooking.entity.mongo;
+
+import com.hotelbooking.entity.enums.RollupGranularity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/**
+ * Предагрегированные счетчики статистики за час или сутки.
+ * Документ без ID отеля содержит итог по всем отелям.
+ * Отмены учитываются отдельными счетчиками в интервале события отмены.
+ * В поле offsets документ хранит последнее учтенное смещение каждой партиции Kafka; поле
+ * используется только запросами обновления и в сущность не читается.
+ * @author Кирилл_Христич
+ */
+@Document(collection = StatisticsRollup.COLLECTION)
+@CompoundIndex(name = "idx_rollup_bucket", def = "{'granularity': 1, 'hotel_id': 1, 'bucket_start': 1}")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatisticsRollup {
+
+    public static final String COLLECTION = "statistics_rollups";
+    public static final String OFFSETS = "offsets";
+
+    @Id
+    private String id;
+
+    @Field("granularity")
+    private RollupGranularity granularity;
+
+    @Field("bucket_start")
+    private LocalDateTime bucketStart;
+
+    @Field("hotel_id")
+    private Long hotelId;
+
+    @Field("bookings")
+    private long bookings;
+
+    @Field("nights_booked")
+    private long nightsBooked;
+
+    @Field("cancellations")
+    private long cancellations;
+
+    @Field("nights_cancelled")
+    private long nightsCancelled;
+
+    @Field("registrations")
+    private long registrations;
+
+    /**
+     * Формирует детерминированный ID документа агрегата.
+     * @param granularity гранулярность
+     * @param bucketStart начало интервала
+     * @param hotelId ID отеля или null для итога по всем отелям
+     * @return ID документа
+     */
+    public static String bucketId(RollupGranularity granularity, LocalDateTime bucketStart, Long hotelId) {
+        return granularity.name() + "|" + bucketStart + "|" + (hotelId != null ? hotelId : "*");
+    }
+}
@@ -0,0 +1,27 @@
+package com.hotelbooking.entity.mongo.converter;
+
+/**
+ * Имена полей документа записи статистики.
+ * @author Кирилл_Христич
+ */
+public final class StatisticsFields {
+
+    public static final String ID = "_id";
+    public static final String EVENT_TYPE = "event_type";
+    public static final String USER_ID = "user_id";
+    public static final String TIMESTAMP = "timestamp";
+    public static final String DATA = "data";
+
+    public static final String BOOKING_ID = "bookingId";
+    public static final String ROOM_ID = "roomId";
+    public static final String HOTEL_ID = "hotelId";
+    public static final String CHECK_IN_DATE = "checkInDate";
+    public static final String CHECK_OUT_DATE = "checkOutDate";
+
+    public static final String USERNAME = "username";
+    public static final String EMAIL = "email";
+    public static final String ROLE = "role";
+
+    private StatisticsFields() {
+    }
+}
@@ -0,0 +1,85 @@
+package com.hotelbooking.entity.mongo.converter;
+
+import com.hotelbooking.entity.mongo.BookingPayload;
+import com.hotelbooking.entity.mongo.RegistrationPayload;
+import com.hotelbooking.entity.mongo.StatisticsPayload;
+import com.hotelbooking.entity.mongo.StatisticsRecord;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+/**
+ * Конвертер документа MongoDB в запись статистики.
+ * Тип данных события определяется по типу события. Поддерживает документы прежнего формата,
+ * в которых даты заезда и выезда хранились строками, а числа могли быть Int32.
+ * @author Кирилл_Христич
+ */
+@ReadingConverter
+public class StatisticsRecordReadConverter implements Converter<Document, StatisticsRecord> {
+
+    @Override
+    public StatisticsRecord convert(Document source) {
+        String eventType = source.getString(StatisticsFields.EVENT_TYPE);
+        Document data = source.get(StatisticsFields.DATA, Document.class);
+
+        StatisticsRecord record = new StatisticsRecord();
+        record.setId(readId(source.get(StatisticsFields.ID)));
+        record.setEventType(eventType);
+        record.setUserId(readLong(source.get(StatisticsFields.USER_ID)));
+        record.setTimestamp(readDateTime(source.get(StatisticsFields.TIMESTAMP)));
+        record.setData(data != null ? readPayload(eventType, data) : null);
+        return record;
+    }
+
+    private StatisticsPayload readPayload(String eventType, Document data) {
+        if ("USER_REGISTRATION".equals(eventType)) {
+            return new RegistrationPayload(
+                    data.getString(StatisticsFields.USERNAME),
+                    data.getString(StatisticsFields.EMAIL),
+                    data.getString(StatisticsFields.ROLE));
+        }
+        if (eventType != null && eventType.startsWith("BOOKING_")) {
+            return new BookingPayload(
+                    readLong(data.get(StatisticsFields.BOOKING_ID)),
+                    readLong(data.get(StatisticsFields.ROOM_ID)),
+                    readLong(data.get(StatisticsFields.HOTEL_ID)),
+                    readDate(data.get(StatisticsFields.CHECK_IN_DATE)),
+                    readDate(data.get(StatisticsFields.CHECK_OUT_DATE)));
+        }
+        return null;
+    }
+
+    private static String readId(Object value) {
+        if (value instanceof ObjectId objectId) {
+            return objectId.toHexString();
+        }
+        return value != null ? value.toString() : null;
+    }
+
+    private static Long readLong(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
+
+    private static LocalDateTime readDateTime(Object value) {
+        return value instanceof Date date
+                ? LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault())
+                : null;
+    }
+
+    private static LocalDate readDate(Object value) {
+        if (value instanceof Date date) {
+            return LocalDate.ofInstant(date.toInstant(), ZoneOffset.UTC);
+        }
+        if (value instanceof String text) {
+            return LocalDate.parse(text);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,83 @@
+package com.hotelbooking.entity.mongo.converter;
+
+import com.hotelbooking.entity.mongo.BookingPayload;
+import com.hotelbooking.entity.mongo.RegistrationPayload;
+import com.hotelbooking.entity.mongo.StatisticsPayload;
+import com.hotelbooking.entity.mongo.StatisticsRecord;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.WritingConverter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+/**
+ * Конвертер записи статистики в документ MongoDB.
+ * Время события хранится как BSON Date в часовом поясе приложения (как при стандартном маппинге),
+ * даты заезда и выезда - как BSON Date на полночь UTC. Пустые значения не записываются.
+ * @author Кирилл_Христич
+ */
+@WritingConverter
+public class StatisticsRecordWriteConverter implements Converter<StatisticsRecord, Document> {
+
+    @Override
+    public Document convert(StatisticsRecord source) {
+        Document document = new Document();
+
+        if (source.getId() != null) {
+            document.put(StatisticsFields.ID, ObjectId.isValid(source.getId())
+                    ? new ObjectId(source.getId())
+                    : source.getId());
+        }
+        putIfNotNull(document, StatisticsFields.EVENT_TYPE, source.getEventType());
+        putIfNotNull(document, StatisticsFields.USER_ID, source.getUserId());
+        if (source.getTimestamp() != null) {
+            document.put(StatisticsFields.TIMESTAMP, toDate(source.getTimestamp()));
+        }
+        if (source.getData() != null) {
+            document.put(StatisticsFields.DATA, writePayload(source.getData()));
+        }
+
+        return document;
+    }
+
+    private Document writePayload(StatisticsPayload payload) {
+        Document data = new Document();
+
+        if (payload instanceof BookingPayload booking) {
+            putIfNotNull(data, StatisticsFields.BOOKING_ID, booking.getBookingId());
+            putIfNotNull(data, StatisticsFields.ROOM_ID, booking.getRoomId());
+            putIfNotNull(data, StatisticsFields.HOTEL_ID, booking.getHotelId());
+            if (booking.getCheckInDate() != null) {
+                data.put(StatisticsFields.CHECK_IN_DATE, toDate(booking.getCheckInDate()));
+            }
+            if (booking.getCheckOutDate() != null) {
+                data.put(StatisticsFields.CHECK_OUT_DATE, toDate(booking.getCheckOutDate()));
+            }
+        } else if (payload instanceof RegistrationPayload registration) {
+            putIfNotNull(data, StatisticsFields.USERNAME, registration.getUsername());
+            putIfNotNull(data, StatisticsFields.EMAIL, registration.getEmail());
+            putIfNotNull(data, StatisticsFields.ROLE, registration.getRole());
+        }
+
+        return data;
+    }
+
+    private static void putIfNotNull(Document document, String key, Object value) {
+        if (value != null) {
+            document.put(key, value);
+        }
+    }
+
+    static Date toDate(LocalDateTime value) {
+        return Date.from(value.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    static Date toDate(LocalDate value) {
+        return Date.from(value.atStartOfDay(ZoneOffset.UTC).toInstant());
+    }
+}
@@ -9,7 +9,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 /**
- * Событие создания бронирования.
+ * Событие создания или отмены бронирования.
  * @author Кирилл_Христич
  */
 @Data
@@ -17,10 +17,15 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 public class BookingEvent {
-    private String eventType = "BOOKING_CREATED";
+    public static final String BOOKING_CREATED = "BOOKING_CREATED";
+    public static final String BOOKING_CANCELLED = "BOOKING_CANCELLED";
+
+    @Builder.Default
+    private String eventType = BOOKING_CREATED;
     private Long userId;
     private Long bookingId;
     private Long roomId;
+    private Long hotelId;
     private LocalDate checkInDate;
     private LocalDate checkOutDate;
     private LocalDateTime timestamp;
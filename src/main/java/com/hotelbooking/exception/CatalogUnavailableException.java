@@ -0,0 +1,12 @@
+package com.hotelbooking.exception;
+
+/**
+ * Исключение для случаев, когда снимок каталога в памяти еще не загружен или отключен.
+ * @author Кирилл_Христич
+ */
+public class CatalogUnavailableException extends RuntimeException {
+
+    public CatalogUnavailableException(String message) {
+        super(message);
+    }
+}
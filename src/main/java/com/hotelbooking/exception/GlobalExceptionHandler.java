@@ -5,6 +5,7 @@ import io.swagger.v3.oas.annotations.Hidden;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -98,6 +99,53 @@ public class GlobalExceptionHandler {
         return errors;
     }
 
+    /**
+     * Обрабатывает исключение PasswordHashingUnavailableException.
+     * @param ex исключение
+     * @param request HTTP запрос
+     * @return информация об ошибке с заголовком Retry-After
+     */
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<ApiError> handlePasswordHashingUnavailableException(
+            PasswordHashingUnavailableException ex, HttpServletRequest request) {
+
+        log.warn("Password hashing pool saturated: {}", request.getRequestURI());
+
+        ApiError error = new ApiError(
+                LocalDateTime.now(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(error);
+    }
+
+    /**
+     * Обрабатывает исключение CatalogUnavailableException.
+     * @param ex исключение
+     * @param request HTTP запрос
+     * @return информация об ошибке
+     */
+    @ExceptionHandler(CatalogUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ApiError handleCatalogUnavailableException(
+            CatalogUnavailableException ex, HttpServletRequest request) {
+
+        log.warn("Catalog snapshot unavailable: {}", request.getRequestURI());
+
+        return new ApiError(
+                LocalDateTime.now(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+    }
+
     /**
      * Обрабатывает исключения аутентификации.
      * @param ex исключение
@@ -0,0 +1,29 @@
+package com.hotelbooking.exception;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+import java.time.Duration;
+
+/**
+ * Исключение для случаев, когда пул хеширования паролей перегружен.
+ * Наследует AuthenticationServiceException, чтобы отказ при проверке пароля в фильтре
+ * аутентификации дошел до точки входа, а не завершил запрос ошибкой сервера.
+ * @author Кирилл_Христич
+ */
+public class PasswordHashingUnavailableException extends AuthenticationServiceException {
+
+    private final Duration retryAfter;
+
+    public PasswordHashingUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Получает значение заголовка Retry-After.
+     * @return количество секунд до повтора, не меньше одной
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, retryAfter.toSeconds());
+    }
+}
@@ -1,8 +1,10 @@
 package com.hotelbooking.mapper;
 
 import com.hotelbooking.dto.request.BookingRequestDto;
+import com.hotelbooking.dto.response.BookingHoldResponseDto;
 import com.hotelbooking.dto.response.BookingResponseDto;
 import com.hotelbooking.entity.Booking;
+import com.hotelbooking.service.booking.RoomHold;
 import org.mapstruct.*;
 
 /**
@@ -20,7 +22,10 @@ public interface BookingMapper {
      * @return сущность Booking
      */
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "status", ignore = true)
+    @Mapping(target = "cancelledAt", ignore = true)
     @Mapping(target = "room", ignore = true)
+    @Mapping(target = "roomType", ignore = true)
     @Mapping(target = "user", ignore = true)
     Booking toEntity(BookingRequestDto dto);
 
@@ -33,7 +38,19 @@ public interface BookingMapper {
     @Mapping(source = "room.name", target = "roomName")
     @Mapping(source = "room.hotel.id", target = "hotelId")
     @Mapping(source = "room.hotel.name", target = "hotelName")
+    @Mapping(source = "roomType.id", target = "roomTypeId")
+    @Mapping(source = "roomType.name", target = "roomTypeName")
     @Mapping(source = "user.id", target = "userId")
     @Mapping(source = "user.username", target = "userName")
     BookingResponseDto toResponseDto(Booking booking);
+
+    /**
+     * Преобразует RoomHold в BookingHoldResponseDto.
+     * @param hold удержание комнаты
+     * @return DTO с информацией об удержании
+     */
+    @Mapping(source = "id", target = "holdId")
+    @Mapping(target = "expiresAt", expression = "java(java.time.LocalDateTime.ofInstant("
+            + "java.time.Instant.ofEpochMilli(hold.getExpiresAtMillis()), java.time.ZoneId.systemDefault()))")
+    BookingHoldResponseDto toHoldResponseDto(RoomHold hold);
 }
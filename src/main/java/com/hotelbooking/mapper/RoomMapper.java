@@ -21,6 +21,7 @@ public interface RoomMapper {
      */
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "hotel", ignore = true)
+    @Mapping(target = "roomType", ignore = true)
     @Mapping(target = "bookings", ignore = true)
     Room toEntity(RoomRequestDto dto);
 
@@ -31,6 +32,8 @@ public interface RoomMapper {
      */
     @Mapping(source = "hotel.id", target = "hotelId")
     @Mapping(source = "hotel.name", target = "hotelName")
+    @Mapping(source = "roomType.id", target = "roomTypeId")
+    @Mapping(source = "roomType.name", target = "roomTypeName")
     RoomResponseDto toResponseDto(Room room);
 
     /**
@@ -41,6 +44,7 @@ public interface RoomMapper {
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "hotel", ignore = true)
+    @Mapping(target = "roomType", ignore = true)
     @Mapping(target = "bookings", ignore = true)
     void updateEntity(RoomRequestDto dto, @MappingTarget Room room);
 }
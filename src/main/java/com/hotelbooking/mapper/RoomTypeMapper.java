@@ -0,0 +1,33 @@
+package com.hotelbooking.mapper;
+
+import com.hotelbooking.dto.request.RoomTypeRequestDto;
+import com.hotelbooking.dto.response.RoomTypeResponseDto;
+import com.hotelbooking.entity.RoomType;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Маппер для преобразования между RoomType и DTO.
+ * @author Кирилл_Христич
+ */
+@Mapper(componentModel = "spring")
+public interface RoomTypeMapper {
+
+    /**
+     * Преобразует RoomTypeRequestDto в RoomType.
+     * @param dto DTO для создания типа номера
+     * @return сущность RoomType
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "totalRooms", ignore = true)
+    @Mapping(target = "hotel", ignore = true)
+    RoomType toEntity(RoomTypeRequestDto dto);
+
+    /**
+     * Преобразует RoomType в RoomTypeResponseDto.
+     * @param roomType сущность RoomType
+     * @return DTO с информацией о типе номера
+     */
+    @Mapping(source = "hotel.id", target = "hotelId")
+    RoomTypeResponseDto toResponseDto(RoomType roomType);
+}
@@ -0,0 +1,59 @@
+package com.hotelbooking.repository;
+
+import com.hotelbooking.entity.BookingIdempotencyKey;
+import com.hotelbooking.entity.BookingIdempotencyKeyId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Репозиторий ключей идемпотентности бронирований.
+ * @author Кирилл_Христич
+ */
+@Repository
+public interface BookingIdempotencyKeyRepository extends JpaRepository<BookingIdempotencyKey, BookingIdempotencyKeyId> {
+
+    /**
+     * Занимает ключ, если он еще не использован.
+     * Если ключ вставлен параллельной незафиксированной транзакцией, вставка ожидает ее завершения.
+     * @param username имя пользователя
+     * @param idempotencyKey ключ идемпотентности
+     * @param requestFingerprint отпечаток данных запроса
+     * @param createdAt время создания
+     * @return 1 если ключ занят этим запросом, 0 если ключ уже существует
+     */
+    @Modifying
+    @Query(value = "INSERT INTO booking_idempotency_keys (username, idempotency_key, request_fingerprint, created_at) " +
+            "VALUES (:username, :idempotencyKey, :requestFingerprint, :createdAt) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int claim(@Param("username") String username,
+              @Param("idempotencyKey") String idempotencyKey,
+              @Param("requestFingerprint") String requestFingerprint,
+              @Param("createdAt") LocalDateTime createdAt);
+
+    /**
+     * Сохраняет ответ на запрос с ключом.
+     * @param username имя пользователя
+     * @param idempotencyKey ключ идемпотентности
+     * @param response ответ в формате JSON
+     */
+    @Modifying
+    @Query("UPDATE BookingIdempotencyKey k SET k.response = :response " +
+            "WHERE k.username = :username AND k.idempotencyKey = :idempotencyKey")
+    void storeResponse(@Param("username") String username,
+                       @Param("idempotencyKey") String idempotencyKey,
+                       @Param("response") String response);
+
+    /**
+     * Удаляет ключи, созданные до указанного момента.
+     * @param createdBefore граница времени создания
+     * @return количество удаленных ключей
+     */
+    @Modifying
+    @Query("DELETE FROM BookingIdempotencyKey k WHERE k.createdAt < :createdBefore")
+    int deleteCreatedBefore(@Param("createdBefore") LocalDateTime createdBefore);
+}
@@ -1,6 +1,7 @@
 package com.hotelbooking.repository;
 
 import com.hotelbooking.entity.Booking;
+import com.hotelbooking.entity.enums.BookingStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * Репозиторий для работы с бронированиями.
@@ -26,16 +28,71 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     Page<Booking> findByUserId(Long userId, Pageable pageable);
 
     /**
-     * Проверяет наличие пересекающихся бронирований для комнаты.
+     * Находит бронирования комнаты с заданным статусом, выезд по которым позже заданной даты.
+     * @param roomId ID комнаты
+     * @param status статус бронирования
+     * @param date дата
+     * @return список бронирований
+     */
+    List<Booking> findByRoomIdAndStatusAndCheckOutDateAfter(Long roomId, BookingStatus status, LocalDate date);
+
+    /**
+     * Проверяет наличие пересекающихся действующих бронирований для комнаты.
+     * Останавливается на первом найденном бронировании и выполняется сканированием только
+     * частичного индекса idx_booking_active_room_dates. Нижняя граница даты заезда ограничивает просмотр секциями,
+     * в которых может находиться пересекающееся бронирование с учетом максимальной длительности проживания.
      * @param roomId ID комнаты
      * @param checkIn дата заезда
      * @param checkOut дата выезда
+     * @param earliestCheckIn дата заезда, после которой могут начинаться пересекающиеся бронирования
      * @return true если есть пересекающиеся бронирования
      */
-    @Query("SELECT CASE WHEN COUNT(b) > 0 THEN true ELSE false END " +
-            "FROM Booking b WHERE b.room.id = :roomId " +
-            "AND ((b.checkInDate < :checkOut AND b.checkOutDate > :checkIn))")
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM bookings b " +
+            "WHERE b.room_id = :roomId " +
+            "AND b.check_in_date > :earliestCheckIn " +
+            "AND b.check_in_date < :checkOut " +
+            "AND b.check_out_date > :checkIn " +
+            "AND b.status = 'CONFIRMED' " +
+            "LIMIT 1)", nativeQuery = true)
     boolean existsOverlappingBooking(@Param("roomId") Long roomId,
                                      @Param("checkIn") LocalDate checkIn,
-                                     @Param("checkOut") LocalDate checkOut);
+                                     @Param("checkOut") LocalDate checkOut,
+                                     @Param("earliestCheckIn") LocalDate earliestCheckIn);
+
+    /**
+     * Находит ID комнат с действующими бронированиями, пересекающимися с периодом, во всех отелях.
+     * Читает только частичный индекс idx_booking_active_dates по датам заезда секций периода.
+     * @param checkIn дата заезда
+     * @param checkOut дата выезда
+     * @param earliestCheckIn дата заезда, после которой могут начинаться пересекающиеся бронирования
+     * @return ID занятых комнат
+     */
+    @Query(value = "SELECT DISTINCT b.room_id FROM bookings b " +
+            "WHERE b.check_in_date > :earliestCheckIn " +
+            "AND b.check_in_date < :checkOut " +
+            "AND b.check_out_date > :checkIn " +
+            "AND b.status = 'CONFIRMED'", nativeQuery = true)
+    List<Long> findBookedRoomIds(@Param("checkIn") LocalDate checkIn,
+                                 @Param("checkOut") LocalDate checkOut,
+                                 @Param("earliestCheckIn") LocalDate earliestCheckIn);
+
+    /**
+     * Находит ID комнат отеля с действующими бронированиями, пересекающимися с периодом.
+     * Бронирования каждой комнаты отеля читаются по частичному индексу idx_booking_active_room_dates.
+     * @param hotelId ID отеля
+     * @param checkIn дата заезда
+     * @param checkOut дата выезда
+     * @param earliestCheckIn дата заезда, после которой могут начинаться пересекающиеся бронирования
+     * @return ID занятых комнат отеля
+     */
+    @Query(value = "SELECT DISTINCT b.room_id FROM bookings b " +
+            "WHERE b.room_id IN (SELECT r.id FROM rooms r WHERE r.hotel_id = :hotelId) " +
+            "AND b.check_in_date > :earliestCheckIn " +
+            "AND b.check_in_date < :checkOut " +
+            "AND b.check_out_date > :checkIn " +
+            "AND b.status = 'CONFIRMED'", nativeQuery = true)
+    List<Long> findBookedRoomIdsInHotel(@Param("hotelId") Long hotelId,
+                                        @Param("checkIn") LocalDate checkIn,
+                                        @Param("checkOut") LocalDate checkOut,
+                                        @Param("earliestCheckIn") LocalDate earliestCheckIn);
 }
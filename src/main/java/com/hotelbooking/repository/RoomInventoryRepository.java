@@ -0,0 +1,101 @@
+package com.hotelbooking.repository;
+
+import com.hotelbooking.entity.RoomInventory;
+import com.hotelbooking.entity.RoomInventoryId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Репозиторий посуточной занятости типов номеров.
+ * Изменение счетчиков выполняется условными UPDATE, которые блокируют строки ночей,
+ * поэтому параллельные бронирования одного типа не превышают количество номеров.
+ * @author Кирилл_Христич
+ */
+@Repository
+public interface RoomInventoryRepository extends JpaRepository<RoomInventory, RoomInventoryId> {
+
+    /**
+     * Создает недостающие строки ночей периода с нулевой занятостью.
+     * @param roomTypeId ID типа номера
+     * @param from первая ночь
+     * @param to дата выезда (ночь не включается)
+     * @return количество созданных строк
+     */
+    @Modifying
+    @Query(value = "INSERT INTO room_inventory (room_type_id, stay_date, booked) " +
+            "SELECT :roomTypeId, d::date, 0 " +
+            "FROM generate_series(CAST(:from AS date), CAST(:to AS date) - 1, INTERVAL '1 day') d " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int createMissingNights(@Param("roomTypeId") Long roomTypeId,
+                            @Param("from") LocalDate from,
+                            @Param("to") LocalDate to);
+
+    /**
+     * Увеличивает занятость на каждую ночь периода, в которую есть свободный номер типа.
+     * Вызывающий код сравнивает результат с количеством ночей и откатывает транзакцию,
+     * если хотя бы одна ночь полностью занята.
+     * @param roomTypeId ID типа номера
+     * @param from первая ночь
+     * @param to дата выезда (ночь не включается)
+     * @return количество ночей, на которые номер зарезервирован
+     */
+    @Modifying
+    @Query(value = "UPDATE room_inventory i SET booked = i.booked + 1 " +
+            "FROM room_types t " +
+            "WHERE t.id = i.room_type_id " +
+            "AND i.room_type_id = :roomTypeId " +
+            "AND i.stay_date >= :from AND i.stay_date < :to " +
+            "AND i.booked < t.total_rooms", nativeQuery = true)
+    int reserve(@Param("roomTypeId") Long roomTypeId,
+                @Param("from") LocalDate from,
+                @Param("to") LocalDate to);
+
+    /**
+     * Уменьшает занятость на каждую ночь периода.
+     * @param roomTypeId ID типа номера
+     * @param from первая ночь
+     * @param to дата выезда (ночь не включается)
+     * @return количество освобожденных ночей
+     */
+    @Modifying
+    @Query(value = "UPDATE room_inventory SET booked = booked - 1 " +
+            "WHERE room_type_id = :roomTypeId " +
+            "AND stay_date >= :from AND stay_date < :to " +
+            "AND booked > 0", nativeQuery = true)
+    int release(@Param("roomTypeId") Long roomTypeId,
+                @Param("from") LocalDate from,
+                @Param("to") LocalDate to);
+
+    /**
+     * Находит занятость типов номеров за период.
+     * @param roomTypeIds ID типов номеров
+     * @param from первая ночь
+     * @param to дата выезда (ночь не включается)
+     * @return строки занятости
+     */
+    @Query("SELECT i FROM RoomInventory i " +
+            "WHERE i.roomTypeId IN :roomTypeIds AND i.stayDate >= :from AND i.stayDate < :to")
+    List<RoomInventory> findByRoomTypesAndPeriod(@Param("roomTypeIds") Collection<Long> roomTypeIds,
+                                                 @Param("from") LocalDate from,
+                                                 @Param("to") LocalDate to);
+
+    /**
+     * Находит типы номеров, полностью распроданные хотя бы на одну ночь периода.
+     * @param from первая ночь
+     * @param to дата выезда (ночь не включается)
+     * @return ID распроданных типов номеров
+     */
+    @Query(value = "SELECT DISTINCT i.room_type_id FROM room_inventory i " +
+            "JOIN room_types t ON t.id = i.room_type_id " +
+            "WHERE i.stay_date >= :from AND i.stay_date < :to " +
+            "AND i.booked >= t.total_rooms", nativeQuery = true)
+    List<Long> findSoldOutRoomTypeIds(@Param("from") LocalDate from,
+                                      @Param("to") LocalDate to);
+}
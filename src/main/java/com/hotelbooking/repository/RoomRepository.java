@@ -1,14 +1,67 @@
 package com.hotelbooking.repository;
 
 import com.hotelbooking.entity.Room;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Репозиторий для работы с комнатами.
  * @author Кирилл_Христич
  */
 @Repository
 public interface RoomRepository extends JpaRepository<Room, Long>, JpaSpecificationExecutor<Room> {
+
+    /**
+     * Находит все комнаты вместе с отелями и типами номеров для снимка каталога.
+     * @return комнаты, упорядоченные по ID
+     */
+    @Query("SELECT r FROM Room r JOIN FETCH r.hotel LEFT JOIN FETCH r.roomType ORDER BY r.id")
+    List<Room> findAllForCatalog();
+
+    /**
+     * Находит комнату и блокирует ее строку до конца транзакции.
+     * Параллельные бронирования комнаты выполняют проверку пересечений по очереди,
+     * а подбор комнаты для бронирования по типу пропускает заблокированную комнату.
+     * @param id ID комнаты
+     * @return комната
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Room r WHERE r.id = :id")
+    Optional<Room> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Находит и блокирует комнаты типа, свободные на весь период.
+     * Комнаты, заблокированные параллельным бронированием, пропускаются.
+     * @param roomTypeId ID типа номера
+     * @param checkIn дата заезда
+     * @param checkOut дата выезда
+     * @param earliestCheckIn дата заезда, после которой могут начинаться пересекающиеся бронирования
+     * @param limit максимальное количество комнат
+     * @return ID свободных комнат
+     */
+    @Query(value = "SELECT r.id FROM rooms r " +
+            "WHERE r.room_type_id = :roomTypeId " +
+            "AND NOT EXISTS (SELECT 1 FROM bookings b " +
+            "WHERE b.room_id = r.id " +
+            "AND b.check_in_date > :earliestCheckIn " +
+            "AND b.check_in_date < :checkOut " +
+            "AND b.check_out_date > :checkIn " +
+            "AND b.status = 'CONFIRMED') " +
+            "ORDER BY r.id " +
+            "LIMIT :limit " +
+            "FOR UPDATE OF r SKIP LOCKED", nativeQuery = true)
+    List<Long> findFreeRoomIdsOfType(@Param("roomTypeId") Long roomTypeId,
+                                     @Param("checkIn") LocalDate checkIn,
+                                     @Param("checkOut") LocalDate checkOut,
+                                     @Param("earliestCheckIn") LocalDate earliestCheckIn,
+                                     @Param("limit") int limit);
 }
@@ -0,0 +1,36 @@
+package com.hotelbooking.repository;
+
+import com.hotelbooking.entity.RoomType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Репозиторий для работы с типами номеров.
+ * @author Кирилл_Христич
+ */
+@Repository
+public interface RoomTypeRepository extends JpaRepository<RoomType, Long> {
+
+    /**
+     * Находит типы номеров отеля.
+     * @param hotelId ID отеля
+     * @return список типов номеров
+     */
+    List<RoomType> findByHotelIdOrderByPriceAsc(Long hotelId);
+
+    /**
+     * Пересчитывает количество номеров типа по таблице комнат.
+     * @param roomTypeId ID типа номера
+     * @return количество обновленных строк
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE room_types SET total_rooms = " +
+            "(SELECT COUNT(*) FROM rooms r WHERE r.room_type_id = :roomTypeId) " +
+            "WHERE id = :roomTypeId", nativeQuery = true)
+    int refreshTotalRooms(@Param("roomTypeId") Long roomTypeId);
+}
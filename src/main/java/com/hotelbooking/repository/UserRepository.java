@@ -1,12 +1,22 @@
 package com.hotelbooking.repository;
 
+import com.hotelbooking.dto.response.UserResponseDto;
 import com.hotelbooking.entity.User;
+import com.hotelbooking.entity.enums.Role;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с пользователями.
@@ -36,6 +46,88 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     boolean existsByEmail(String email);
 
+    /**
+     * Получает имена всех пользователей потоком.
+     * @return поток имен пользователей
+     */
+    @Query("SELECT u.username FROM User u")
+    Stream<String> streamAllUsernames();
+
+    /**
+     * Получает email всех пользователей потоком.
+     * @return поток email
+     */
+    @Query("SELECT u.email FROM User u")
+    Stream<String> streamAllEmails();
+
+    /**
+     * Получает страницу пользователей в виде DTO без загрузки сущностей.
+     * @param pageable параметры пагинации
+     * @return страница пользователей
+     */
+    @Query(value = "SELECT new com.hotelbooking.dto.response.UserResponseDto(u.id, u.username, u.email, u.role) FROM User u",
+            countQuery = "SELECT COUNT(u) FROM User u")
+    Page<UserResponseDto> findAllResponses(Pageable pageable);
+
+    /**
+     * Получает страницу пользователей с ролью в виде DTO без загрузки сущностей.
+     * @param role роль пользователя
+     * @param pageable параметры пагинации
+     * @return страница пользователей
+     */
+    @Query(value = "SELECT new com.hotelbooking.dto.response.UserResponseDto(u.id, u.username, u.email, u.role) FROM User u WHERE u.role = :role",
+            countQuery = "SELECT COUNT(u) FROM User u WHERE u.role = :role")
+    Page<UserResponseDto> findAllResponsesByRole(@Param("role") Role role, Pageable pageable);
+
+    /**
+     * Получает пользователей с ID больше заданного в порядке ID.
+     * @param afterId ID последнего пользователя предыдущей страницы
+     * @param pageable размер страницы
+     * @return пользователи страницы
+     */
+    @Query("SELECT new com.hotelbooking.dto.response.UserResponseDto(u.id, u.username, u.email, u.role) FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<UserResponseDto> findResponsesAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Получает пользователей с ролью и ID больше заданного в порядке ID.
+     * @param role роль пользователя
+     * @param afterId ID последнего пользователя предыдущей страницы
+     * @param pageable размер страницы
+     * @return пользователи страницы
+     */
+    @Query("SELECT new com.hotelbooking.dto.response.UserResponseDto(u.id, u.username, u.email, u.role) FROM User u WHERE u.role = :role AND u.id > :afterId ORDER BY u.id")
+    List<UserResponseDto> findResponsesByRoleAfter(@Param("role") Role role,
+                                                   @Param("afterId") long afterId,
+                                                   Pageable pageable);
+
+    /**
+     * Получает всех пользователей потоком в порядке ID.
+     * Строки читаются курсором порциями по размеру выборки.
+     * @return поток пользователей
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.hotelbooking.dto.response.UserResponseDto(u.id, u.username, u.email, u.role) FROM User u ORDER BY u.id")
+    Stream<UserResponseDto> streamAllResponses();
+
+    /**
+     * Получает пользователей с ролью потоком в порядке ID.
+     * @param role роль пользователя
+     * @return поток пользователей
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.hotelbooking.dto.response.UserResponseDto(u.id, u.username, u.email, u.role) FROM User u WHERE u.role = :role ORDER BY u.id")
+    Stream<UserResponseDto> streamAllResponsesByRole(@Param("role") Role role);
+
+    /**
+     * Обновляет хеш пароля пользователя.
+     * @param username имя пользователя
+     * @param password хеш пароля
+     * @return количество обновленных записей
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE User u SET u.password = :password WHERE u.username = :username")
+    int updatePassword(@Param("username") String username, @Param("password") String password);
+
     /**
      * Проверяет существование пользователя по имени пользователя или email.
      * @param username имя пользователя
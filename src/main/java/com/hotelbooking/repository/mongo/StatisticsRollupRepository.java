@@ -0,0 +1,28 @@
+package com.hotelbooking.repository.mongo;
+
+import com.hotelbooking.entity.enums.RollupGranularity;
+import com.hotelbooking.entity.mongo.StatisticsRollup;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Репозиторий MongoDB для работы с агрегатами статистики.
+ * @author Кирилл_Христич
+ */
+@Repository
+public interface StatisticsRollupRepository extends MongoRepository<StatisticsRollup, String> {
+
+    /**
+     * Находит агрегаты за период.
+     * @param granularity гранулярность
+     * @param hotelId ID отеля или null для итога по всем отелям
+     * @param from начало периода (включительно)
+     * @param to конец периода (не включительно)
+     * @return список агрегатов, упорядоченный по времени
+     */
+    List<StatisticsRollup> findByGranularityAndHotelIdAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStartAsc(
+            RollupGranularity granularity, Long hotelId, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,47 @@
+package com.hotelbooking.security;
+
+import com.hotelbooking.entity.User;
+import com.hotelbooking.entity.enums.Role;
+
+/**
+ * Данные аутентифицированного пользователя, передаваемые из контроллеров в сервисы.
+ * Заполняются из пользователя, загруженного при аутентификации запроса,
+ * поэтому сервисам не нужно повторно искать пользователя по имени.
+ * @param id ID пользователя
+ * @param username имя пользователя
+ * @param role роль пользователя
+ * @author Кирилл_Христич
+ */
+public record AuthenticatedUser(Long id, String username, Role role) {
+
+    /**
+     * Создает данные пользователя по данным аутентификации.
+     * @param userDetails данные аутентификации
+     * @return данные пользователя
+     */
+    public static AuthenticatedUser from(CustomUserDetails userDetails) {
+        User user = userDetails.getUser();
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getRole());
+    }
+
+    /**
+     * Проверяет, является ли пользователь администратором.
+     * @return true если пользователь администратор
+     */
+    public boolean isAdmin() {
+        return role == Role.ROLE_ADMIN;
+    }
+
+    /**
+     * Создает ссылку на сущность пользователя для связей без загрузки из базы.
+     * Сущность с заполненным ID считается отсоединенной и используется только как внешний ключ.
+     * @return сущность User с ID, именем и ролью
+     */
+    public User toReference() {
+        return User.builder()
+                .id(id)
+                .username(username)
+                .role(role)
+                .build();
+    }
+}
@@ -0,0 +1,149 @@
+package com.hotelbooking.security;
+
+import com.hotelbooking.exception.PasswordHashingUnavailableException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Кодировщик паролей, выполняющий хеширование и проверку в отдельном ограниченном пуле потоков.
+ * Пул рассчитан на число процессоров, очередь ограничена, поэтому хешированием одновременно
+ * заняты не больше threads + queueCapacity потоков веб-сервера; остальные запросы сразу
+ * получают отказ с предложением повторить позже.
+ * Исключение составляет пересчет хеша при входе: если пул перегружен, пересчет пропускается,
+ * а вход завершается со старым хешем.
+ * @author Кирилл_Христич
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    /**
+     * Хеш, для которого upgradeEncoding разрешил пересчет; следующий encode в том же потоке
+     * считается пересчетом этого хеша.
+     */
+    private final ThreadLocal<String> pendingUpgrade = new ThreadLocal<>();
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Duration maxWait;
+    private final Duration retryAfter;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity,
+                                  Duration maxWait, Duration retryAfter) {
+        BlockingQueue<Runnable> queue = queueCapacity > 0
+                ? new ArrayBlockingQueue<>(queueCapacity)
+                : new SynchronousQueue<>();
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        this.delegate = delegate;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxWait = maxWait;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Хеширует пароль.
+     * При пересчете хеша после входа перегрузка пула не считается ошибкой: возвращается прежний хеш,
+     * и пересчет откладывается до следующего входа.
+     * @param rawPassword пароль
+     * @return хеш пароля
+     */
+    @Override
+    public String encode(CharSequence rawPassword) {
+        String upgraded = pendingUpgrade.get();
+        pendingUpgrade.remove();
+
+        try {
+            return execute(() -> delegate.encode(rawPassword));
+        } catch (PasswordHashingUnavailableException e) {
+            if (upgraded == null) {
+                throw e;
+            }
+            log.debug("Password hash upgrade skipped: hashing pool is saturated");
+            return upgraded;
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        pendingUpgrade.remove();
+        return execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Проверяет, нужно ли пересчитать хеш.
+     * Пока в пуле есть ожидающие задачи, пересчет откладывается до следующего входа,
+     * чтобы он не вытеснял регистрацию и проверку паролей. Если пул заполнится до пересчета,
+     * следующий encode в этом потоке вернет прежний хеш вместо отказа.
+     * @param encodedPassword хеш пароля
+     * @return true если хеш нужно пересчитать сейчас
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (!executor.getQueue().isEmpty() || !delegate.upgradeEncoding(encodedPassword)) {
+            return false;
+        }
+        pendingUpgrade.set(encodedPassword);
+        return true;
+    }
+
+    /**
+     * Получает количество ожидающих задач хеширования.
+     * @return размер очереди
+     */
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw unavailable();
+        }
+
+        try {
+            return future.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw unavailable();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw unavailable();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private PasswordHashingUnavailableException unavailable() {
+        return new PasswordHashingUnavailableException("Сервис проверки паролей перегружен, повторите запрос позже",
+                retryAfter);
+    }
+}
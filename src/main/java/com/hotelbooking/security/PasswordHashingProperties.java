@@ -0,0 +1,64 @@
+package com.hotelbooking.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки хеширования паролей.
+ * @author Кирилл_Христич
+ */
+@Data
+@ConfigurationProperties(prefix = "app.security.password")
+public class PasswordHashingProperties {
+
+    /**
+     * Алгоритм для новых хешей: bcrypt или argon2.
+     * Хеши другого алгоритма или с меньшей стоимостью пересчитываются при успешном входе.
+     */
+    private String encoder = "bcrypt";
+
+    private Bcrypt bcrypt = new Bcrypt();
+
+    private Argon2 argon2 = new Argon2();
+
+    private Pool pool = new Pool();
+
+    @Data
+    public static class Bcrypt {
+        private int strength = 12;
+    }
+
+    @Data
+    public static class Argon2 {
+        private int saltLength = 16;
+        private int hashLength = 32;
+        private int parallelism = 1;
+        /**
+         * Объем памяти в килобайтах.
+         */
+        private int memory = 19456;
+        private int iterations = 2;
+    }
+
+    @Data
+    public static class Pool {
+        /**
+         * Количество потоков хеширования (0 - по числу процессоров).
+         */
+        private int threads = 0;
+        /**
+         * Количество ожидающих задач, после которого запросы отклоняются.
+         */
+        private int queueCapacity = 32;
+        /**
+         * Предельное время ожидания результата запросом.
+         */
+        private Duration maxWait = Duration.ofSeconds(5);
+        /**
+         * Значение заголовка Retry-After для отклоненных запросов.
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+    }
+}
@@ -4,18 +4,22 @@ import com.hotelbooking.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Сервис для загрузки данных пользователя.
+ * Также сохраняет пересчитанный хеш пароля, когда при входе хеш оказался создан
+ * другим алгоритмом или с меньшей стоимостью, чем настроено.
  * @author Кирилл_Христич
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -33,4 +37,25 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 .map(CustomUserDetails::new)
                 .orElseThrow(() -> new UsernameNotFoundException("Пользователь с именем " + username + " не найден"));
     }
+
+    /**
+     * Сохраняет пересчитанный хеш пароля пользователя.
+     * Если пересчет был пропущен и хеш не изменился, запись не выполняется.
+     * @param user данные пользователя
+     * @param newPassword новый хеш пароля
+     * @return данные пользователя с новым хешем
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        if (newPassword.equals(user.getPassword())) {
+            return user;
+        }
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        log.info("Password hash upgraded for user: {}", user.getUsername());
+
+        return userRepository.findByUsername(user.getUsername())
+                .map(CustomUserDetails::new)
+                .orElseThrow(() -> new UsernameNotFoundException("Пользователь с именем " + user.getUsername() + " не найден"));
+    }
 }
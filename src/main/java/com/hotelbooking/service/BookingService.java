@@ -1,8 +1,10 @@
 package com.hotelbooking.service;
 
 import com.hotelbooking.dto.request.BookingRequestDto;
+import com.hotelbooking.dto.response.BookingHoldResponseDto;
 import com.hotelbooking.dto.response.BookingResponseDto;
 import com.hotelbooking.dto.response.PaginatedResponse;
+import com.hotelbooking.security.AuthenticatedUser;
 import org.springframework.data.domain.Pageable;
 
 /**
@@ -14,33 +16,56 @@ public interface BookingService {
     /**
      * Создает новое бронирование.
      * @param bookingRequestDto данные бронирования
-     * @param username имя пользователя
+     * @param user текущий пользователь
      * @return информация о созданном бронировании
      */
-    BookingResponseDto createBooking(BookingRequestDto bookingRequestDto, String username);
+    BookingResponseDto createBooking(BookingRequestDto bookingRequestDto, AuthenticatedUser user);
+
+    /**
+     * Временно удерживает комнату на период до подтверждения бронирования.
+     * @param bookingRequestDto данные бронирования
+     * @param user текущий пользователь
+     * @return информация об удержании
+     */
+    BookingHoldResponseDto holdRoom(BookingRequestDto bookingRequestDto, AuthenticatedUser user);
+
+    /**
+     * Подтверждает удержание, создавая бронирование.
+     * @param holdId ID удержания
+     * @param user текущий пользователь
+     * @return информация о созданном бронировании
+     */
+    BookingResponseDto confirmHold(String holdId, AuthenticatedUser user);
+
+    /**
+     * Снимает удержание комнаты.
+     * @param holdId ID удержания
+     * @param user текущий пользователь
+     */
+    void releaseHold(String holdId, AuthenticatedUser user);
 
     /**
      * Получает бронирование по ID.
      * @param id ID бронирования
-     * @param username имя пользователя
+     * @param user текущий пользователь
      * @return информация о бронировании
      */
-    BookingResponseDto getBookingById(Long id, String username);
+    BookingResponseDto getBookingById(Long id, AuthenticatedUser user);
 
     /**
      * Отменяет бронирование.
      * @param id ID бронирования
-     * @param username имя пользователя
+     * @param user текущий пользователь
      */
-    void cancelBooking(Long id, String username);
+    void cancelBooking(Long id, AuthenticatedUser user);
 
     /**
      * Получает бронирования пользователя с пагинацией.
-     * @param username имя пользователя
+     * @param user текущий пользователь
      * @param pageable параметры пагинации
      * @return пагинированный список бронирований
      */
-    PaginatedResponse<BookingResponseDto> getUserBookings(String username, Pageable pageable);
+    PaginatedResponse<BookingResponseDto> getUserBookings(AuthenticatedUser user, Pageable pageable);
 
     /**
      * Получает все бронирования для администратора.
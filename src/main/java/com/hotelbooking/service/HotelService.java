@@ -2,10 +2,14 @@ package com.hotelbooking.service;
 
 import com.hotelbooking.dto.request.HotelRequestDto;
 import com.hotelbooking.dto.request.HotelSearchCriteria;
+import com.hotelbooking.dto.response.FacetedSearchResponse;
 import com.hotelbooking.dto.response.HotelResponseDto;
+import com.hotelbooking.dto.response.HotelSuggestionDto;
 import com.hotelbooking.dto.response.PaginatedResponse;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+
 /**
  * Сервис для работы с отелями.
  * @author Кирилл_Христич
@@ -55,6 +59,22 @@ public interface HotelService {
      */
     PaginatedResponse<HotelResponseDto> searchHotels(HotelSearchCriteria criteria, Pageable pageable);
 
+    /**
+     * Ищет отели по критериям и считает количество результатов по городам и диапазонам рейтинга.
+     * @param criteria критерии поиска
+     * @param pageable параметры пагинации
+     * @return страница найденных отелей с фасетами
+     */
+    FacetedSearchResponse<HotelResponseDto> searchHotelsWithFacets(HotelSearchCriteria criteria, Pageable pageable);
+
+    /**
+     * Подсказывает отели по началу слова в названии, городе или заголовке.
+     * @param query введенная часть запроса
+     * @param limit количество подсказок
+     * @return отели по убыванию рейтинга и количества оценок
+     */
+    List<HotelSuggestionDto> suggestHotels(String query, int limit);
+
     /**
      * Оценивает отель.
      * @param hotelId ID отеля
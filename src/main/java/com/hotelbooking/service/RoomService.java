@@ -2,6 +2,7 @@ package com.hotelbooking.service;
 
 import com.hotelbooking.dto.request.RoomRequestDto;
 import com.hotelbooking.dto.request.RoomSearchCriteria;
+import com.hotelbooking.dto.response.FacetedSearchResponse;
 import com.hotelbooking.dto.response.PaginatedResponse;
 import com.hotelbooking.dto.response.RoomResponseDto;
 import org.springframework.data.domain.Pageable;
@@ -54,4 +55,12 @@ public interface RoomService {
      * @return пагинированный список найденных комнат
      */
     PaginatedResponse<RoomResponseDto> searchAvailableRooms(RoomSearchCriteria criteria, Pageable pageable);
+
+    /**
+     * Ищет доступные комнаты по критериям и считает количество результатов по диапазонам цены и вместимости.
+     * @param criteria критерии поиска
+     * @param pageable параметры пагинации
+     * @return страница найденных комнат с фасетами
+     */
+    FacetedSearchResponse<RoomResponseDto> searchAvailableRoomsWithFacets(RoomSearchCriteria criteria, Pageable pageable);
 }
@@ -0,0 +1,39 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.dto.request.RoomTypeRequestDto;
+import com.hotelbooking.dto.response.RoomTypeAvailabilityDto;
+import com.hotelbooking.dto.response.RoomTypeResponseDto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Сервис для работы с типами номеров.
+ * @author Кирилл_Христич
+ */
+public interface RoomTypeService {
+
+    /**
+     * Создает новый тип номера.
+     * @param roomTypeRequestDto данные типа номера
+     * @return информация о созданном типе номера
+     */
+    RoomTypeResponseDto createRoomType(RoomTypeRequestDto roomTypeRequestDto);
+
+    /**
+     * Получает типы номеров отеля.
+     * @param hotelId ID отеля
+     * @return список типов номеров
+     */
+    List<RoomTypeResponseDto> getHotelRoomTypes(Long hotelId);
+
+    /**
+     * Получает доступность типов номеров отеля на период.
+     * @param hotelId ID отеля
+     * @param checkIn дата заезда
+     * @param checkOut дата выезда
+     * @param guests количество гостей или null
+     * @return доступность типов номеров
+     */
+    List<RoomTypeAvailabilityDto> getAvailability(Long hotelId, LocalDate checkIn, LocalDate checkOut, Integer guests);
+}
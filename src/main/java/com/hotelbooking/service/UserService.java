@@ -1,9 +1,14 @@
 package com.hotelbooking.service;
 
 import com.hotelbooking.dto.request.UserRequestDto;
+import com.hotelbooking.dto.response.KeysetResponse;
+import com.hotelbooking.dto.response.PaginatedResponse;
 import com.hotelbooking.dto.response.UserResponseDto;
+import com.hotelbooking.entity.enums.Role;
+import com.hotelbooking.security.AuthenticatedUser;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * Сервис для работы с пользователями.
@@ -29,23 +34,43 @@ public interface UserService {
      * Обновляет информацию о пользователе.
      * @param id ID пользователя
      * @param userRequestDto новые данные пользователя
-     * @param currentUsername имя текущего пользователя
+     * @param currentUser текущий пользователь
      * @return обновленная информация о пользователе
      */
-    UserResponseDto updateUser(Long id, UserRequestDto userRequestDto, String currentUsername);
+    UserResponseDto updateUser(Long id, UserRequestDto userRequestDto, AuthenticatedUser currentUser);
 
     /**
      * Удаляет пользователя.
      * @param id ID пользователя
-     * @param currentUsername имя текущего пользователя
+     * @param currentUser текущий пользователь
      */
-    void deleteUser(Long id, String currentUsername);
+    void deleteUser(Long id, AuthenticatedUser currentUser);
 
     /**
-     * Получает всех пользователей.
-     * @return список всех пользователей
+     * Получает страницу пользователей.
+     * @param role роль пользователя или null для всех ролей
+     * @param page номер страницы
+     * @param size размер страницы
+     * @return пагинированный список пользователей
      */
-    List<UserResponseDto> getAllUsers();
+    PaginatedResponse<UserResponseDto> getUsers(Role role, int page, int size);
+
+    /**
+     * Получает страницу пользователей, следующих за курсором, в порядке ID.
+     * @param role роль пользователя или null для всех ролей
+     * @param cursor ID последнего пользователя предыдущей страницы или null для первой страницы
+     * @param size размер страницы
+     * @return страница пользователей с курсором следующей страницы
+     */
+    KeysetResponse<UserResponseDto> getUsersAfter(Role role, Long cursor, int size);
+
+    /**
+     * Выгружает пользователей в формате NDJSON.
+     * @param role роль пользователя или null для всех ролей
+     * @param out выходной поток
+     * @throws IOException если не удалось записать данные
+     */
+    void exportUsers(Role role, OutputStream out) throws IOException;
 
     /**
      * Находит пользователя по имени пользователя.
@@ -0,0 +1,177 @@
+package com.hotelbooking.service.booking;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelbooking.dto.request.BookingRequestDto;
+import com.hotelbooking.dto.response.BookingResponseDto;
+import com.hotelbooking.entity.BookingIdempotencyKey;
+import com.hotelbooking.entity.BookingIdempotencyKeyId;
+import com.hotelbooking.exception.ValidationException;
+import com.hotelbooking.repository.BookingIdempotencyKeyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Сервис идемпотентного создания бронирований.
+ * Ответы на недавние запросы хранятся в ограниченном LRU кэше и в таблице booking_idempotency_keys,
+ * поэтому повтор запроса с тем же ключом возвращает исходный ответ без обращения
+ * к комнатам, пользователям и бронированиям.
+ * @author Кирилл_Христич
+ */
+@Service
+@Slf4j
+public class BookingIdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final BookingIdempotencyKeyRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration retention;
+    private final Map<BookingIdempotencyKeyId, CachedResponse> recentResponses;
+
+    public BookingIdempotencyService(BookingIdempotencyKeyRepository repository,
+                                     PlatformTransactionManager transactionManager,
+                                     ObjectMapper objectMapper,
+                                     @Value("${app.booking.idempotency.retention:24h}") Duration retention,
+                                     @Value("${app.booking.idempotency.cache-size:10000}") int cacheSize) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.retention = retention;
+        this.recentResponses = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<BookingIdempotencyKeyId, CachedResponse> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Создает бронирование один раз для ключа идемпотентности.
+     * Ключ занимается в транзакции бронирования, поэтому при ошибке создания ключ освобождается
+     * и повтор выполняет запрос заново.
+     * @param username имя пользователя
+     * @param idempotencyKey ключ идемпотентности
+     * @param request данные бронирования
+     * @param createBooking создание бронирования
+     * @return ответ на первый запрос с этим ключом
+     */
+    public BookingResponseDto execute(String username, String idempotencyKey, BookingRequestDto request,
+                                      Supplier<BookingResponseDto> createBooking) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ValidationException("Ключ идемпотентности должен содержать от 1 до " + MAX_KEY_LENGTH + " символов");
+        }
+
+        BookingIdempotencyKeyId id = new BookingIdempotencyKeyId(username, idempotencyKey);
+        String fingerprint = fingerprint(request);
+
+        CachedResponse cached = getCached(id);
+        if (cached != null) {
+            return replay(cached.fingerprint(), fingerprint, cached.response());
+        }
+
+        Optional<BookingIdempotencyKey> stored = repository.findById(id);
+        if (stored.isPresent() && stored.get().getResponse() != null) {
+            BookingResponseDto response = replay(stored.get().getRequestFingerprint(), fingerprint,
+                    read(stored.get().getResponse()));
+            cache(id, fingerprint, response, stored.get().getCreatedAt());
+            return response;
+        }
+
+        LocalDateTime createdAt = LocalDateTime.now();
+        BookingResponseDto response = transactionTemplate.execute(status -> {
+            if (repository.claim(username, idempotencyKey, fingerprint, createdAt) == 0) {
+                BookingIdempotencyKey existing = repository.findById(id)
+                        .filter(key -> key.getResponse() != null)
+                        .orElseThrow(() -> new ValidationException("Запрос с этим ключом идемпотентности уже выполняется"));
+                return replay(existing.getRequestFingerprint(), fingerprint, read(existing.getResponse()));
+            }
+
+            BookingResponseDto created = createBooking.get();
+            repository.storeResponse(username, idempotencyKey, write(created));
+            return created;
+        });
+
+        cache(id, fingerprint, response, createdAt);
+        return response;
+    }
+
+    /**
+     * Удаляет ключи старше срока хранения.
+     */
+    @Scheduled(cron = "${app.booking.idempotency.cleanup-cron:0 15 * * * *}")
+    public void removeExpiredKeys() {
+        LocalDateTime createdBefore = LocalDateTime.now().minus(retention);
+        Integer removed = transactionTemplate.execute(status -> repository.deleteCreatedBefore(createdBefore));
+
+        synchronized (recentResponses) {
+            recentResponses.values().removeIf(cached -> cached.createdAt().isBefore(createdBefore));
+        }
+        log.info("Removed {} expired booking idempotency keys", removed);
+    }
+
+    private CachedResponse getCached(BookingIdempotencyKeyId id) {
+        synchronized (recentResponses) {
+            CachedResponse cached = recentResponses.get(id);
+            if (cached != null && cached.createdAt().isBefore(LocalDateTime.now().minus(retention))) {
+                recentResponses.remove(id);
+                return null;
+            }
+            return cached;
+        }
+    }
+
+    private void cache(BookingIdempotencyKeyId id, String fingerprint, BookingResponseDto response,
+                       LocalDateTime createdAt) {
+        synchronized (recentResponses) {
+            recentResponses.put(id, new CachedResponse(fingerprint, response, createdAt));
+        }
+    }
+
+    /**
+     * Возвращает сохраненный ответ, если данные запроса совпадают с данными первого запроса.
+     */
+    private BookingResponseDto replay(String storedFingerprint, String fingerprint, BookingResponseDto response) {
+        if (!storedFingerprint.equals(fingerprint)) {
+            throw new ValidationException("Ключ идемпотентности уже использован с другими данными бронирования");
+        }
+        log.info("Replaying booking {} for repeated idempotent request", response.getId());
+        return response;
+    }
+
+    private static String fingerprint(BookingRequestDto request) {
+        return request.getRoomId() + "|" + request.getRoomTypeId() + "|"
+                + request.getCheckInDate() + "|" + request.getCheckOutDate();
+    }
+
+    private String write(BookingResponseDto response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize booking response", e);
+        }
+    }
+
+    private BookingResponseDto read(String response) {
+        try {
+            return objectMapper.readValue(response, BookingResponseDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to deserialize booking response", e);
+        }
+    }
+
+    private record CachedResponse(String fingerprint, BookingResponseDto response, LocalDateTime createdAt) {
+    }
+}
@@ -0,0 +1,163 @@
+package com.hotelbooking.service.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Обслуживание месячных секций таблицы bookings.
+ * Заранее создает секции на заданное число месяцев вперед, перенося в них строки из секции
+ * по умолчанию, и при включенной архивации отсоединяет секции старше срока хранения,
+ * перемещая их в архивную схему и, при необходимости, в отдельное табличное пространство.
+ * Изменения выполняются под advisory lock, поэтому безопасны при нескольких экземплярах приложения.
+ * @author Кирилл_Христич
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookingPartitionManager {
+
+    private static final long PARTITION_LOCK_KEY = 7_266_401_733L;
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+    private static final Pattern PARTITION_NAME = Pattern.compile("bookings_y(\\d{4})m(\\d{2})");
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.booking.partitions.months-ahead:12}")
+    private int monthsAhead;
+
+    @Value("${app.booking.partitions.archive.enabled:false}")
+    private boolean archiveEnabled;
+
+    @Value("${app.booking.partitions.archive.retain-months:24}")
+    private int retainMonths;
+
+    @Value("${app.booking.partitions.archive.schema:booking_archive}")
+    private String archiveSchema;
+
+    @Value("${app.booking.partitions.archive.tablespace:}")
+    private String archiveTablespace;
+
+    /**
+     * Создает недостающие секции и архивирует устаревшие.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.booking.partitions.cron:0 0 2 * * *}")
+    public void maintainPartitions() {
+        try {
+            YearMonth current = YearMonth.now();
+            for (int i = 0; i <= monthsAhead; i++) {
+                createPartition(current.plusMonths(i));
+            }
+
+            if (archiveEnabled) {
+                archivePartitionsBefore(current.minusMonths(retainMonths));
+            }
+        } catch (Exception e) {
+            log.error("Failed to maintain booking partitions", e);
+        }
+    }
+
+    /**
+     * Создает секцию за месяц, если ее еще нет.
+     * Строки месяца, попавшие в секцию по умолчанию, переносятся в новую секцию до ее подключения.
+     * @param month месяц
+     */
+    public void createPartition(YearMonth month) {
+        String partition = partitionName(month);
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            lock();
+            if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition)) {
+                return;
+            }
+
+            jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE bookings INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+            int moved = jdbcTemplate.update("INSERT INTO " + partition
+                    + " SELECT * FROM bookings_default WHERE check_in_date >= ? AND check_in_date < ?", from, to);
+            if (moved > 0) {
+                jdbcTemplate.update("DELETE FROM bookings_default WHERE check_in_date >= ? AND check_in_date < ?",
+                        from, to);
+            }
+            jdbcTemplate.execute("ALTER TABLE bookings ATTACH PARTITION " + partition
+                    + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+
+            log.info("Created booking partition {} ({} rows moved from default partition)", partition, moved);
+        });
+    }
+
+    /**
+     * Отсоединяет секции месяцев, предшествующих заданному, и переносит их в архивную схему.
+     * @param firstRetainedMonth первый месяц, секция которого остается в таблице
+     */
+    public void archivePartitionsBefore(YearMonth firstRetainedMonth) {
+        String schema = identifier(archiveSchema);
+        String tablespace = archiveTablespace.isBlank() ? null : identifier(archiveTablespace);
+
+        for (String partition : listPartitions()) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (!month.isBefore(firstRetainedMonth)) {
+                continue;
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                lock();
+                jdbcTemplate.execute("ALTER TABLE bookings DETACH PARTITION " + partition);
+                jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + schema);
+                jdbcTemplate.execute("ALTER TABLE " + partition + " SET SCHEMA " + schema);
+                if (tablespace != null) {
+                    jdbcTemplate.execute("ALTER TABLE " + schema + "." + partition + " SET TABLESPACE " + tablespace);
+                }
+            });
+
+            log.info("Archived booking partition {} to schema {}", partition, schema);
+        }
+    }
+
+    private List<String> listPartitions() {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname
+                FROM pg_inherits i
+                         JOIN pg_class c ON c.oid = i.inhrelid
+                         JOIN pg_class p ON p.oid = i.inhparent
+                WHERE p.relname = 'bookings'
+                ORDER BY c.relname""", String.class);
+    }
+
+    private void lock() {
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?)", PARTITION_LOCK_KEY);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "bookings_" + PARTITION_SUFFIX.format(month);
+    }
+
+    private static String identifier(String name) {
+        if (!IDENTIFIER.matcher(name).matches()) {
+            throw new IllegalStateException("Недопустимое имя объекта базы данных: " + name);
+        }
+        return name;
+    }
+}
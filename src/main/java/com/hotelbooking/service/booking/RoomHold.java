@@ -0,0 +1,50 @@
+package com.hotelbooking.service.booking;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Временное удержание комнаты на период до подтверждения бронирования.
+ * Удержание одновременно является узлом списка ячейки колеса таймеров.
+ * @author Кирилл_Христич
+ */
+@Getter
+public class RoomHold {
+
+    private final String id;
+    private final Long roomId;
+    private final String username;
+    private final LocalDate checkInDate;
+    private final LocalDate checkOutDate;
+    private final long expiresAtMillis;
+
+    @Getter(AccessLevel.NONE)
+    final long expiryTick;
+    @Getter(AccessLevel.NONE)
+    RoomHold previous;
+    @Getter(AccessLevel.NONE)
+    RoomHold next;
+
+    RoomHold(String id, Long roomId, String username, LocalDate checkInDate, LocalDate checkOutDate,
+             long expiresAtMillis, long expiryTick) {
+        this.id = id;
+        this.roomId = roomId;
+        this.username = username;
+        this.checkInDate = checkInDate;
+        this.checkOutDate = checkOutDate;
+        this.expiresAtMillis = expiresAtMillis;
+        this.expiryTick = expiryTick;
+    }
+
+    /**
+     * Проверяет пересечение удержания с периодом.
+     * @param checkIn дата заезда
+     * @param checkOut дата выезда
+     * @return true если периоды пересекаются
+     */
+    public boolean overlaps(LocalDate checkIn, LocalDate checkOut) {
+        return checkInDate.isBefore(checkOut) && checkOutDate.isAfter(checkIn);
+    }
+}
@@ -0,0 +1,248 @@
+package com.hotelbooking.service.booking;
+
+import com.hotelbooking.exception.ValidationException;
+import com.hotelbooking.util.LongHashSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Реестр временных удержаний комнат в памяти приложения.
+ * Истечение удержаний обслуживает колесо таймеров: удержание помещается в ячейку своего такта
+ * и удаляется из нее за O(1) при подтверждении или отмене. Колесо длиннее времени жизни удержания,
+ * поэтому каждая ячейка содержит только удержания, истекающие в ее такт, и просматривается один раз.
+ * Удержания не переживают перезапуск и видны только экземпляру приложения, который их создал.
+ * @author Кирилл_Христич
+ */
+@Component
+@Slf4j
+public class RoomHoldRegistry {
+
+    private final long ttlMillis;
+    private final long tickMillis;
+    private final int maxHoldsPerUser;
+
+    private final RoomHold[] wheel;
+    private final Map<String, RoomHold> holds = new HashMap<>();
+    private final Map<Long, List<RoomHold>> holdsByRoom = new HashMap<>();
+    private final Map<String, Integer> holdsByUser = new HashMap<>();
+    private long processedTick;
+
+    public RoomHoldRegistry(@Value("${app.booking.holds.ttl:10m}") Duration ttl,
+                            @Value("${app.booking.holds.tick-ms:1000}") long tickMillis,
+                            @Value("${app.booking.holds.max-per-user:3}") int maxHoldsPerUser) {
+        this.ttlMillis = ttl.toMillis();
+        this.tickMillis = tickMillis;
+        this.maxHoldsPerUser = maxHoldsPerUser;
+        this.wheel = new RoomHold[(int) (ttlMillis / tickMillis) + 2];
+        this.processedTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    /**
+     * Удерживает комнату на период.
+     * @param roomId ID комнаты
+     * @param username имя пользователя
+     * @param checkIn дата заезда
+     * @param checkOut дата выезда
+     * @return созданное удержание
+     */
+    public synchronized RoomHold hold(Long roomId, String username, LocalDate checkIn, LocalDate checkOut) {
+        long now = System.currentTimeMillis();
+        advance(now);
+
+        if (isHeld(roomId, checkIn, checkOut, null)) {
+            throw new ValidationException("Комната временно удерживается другим пользователем");
+        }
+        if (holdsByUser.getOrDefault(username, 0) >= maxHoldsPerUser) {
+            throw new ValidationException("Превышено количество одновременных удержаний: " + maxHoldsPerUser);
+        }
+
+        long expiresAt = now + ttlMillis;
+        long expiryTick = (expiresAt + tickMillis - 1) / tickMillis;
+        RoomHold hold = new RoomHold(UUID.randomUUID().toString(), roomId, username,
+                checkIn, checkOut, expiresAt, expiryTick);
+
+        link(hold);
+        holds.put(hold.getId(), hold);
+        holdsByRoom.computeIfAbsent(roomId, id -> new ArrayList<>(2)).add(hold);
+        holdsByUser.merge(username, 1, Integer::sum);
+        return hold;
+    }
+
+    /**
+     * Находит действующее удержание.
+     * @param holdId ID удержания
+     * @return удержание, если оно не истекло
+     */
+    public synchronized Optional<RoomHold> find(String holdId) {
+        advance(System.currentTimeMillis());
+        return Optional.ofNullable(holds.get(holdId));
+    }
+
+    /**
+     * Проверяет, удерживается ли комната на период.
+     * @param roomId ID комнаты
+     * @param checkIn дата заезда
+     * @param checkOut дата выезда
+     * @param excludedHoldId ID удержания, которое не учитывается, или null
+     * @return true если комнату удерживает другое удержание
+     */
+    public synchronized boolean isHeld(Long roomId, LocalDate checkIn, LocalDate checkOut, String excludedHoldId) {
+        advance(System.currentTimeMillis());
+
+        List<RoomHold> roomHolds = holdsByRoom.get(roomId);
+        if (roomHolds == null) {
+            return false;
+        }
+        for (RoomHold hold : roomHolds) {
+            if (!hold.getId().equals(excludedHoldId) && hold.overlaps(checkIn, checkOut)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Получает ID комнат, удерживаемых на период.
+     * @param checkIn дата заезда
+     * @param checkOut дата выезда
+     * @return ID удерживаемых комнат
+     */
+    public synchronized LongHashSet getHeldRoomIds(LocalDate checkIn, LocalDate checkOut) {
+        advance(System.currentTimeMillis());
+
+        LongHashSet roomIds = new LongHashSet();
+        for (Map.Entry<Long, List<RoomHold>> entry : holdsByRoom.entrySet()) {
+            for (RoomHold hold : entry.getValue()) {
+                if (hold.overlaps(checkIn, checkOut)) {
+                    roomIds.add(entry.getKey());
+                    break;
+                }
+            }
+        }
+        return roomIds;
+    }
+
+    /**
+     * Снимает удержание.
+     * @param holdId ID удержания
+     * @return true если удержание существовало
+     */
+    public synchronized boolean release(String holdId) {
+        RoomHold hold = holds.get(holdId);
+        if (hold == null) {
+            return false;
+        }
+        remove(hold);
+        return true;
+    }
+
+    /**
+     * Снимает удержание после фиксации текущей транзакции.
+     * При откате транзакции удержание сохраняется до истечения.
+     * @param holdId ID удержания
+     */
+    public void releaseAfterCommit(String holdId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(holdId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release(holdId);
+            }
+        });
+    }
+
+    /**
+     * Продвигает колесо до текущего такта.
+     */
+    @Scheduled(fixedDelayString = "${app.booking.holds.tick-ms:1000}")
+    public synchronized void expireHolds() {
+        advance(System.currentTimeMillis());
+    }
+
+    /**
+     * Удаляет удержания из ячеек пройденных тактов.
+     * Если колесо не продвигалось дольше полного оборота, каждая ячейка просматривается один раз.
+     * @param now текущее время в миллисекундах
+     */
+    private void advance(long now) {
+        long currentTick = now / tickMillis;
+        if (currentTick <= processedTick) {
+            return;
+        }
+
+        long fromTick = Math.max(processedTick + 1, currentTick - wheel.length + 1);
+        int expired = 0;
+        for (long tick = fromTick; tick <= currentTick; tick++) {
+            RoomHold hold = wheel[slot(tick)];
+            while (hold != null) {
+                RoomHold next = hold.next;
+                if (hold.expiryTick <= currentTick) {
+                    remove(hold);
+                    expired++;
+                }
+                hold = next;
+            }
+        }
+        processedTick = currentTick;
+
+        if (expired > 0) {
+            log.debug("Expired {} room holds", expired);
+        }
+    }
+
+    private void remove(RoomHold hold) {
+        unlink(hold);
+        holds.remove(hold.getId());
+
+        List<RoomHold> roomHolds = holdsByRoom.get(hold.getRoomId());
+        roomHolds.remove(hold);
+        if (roomHolds.isEmpty()) {
+            holdsByRoom.remove(hold.getRoomId());
+        }
+        holdsByUser.computeIfPresent(hold.getUsername(), (username, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private void link(RoomHold hold) {
+        int slot = slot(hold.expiryTick);
+        RoomHold head = wheel[slot];
+        hold.next = head;
+        if (head != null) {
+            head.previous = hold;
+        }
+        wheel[slot] = hold;
+    }
+
+    private void unlink(RoomHold hold) {
+        if (hold.previous != null) {
+            hold.previous.next = hold.next;
+        } else {
+            wheel[slot(hold.expiryTick)] = hold.next;
+        }
+        if (hold.next != null) {
+            hold.next.previous = hold.previous;
+        }
+        hold.previous = null;
+        hold.next = null;
+    }
+
+    private int slot(long tick) {
+        return (int) (tick % wheel.length);
+    }
+}
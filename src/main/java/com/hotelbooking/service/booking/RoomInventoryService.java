@@ -0,0 +1,99 @@
+package com.hotelbooking.service.booking;
+
+import com.hotelbooking.entity.RoomInventory;
+import com.hotelbooking.entity.RoomType;
+import com.hotelbooking.exception.ValidationException;
+import com.hotelbooking.repository.RoomInventoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сервис посуточного учета занятости типов номеров.
+ * Доступность типа на период вычисляется по строкам ночей периода, без просмотра комнат и бронирований.
+ * @author Кирилл_Христич
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RoomInventoryService {
+
+    private final RoomInventoryRepository roomInventoryRepository;
+
+    /**
+     * Резервирует номер типа на каждую ночь периода.
+     * Должен вызываться в транзакции бронирования: при нехватке номеров исключение
+     * откатывает и частично увеличенные счетчики.
+     * @param roomType тип номера
+     * @param checkIn дата заезда
+     * @param checkOut дата выезда
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(RoomType roomType, LocalDate checkIn, LocalDate checkOut) {
+        long nights = ChronoUnit.DAYS.between(checkIn, checkOut);
+        if (nights <= 0) {
+            return;
+        }
+
+        roomInventoryRepository.createMissingNights(roomType.getId(), checkIn, checkOut);
+        int reserved = roomInventoryRepository.reserve(roomType.getId(), checkIn, checkOut);
+        if (reserved < nights) {
+            throw new ValidationException("Нет свободных номеров типа \"" + roomType.getName() + "\" на выбранные даты");
+        }
+    }
+
+    /**
+     * Освобождает номер типа на каждую ночь периода.
+     * @param roomType тип номера
+     * @param checkIn дата заезда
+     * @param checkOut дата выезда
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(RoomType roomType, LocalDate checkIn, LocalDate checkOut) {
+        int released = roomInventoryRepository.release(roomType.getId(), checkIn, checkOut);
+        log.debug("Released {} nights of room type {}", released, roomType.getId());
+    }
+
+    /**
+     * Вычисляет количество свободных номеров типов на каждую ночь периода.
+     * Строки занятости раскладываются прямо в массивы ночей по смещению даты от заезда.
+     * @param roomTypes типы номеров
+     * @param checkIn дата заезда
+     * @param checkOut дата выезда
+     * @return свободные номера по ночам периода, начиная с ночи заезда, для каждого ID типа
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, int[]> getNightlyAvailability(Collection<RoomType> roomTypes,
+                                                   LocalDate checkIn, LocalDate checkOut) {
+        Map<Long, int[]> availability = new HashMap<>();
+        if (roomTypes.isEmpty()) {
+            return availability;
+        }
+
+        int nightCount = (int) ChronoUnit.DAYS.between(checkIn, checkOut);
+        for (RoomType roomType : roomTypes) {
+            int[] nights = new int[nightCount];
+            Arrays.fill(nights, roomType.getTotalRooms());
+            availability.put(roomType.getId(), nights);
+        }
+
+        List<Long> roomTypeIds = roomTypes.stream().map(RoomType::getId).toList();
+        for (RoomInventory row : roomInventoryRepository.findByRoomTypesAndPeriod(roomTypeIds, checkIn, checkOut)) {
+            int[] nights = availability.get(row.getRoomTypeId());
+            int night = (int) ChronoUnit.DAYS.between(checkIn, row.getStayDate());
+            nights[night] = Math.max(0, nights[night] - row.getBooked());
+        }
+
+        return availability;
+    }
+}
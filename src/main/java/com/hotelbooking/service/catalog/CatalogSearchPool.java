@@ -0,0 +1,87 @@
+package com.hotelbooking.service.catalog;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+/**
+ * Пул параллельного поиска по снимку каталога.
+ * Поиск по всем отелям делится на секции строк снимка, которые проверяются в отдельном fork-join пуле,
+ * чтобы поиск не занимал общий пул и не зависел от параллельных потоков других частей приложения.
+ * Небольшие снимки проверяются в потоке запроса: накладные расходы на задачи там больше выигрыша.
+ * @author Кирилл_Христич
+ */
+@Component
+public class CatalogSearchPool {
+
+    private final ForkJoinPool pool;
+    private final int minShardRows;
+    private final int maxShards;
+
+    public CatalogSearchPool(@Value("${app.catalog.search.parallelism:0}") int parallelism,
+                             @Value("${app.catalog.search.min-shard-rows:8192}") int minShardRows) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("catalog-search-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        this.minShardRows = Math.max(1, minShardRows);
+        this.maxShards = threads * 4;
+    }
+
+    /**
+     * Вычисляет количество секций для поиска по заданному количеству строк.
+     * @param rows количество строк
+     * @return количество секций; 1 означает поиск в потоке запроса
+     */
+    public int shardCount(int rows) {
+        return (int) Math.max(1, Math.min(maxShards, rows / minShardRows));
+    }
+
+    /**
+     * Выполняет поиск по секциям и возвращает результаты в порядке секций.
+     * @param shards количество секций
+     * @param search поиск по секции с заданным номером
+     * @return результаты секций
+     * @param <T> тип результата секции
+     */
+    public <T> List<T> invokeAll(int shards, IntFunction<T> search) {
+        List<Callable<T>> tasks = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            int index = shard;
+            tasks.add(() -> search.apply(index));
+        }
+
+        List<T> results = new ArrayList<>(shards);
+        try {
+            for (Future<T> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Catalog search interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Catalog search failed", e.getCause());
+        }
+        return results;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
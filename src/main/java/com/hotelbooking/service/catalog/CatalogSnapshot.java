@@ -0,0 +1,731 @@
+package com.hotelbooking.service.catalog;
+
+import com.hotelbooking.dto.request.HotelSearchCriteria;
+import com.hotelbooking.dto.request.RoomSearchCriteria;
+import com.hotelbooking.dto.response.FacetCountDto;
+import com.hotelbooking.dto.response.FacetedSearchResponse;
+import com.hotelbooking.dto.response.HotelResponseDto;
+import com.hotelbooking.dto.response.PaginatedResponse;
+import com.hotelbooking.dto.response.RoomResponseDto;
+import com.hotelbooking.util.IntBitSet;
+import com.hotelbooking.util.LongHashSet;
+import com.hotelbooking.util.LongIntHashMap;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntToLongFunction;
+import java.util.function.LongFunction;
+
+/**
+ * Неизменяемый снимок каталога отелей и комнат в колоночном виде.
+ * Числовые поля хранятся в примитивных массивах (цены и рейтинги - в сотых долях), города
+ * закодированы номерами в словаре, строки для поиска по подстроке хранятся в нижнем регистре.
+ * Фильтры поиска проверяются одним проходом по массивам, а на страницу попадают готовые DTO.
+ * Строки упорядочены по ID. Для полей сортировки заранее построены перестановки строк, как индексы
+ * в базе: страница отсортированного поиска собирается обходом перестановки без сортировки результата,
+ * в прямом или обратном порядке. При равных значениях строки идут по ID в направлении сортировки,
+ * отсутствующие значения считаются наибольшими, как в PostgreSQL.
+ * Количество результатов по фасетам считается тем же проходом, что и страница: строка, не прошедшая
+ * только критерий одного фасета, учитывается в значении этого фасета, а прошедшая все критерии -
+ * в значениях всех фасетов.
+ * @author Кирилл_Христич
+ */
+public final class CatalogSnapshot {
+
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final int RATING_BUCKETS = 5;
+
+    public static final String CITY_FACET = "city";
+    public static final String RATING_FACET = "rating";
+    public static final String PRICE_FACET = "price";
+    public static final String GUESTS_FACET = "guests";
+
+    private final long[] hotelIds;
+    private final int[] hotelCities;
+    private final Map<String, Integer> cityCodes;
+    private final List<String> cityNames;
+    private final double[] distances;
+    private final long[] ratings;
+    private final int[] ratingCounts;
+    private final String[] hotelNames;
+    private final String[] hotelTitles;
+    private final String[] hotelAddresses;
+    private final HotelResponseDto[] hotels;
+    private final Map<String, int[]> hotelOrders;
+
+    private final long[] roomIds;
+    private final long[] prices;
+    private final int[] maxGuests;
+    private final long[] roomHotelIds;
+    private final long[] roomTypeIds;
+    private final String[] roomNames;
+    private final RoomResponseDto[] rooms;
+    private final Map<String, int[]> roomOrders;
+
+    private CatalogSnapshot(Collection<HotelResponseDto> hotelRows, Collection<RoomResponseDto> roomRows) {
+        int hotelCount = hotelRows.size();
+        hotelIds = new long[hotelCount];
+        hotelCities = new int[hotelCount];
+        cityCodes = new HashMap<>();
+        cityNames = new ArrayList<>();
+        distances = new double[hotelCount];
+        ratings = new long[hotelCount];
+        ratingCounts = new int[hotelCount];
+        hotelNames = new String[hotelCount];
+        hotelTitles = new String[hotelCount];
+        hotelAddresses = new String[hotelCount];
+        hotels = hotelRows.toArray(new HotelResponseDto[0]);
+
+        for (int i = 0; i < hotelCount; i++) {
+            HotelResponseDto hotel = hotels[i];
+            hotelIds[i] = hotel.getId();
+            hotelCities[i] = hotel.getCity() != null ? cityCode(hotel.getCity()) : NULL_INT;
+            distances[i] = hotel.getDistanceFromCityCenter() != null ? hotel.getDistanceFromCityCenter() : Double.NaN;
+            ratings[i] = hotel.getRating() != null ? toHundredths(hotel.getRating(), RoundingMode.HALF_UP) : NULL_LONG;
+            ratingCounts[i] = hotel.getNumberOfRatings() != null ? hotel.getNumberOfRatings() : NULL_INT;
+            hotelNames[i] = lower(hotel.getName());
+            hotelTitles[i] = lower(hotel.getTitle());
+            hotelAddresses[i] = lower(hotel.getAddress());
+        }
+
+        int roomCount = roomRows.size();
+        roomIds = new long[roomCount];
+        prices = new long[roomCount];
+        maxGuests = new int[roomCount];
+        roomHotelIds = new long[roomCount];
+        roomTypeIds = new long[roomCount];
+        roomNames = new String[roomCount];
+        rooms = roomRows.toArray(new RoomResponseDto[0]);
+
+        for (int i = 0; i < roomCount; i++) {
+            RoomResponseDto room = rooms[i];
+            roomIds[i] = room.getId();
+            prices[i] = room.getPrice() != null ? toHundredths(room.getPrice(), RoundingMode.HALF_UP) : NULL_LONG;
+            maxGuests[i] = room.getMaxGuests() != null ? room.getMaxGuests() : NULL_INT;
+            roomHotelIds[i] = room.getHotelId() != null ? room.getHotelId() : NULL_LONG;
+            roomTypeIds[i] = room.getRoomTypeId() != null ? room.getRoomTypeId() : NULL_LONG;
+            roomNames[i] = lower(room.getName());
+        }
+
+        hotelOrders = Map.of(
+                "rating", sortedRows(hotelCount, i -> nullsLast(ratings[i])),
+                "distanceFromCityCenter", sortedRows(hotelCount, i -> sortable(distances[i])));
+        roomOrders = Map.of(
+                "price", sortedRows(roomCount, i -> nullsLast(prices[i])));
+    }
+
+    /**
+     * Создает снимок из строк каталога, упорядоченных по ID.
+     * @param hotels отели
+     * @param rooms комнаты
+     * @return снимок каталога
+     */
+    public static CatalogSnapshot of(Collection<HotelResponseDto> hotels, Collection<RoomResponseDto> rooms) {
+        return new CatalogSnapshot(hotels, rooms);
+    }
+
+    /**
+     * Получает количество отелей.
+     * @return количество отелей
+     */
+    public int getHotelCount() {
+        return hotelIds.length;
+    }
+
+    /**
+     * Получает количество комнат.
+     * @return количество комнат
+     */
+    public int getRoomCount() {
+        return roomIds.length;
+    }
+
+    /**
+     * Проверяет, может ли снимок выполнить поиск отелей с результатом, как у запроса к базе.
+     * Поиск с сортировкой по другим полям и с символами шаблона LIKE в строковых критериях выполняется базой.
+     * @param criteria критерии поиска
+     * @param pageable параметры пагинации
+     * @return true если поиск выполняется по снимку
+     */
+    public boolean supportsHotelSearch(HotelSearchCriteria criteria, Pageable pageable) {
+        return order(pageable.getSort(), hotelIds.length, hotelOrders) != null
+                && isPlainText(criteria.getName())
+                && isPlainText(criteria.getTitle())
+                && isPlainText(criteria.getAddress());
+    }
+
+    /**
+     * Ищет отели по критериям.
+     * @param criteria критерии поиска
+     * @param pageable параметры пагинации
+     * @return страница отелей
+     */
+    public Page<HotelResponseDto> searchHotels(HotelSearchCriteria criteria, Pageable pageable) {
+        RowOrder order = criteria.getId() != null
+                ? RowOrder.single(Arrays.binarySearch(hotelIds, criteria.getId()))
+                : order(pageable.getSort(), hotelIds.length, hotelOrders);
+        HotelFilter filter = new HotelFilter(criteria);
+
+        PageCollector<HotelResponseDto> page = new PageCollector<>(pageable);
+        for (int position = 0; position < order.count(); position++) {
+            int i = order.row(position);
+            if (filter.matches(i)) {
+                page.accept(hotels[i]);
+            }
+        }
+        return page.toPage();
+    }
+
+    /**
+     * Ищет отели по критериям и считает количество результатов по городам и диапазонам рейтинга.
+     * Строковые критерии проверяются как подстроки без символов шаблона LIKE.
+     * @param criteria критерии поиска
+     * @param pageable параметры пагинации с сортировкой по ID или полю с перестановкой
+     * @return страница отелей и фасеты city и rating
+     */
+    public FacetedSearchResponse<HotelResponseDto> searchHotelsWithFacets(HotelSearchCriteria criteria,
+                                                                         Pageable pageable) {
+        RowOrder order = criteria.getId() != null
+                ? RowOrder.single(Arrays.binarySearch(hotelIds, criteria.getId()))
+                : requireOrder(pageable.getSort(), hotelIds.length, hotelOrders);
+        HotelFilter filter = new HotelFilter(criteria);
+
+        PageCollector<HotelResponseDto> page = new PageCollector<>(pageable);
+        int[] cityCounts = new int[cityNames.size()];
+        int[] ratingBuckets = new int[RATING_BUCKETS];
+        for (int position = 0; position < order.count(); position++) {
+            int i = order.row(position);
+            if (!filter.matchesOther(i)) {
+                continue;
+            }
+            boolean cityMatches = filter.matchesCity(i);
+            boolean ratingMatches = filter.matchesRating(i);
+            if (cityMatches && ratingMatches) {
+                page.accept(hotels[i]);
+            }
+            if (ratingMatches && hotelCities[i] != NULL_INT) {
+                cityCounts[hotelCities[i]]++;
+            }
+            if (cityMatches && ratings[i] != NULL_LONG) {
+                ratingBuckets[(int) Math.max(0, Math.min(RATING_BUCKETS - 1, ratings[i] / 100))]++;
+            }
+        }
+
+        List<FacetCountDto> cities = new ArrayList<>();
+        for (int code = 0; code < cityCounts.length; code++) {
+            if (cityCounts[code] > 0) {
+                cities.add(new FacetCountDto(cityNames.get(code), cityCounts[code]));
+            }
+        }
+        cities.sort(Comparator.comparingLong(FacetCountDto::getCount).reversed()
+                .thenComparing(FacetCountDto::getValue));
+        List<FacetCountDto> ratingRanges = new ArrayList<>();
+        for (int bucket = 0; bucket < RATING_BUCKETS; bucket++) {
+            if (ratingBuckets[bucket] > 0) {
+                ratingRanges.add(new FacetCountDto(bucket + "-" + (bucket + 1), ratingBuckets[bucket]));
+            }
+        }
+
+        Map<String, List<FacetCountDto>> facets = new LinkedHashMap<>();
+        facets.put(CITY_FACET, cities);
+        facets.put(RATING_FACET, ratingRanges);
+        return new FacetedSearchResponse<>(PaginatedResponse.of(page.toPage()), facets);
+    }
+
+    /**
+     * Проверяет, может ли снимок выполнить поиск комнат с результатом, как у запроса к базе.
+     * @param criteria критерии поиска
+     * @param pageable параметры пагинации
+     * @return true если поиск выполняется по снимку
+     */
+    public boolean supportsRoomSearch(RoomSearchCriteria criteria, Pageable pageable) {
+        return order(pageable.getSort(), roomIds.length, roomOrders) != null && isPlainText(criteria.getName());
+    }
+
+    /**
+     * Ищет комнаты по критериям, исключая недоступные на период комнаты и типы номеров.
+     * Поиск по всем отелям в большом снимке делится на секции позиций в порядке сортировки,
+     * которые проверяются параллельно.
+     * @param criteria критерии поиска
+     * @param unavailableRoomIds ID занятых или удерживаемых комнат
+     * @param soldOutRoomTypeIds ID типов номеров, распроданных хотя бы на одну ночь периода
+     * @param pageable параметры пагинации
+     * @param searchPool пул параллельного поиска
+     * @return страница комнат
+     */
+    public Page<RoomResponseDto> searchRooms(RoomSearchCriteria criteria, LongHashSet unavailableRoomIds,
+                                             LongHashSet soldOutRoomTypeIds, Pageable pageable,
+                                             CatalogSearchPool searchPool) {
+        RowOrder order = criteria.getId() != null
+                ? RowOrder.single(Arrays.binarySearch(roomIds, criteria.getId()))
+                : order(pageable.getSort(), roomIds.length, roomOrders);
+        RoomFilter filter = new RoomFilter(criteria, unavailableRoomIds, soldOutRoomTypeIds);
+
+        int count = order.count();
+        int shards = criteria.getHotelId() == null ? searchPool.shardCount(count) : 1;
+        if (shards == 1) {
+            PageCollector<RoomResponseDto> page = new PageCollector<>(pageable);
+            for (int position = 0; position < count; position++) {
+                int i = order.row(position);
+                if (filter.matches(i)) {
+                    page.accept(rooms[i]);
+                }
+            }
+            return page.toPage();
+        }
+
+        int limit = (int) Math.min(Integer.MAX_VALUE - 8, pageable.getOffset() + pageable.getPageSize());
+        List<ShardResult> results = searchPool.invokeAll(shards, shard -> filter.scan(order,
+                (int) ((long) count * shard / shards),
+                (int) ((long) count * (shard + 1) / shards),
+                limit));
+        return merge(results, pageable);
+    }
+
+    /**
+     * Ищет комнаты по критериям, исключая недоступные на период комнаты и типы номеров,
+     * и считает количество результатов по диапазонам цены и вместимости.
+     * Фасет вместимости считается по точному значению maxGuests, критерий maxGuests - минимальная вместимость.
+     * @param criteria критерии поиска
+     * @param unavailableRoomIds ID занятых или удерживаемых комнат
+     * @param soldOutRoomTypeIds ID типов номеров, распроданных хотя бы на одну ночь периода
+     * @param pageable параметры пагинации с сортировкой по ID или полю с перестановкой
+     * @param priceStep ширина диапазона цены
+     * @return страница комнат и фасеты price и guests
+     */
+    public FacetedSearchResponse<RoomResponseDto> searchRoomsWithFacets(RoomSearchCriteria criteria,
+                                                                       LongHashSet unavailableRoomIds,
+                                                                       LongHashSet soldOutRoomTypeIds,
+                                                                       Pageable pageable, BigDecimal priceStep) {
+        long step = toHundredths(priceStep, RoundingMode.HALF_UP);
+        if (step <= 0) {
+            throw new IllegalArgumentException("Price facet step must be positive: " + priceStep);
+        }
+        RowOrder order = criteria.getId() != null
+                ? RowOrder.single(Arrays.binarySearch(roomIds, criteria.getId()))
+                : requireOrder(pageable.getSort(), roomIds.length, roomOrders);
+        RoomFilter filter = new RoomFilter(criteria, unavailableRoomIds, soldOutRoomTypeIds);
+
+        PageCollector<RoomResponseDto> page = new PageCollector<>(pageable);
+        LongIntHashMap priceCounts = new LongIntHashMap();
+        LongIntHashMap guestCounts = new LongIntHashMap();
+        for (int position = 0; position < order.count(); position++) {
+            int i = order.row(position);
+            if (!filter.matchesOther(i)) {
+                continue;
+            }
+            boolean priceMatches = filter.matchesPrice(i);
+            boolean guestsMatch = filter.matchesGuests(i);
+            if (priceMatches && guestsMatch) {
+                page.accept(rooms[i]);
+            }
+            if (guestsMatch && prices[i] != NULL_LONG) {
+                priceCounts.addTo(Math.floorDiv(prices[i], step), 1);
+            }
+            if (priceMatches && maxGuests[i] != NULL_INT) {
+                guestCounts.addTo(maxGuests[i], 1);
+            }
+        }
+
+        Map<String, List<FacetCountDto>> facets = new LinkedHashMap<>();
+        facets.put(PRICE_FACET, facetCounts(priceCounts,
+                bucket -> fromHundredths(bucket * step) + "-" + fromHundredths((bucket + 1) * step)));
+        facets.put(GUESTS_FACET, facetCounts(guestCounts, String::valueOf));
+        return new FacetedSearchResponse<>(PaginatedResponse.of(page.toPage()), facets);
+    }
+
+    /**
+     * Переводит счетчики значений фасета в список по возрастанию значения.
+     */
+    private static List<FacetCountDto> facetCounts(LongIntHashMap counts, LongFunction<String> label) {
+        long[][] entries = new long[counts.size()][];
+        int[] index = {0};
+        counts.forEach((key, count) -> entries[index[0]++] = new long[]{key, count});
+        Arrays.sort(entries, Comparator.comparingLong(entry -> entry[0]));
+
+        List<FacetCountDto> result = new ArrayList<>(entries.length);
+        for (long[] entry : entries) {
+            result.add(new FacetCountDto(label.apply(entry[0]), entry[1]));
+        }
+        return result;
+    }
+
+    /**
+     * Собирает страницу из результатов секций.
+     * Секции - непрерывные диапазоны позиций в порядке сортировки, и каждая хранит свои первые подходящие
+     * строки, поэтому первые K строк общего результата получаются обходом секций по порядку.
+     */
+    private Page<RoomResponseDto> merge(List<ShardResult> results, Pageable pageable) {
+        PageCollector<RoomResponseDto> page = new PageCollector<>(pageable);
+        long total = 0;
+        for (ShardResult result : results) {
+            for (int i = 0; i < result.size(); i++) {
+                page.accept(rooms[result.rows()[i]]);
+            }
+            total += result.matches();
+        }
+        return page.toPage(total);
+    }
+
+    /**
+     * Переводит число в сотые доли с округлением; значения вне диапазона long ограничиваются.
+     */
+    private static long toHundredths(BigDecimal value, RoundingMode roundingMode) {
+        BigDecimal hundredths = value.movePointRight(2).setScale(0, roundingMode);
+        if (hundredths.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) >= 0) {
+            return Long.MAX_VALUE;
+        }
+        if (hundredths.compareTo(BigDecimal.valueOf(Long.MIN_VALUE + 1)) <= 0) {
+            return Long.MIN_VALUE + 1;
+        }
+        return hundredths.longValue();
+    }
+
+    /**
+     * Находит порядок обхода строк для сортировки: по ID или по перестановке поля, с ID в том же направлении.
+     * @return порядок обхода или null, если сортировку выполняет только база
+     */
+    private static RowOrder order(Sort sort, int count, Map<String, int[]> orders) {
+        List<Sort.Order> sortOrders = sort.toList();
+        if (sortOrders.isEmpty()) {
+            return new RowOrder(null, 0, count, false);
+        }
+        if (sortOrders.size() > 2 || sortOrders.stream().anyMatch(order -> order.isIgnoreCase()
+                || order.getNullHandling() != Sort.NullHandling.NATIVE
+                || order.getDirection() != sortOrders.get(0).getDirection())) {
+            return null;
+        }
+
+        String property = sortOrders.get(0).getProperty();
+        boolean descending = sortOrders.get(0).isDescending();
+        if (property.equals("id")) {
+            return sortOrders.size() == 1 ? new RowOrder(null, 0, count, descending) : null;
+        }
+        int[] rows = orders.get(property);
+        if (rows == null || (sortOrders.size() == 2 && !sortOrders.get(1).getProperty().equals("id"))) {
+            return null;
+        }
+        return new RowOrder(rows, 0, count, descending);
+    }
+
+    private static String fromHundredths(long value) {
+        return BigDecimal.valueOf(value, 2).stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * Находит порядок обхода строк для сортировки, которую вызывающий код уже проверил по списку полей.
+     */
+    private static RowOrder requireOrder(Sort sort, int count, Map<String, int[]> orders) {
+        RowOrder order = order(sort, count, orders);
+        if (order == null) {
+            throw new IllegalArgumentException("Unsupported catalog sort: " + sort);
+        }
+        return order;
+    }
+
+    /**
+     * Кодирует город номером в словаре; название города в словаре берется из первого отеля города.
+     */
+    private int cityCode(String city) {
+        return cityCodes.computeIfAbsent(city.toLowerCase(), key -> {
+            cityNames.add(city);
+            return cityNames.size() - 1;
+        });
+    }
+
+    /**
+     * Строит перестановку строк по возрастанию ключа слиянием на примитивных массивах.
+     * Слияние устойчиво, поэтому строки с равными ключами идут по ID.
+     */
+    private static int[] sortedRows(int count, IntToLongFunction key) {
+        long[] keys = new long[count];
+        int[] rows = new int[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = key.applyAsLong(i);
+            rows[i] = i;
+        }
+
+        int[] buffer = new int[count];
+        for (int width = 1; width < count; width *= 2) {
+            for (int from = 0; from < count; from += 2 * width) {
+                int middle = Math.min(from + width, count);
+                int to = Math.min(from + 2 * width, count);
+                int left = from;
+                int right = middle;
+                int out = from;
+                while (left < middle && right < to) {
+                    buffer[out++] = keys[rows[right]] < keys[rows[left]] ? rows[right++] : rows[left++];
+                }
+                while (left < middle) {
+                    buffer[out++] = rows[left++];
+                }
+                while (right < to) {
+                    buffer[out++] = rows[right++];
+                }
+            }
+            int[] merged = buffer;
+            buffer = rows;
+            rows = merged;
+        }
+        return rows;
+    }
+
+    private static long nullsLast(long value) {
+        return value == NULL_LONG ? Long.MAX_VALUE : value;
+    }
+
+    /**
+     * Переводит число в ключ long с тем же порядком, что у Double.compare; NaN (нет значения) - наибольший.
+     */
+    private static long sortable(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    private static boolean isPlainText(String value) {
+        return value == null || (value.indexOf('%') < 0 && value.indexOf('_') < 0 && value.indexOf('\\') < 0);
+    }
+
+    private static boolean contains(String value, String part) {
+        return part == null || (value != null && value.contains(part));
+    }
+
+    private static String lower(String value) {
+        return value != null ? value.toLowerCase() : null;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Порядок обхода строк: позиции от 0 до count - 1 переводятся в номера строк напрямую
+     * или через перестановку, с начала или с конца.
+     * @param rows перестановка строк или null для порядка ID
+     * @param first первая строка диапазона
+     * @param count количество позиций
+     * @param descending обход с конца
+     */
+    private record RowOrder(int[] rows, int first, int count, boolean descending) {
+
+        /**
+         * Создает порядок из одной строки, найденной по ID.
+         * @param row номер строки или отрицательное число, если строки нет
+         */
+        private static RowOrder single(int row) {
+            return row >= 0 ? new RowOrder(null, row, 1, false) : new RowOrder(null, 0, 0, false);
+        }
+
+        private int row(int position) {
+            int index = first + (descending ? count - 1 - position : position);
+            return rows != null ? rows[index] : index;
+        }
+    }
+
+    /**
+     * Фильтр отелей с критериями, переведенными в представление колонок снимка.
+     */
+    private final class HotelFilter {
+
+        private final boolean unknownCity;
+        private final int city;
+        private final String name;
+        private final String title;
+        private final String address;
+        private final boolean filterDistance;
+        private final double minDistance;
+        private final double maxDistance;
+        private final boolean filterRating;
+        private final long minRating;
+        private final long maxRating;
+        private final boolean filterCount;
+        private final int minCount;
+        private final int maxCount;
+
+        private HotelFilter(HotelSearchCriteria criteria) {
+            boolean filterCity = criteria.getCity() != null && !criteria.getCity().isEmpty();
+            Integer code = filterCity ? cityCodes.get(criteria.getCity().toLowerCase()) : null;
+            this.unknownCity = filterCity && code == null;
+            this.city = code != null ? code : NULL_INT;
+            this.name = emptyToNull(lower(criteria.getName()));
+            this.title = emptyToNull(lower(criteria.getTitle()));
+            this.address = emptyToNull(lower(criteria.getAddress()));
+            this.filterDistance = criteria.getMinDistance() != null || criteria.getMaxDistance() != null;
+            this.minDistance = criteria.getMinDistance() != null ? criteria.getMinDistance() : Double.NEGATIVE_INFINITY;
+            this.maxDistance = criteria.getMaxDistance() != null ? criteria.getMaxDistance() : Double.POSITIVE_INFINITY;
+            this.filterRating = criteria.getMinRating() != null || criteria.getMaxRating() != null;
+            this.minRating = criteria.getMinRating() != null ? toHundredths(criteria.getMinRating(), RoundingMode.CEILING) : NULL_LONG;
+            this.maxRating = criteria.getMaxRating() != null ? toHundredths(criteria.getMaxRating(), RoundingMode.FLOOR) : Long.MAX_VALUE;
+            this.filterCount = criteria.getMinRatingsCount() != null || criteria.getMaxRatingsCount() != null;
+            this.minCount = criteria.getMinRatingsCount() != null ? criteria.getMinRatingsCount() : NULL_INT;
+            this.maxCount = criteria.getMaxRatingsCount() != null ? criteria.getMaxRatingsCount() : Integer.MAX_VALUE;
+        }
+
+        private boolean matches(int i) {
+            return matchesCity(i) && matchesRating(i) && matchesOther(i);
+        }
+
+        private boolean matchesCity(int i) {
+            return !unknownCity && (city == NULL_INT || hotelCities[i] == city);
+        }
+
+        private boolean matchesRating(int i) {
+            return !filterRating || (ratings[i] != NULL_LONG && ratings[i] >= minRating && ratings[i] <= maxRating);
+        }
+
+        /**
+         * Проверяет критерии, для которых нет фасетов.
+         */
+        private boolean matchesOther(int i) {
+            if (filterDistance && !(distances[i] >= minDistance && distances[i] <= maxDistance)) {
+                return false;
+            }
+            if (filterCount && (ratingCounts[i] == NULL_INT || ratingCounts[i] < minCount || ratingCounts[i] > maxCount)) {
+                return false;
+            }
+            return contains(hotelNames[i], name) && contains(hotelTitles[i], title) && contains(hotelAddresses[i], address);
+        }
+    }
+
+    /**
+     * Фильтр комнат с критериями, переведенными в представление колонок снимка.
+     */
+    private final class RoomFilter {
+
+        private final String name;
+        private final boolean filterPrice;
+        private final long minPrice;
+        private final long maxPrice;
+        private final int guests;
+        private final long hotelId;
+        private final IntBitSet unavailableRows;
+        private final LongHashSet soldOutRoomTypeIds;
+        private final boolean filterAvailability;
+
+        private RoomFilter(RoomSearchCriteria criteria, LongHashSet unavailableRoomIds, LongHashSet soldOutRoomTypeIds) {
+            this.name = emptyToNull(lower(criteria.getName()));
+            this.filterPrice = criteria.getMinPrice() != null || criteria.getMaxPrice() != null;
+            this.minPrice = criteria.getMinPrice() != null ? toHundredths(criteria.getMinPrice(), RoundingMode.CEILING) : NULL_LONG;
+            this.maxPrice = criteria.getMaxPrice() != null ? toHundredths(criteria.getMaxPrice(), RoundingMode.FLOOR) : Long.MAX_VALUE;
+            this.guests = criteria.getMaxGuests() != null ? criteria.getMaxGuests() : NULL_INT;
+            this.hotelId = criteria.getHotelId() != null ? criteria.getHotelId() : NULL_LONG;
+            this.unavailableRows = toRows(unavailableRoomIds);
+            this.soldOutRoomTypeIds = soldOutRoomTypeIds;
+            this.filterAvailability = !unavailableRoomIds.isEmpty() || !soldOutRoomTypeIds.isEmpty();
+        }
+
+        private boolean matches(int i) {
+            return matchesPrice(i) && matchesGuests(i) && matchesOther(i);
+        }
+
+        private boolean matchesPrice(int i) {
+            return !filterPrice || (prices[i] != NULL_LONG && prices[i] >= minPrice && prices[i] <= maxPrice);
+        }
+
+        private boolean matchesGuests(int i) {
+            return guests == NULL_INT || (maxGuests[i] != NULL_INT && maxGuests[i] >= guests);
+        }
+
+        /**
+         * Проверяет критерии, для которых нет фасетов, включая доступность на период.
+         */
+        private boolean matchesOther(int i) {
+            if (hotelId != NULL_LONG && roomHotelIds[i] != hotelId) {
+                return false;
+            }
+            if (!contains(roomNames[i], name)) {
+                return false;
+            }
+            return !filterAvailability || !(unavailableRows.get(i)
+                    || (roomTypeIds[i] != NULL_LONG && soldOutRoomTypeIds.contains(roomTypeIds[i])));
+        }
+
+        /**
+         * Переводит ID недоступных комнат в отметки строк снимка, чтобы проверка строки была проверкой бита.
+         */
+        private IntBitSet toRows(LongHashSet unavailableRoomIds) {
+            IntBitSet rows = new IntBitSet(roomIds.length);
+            unavailableRoomIds.forEach(roomId -> {
+                int row = Arrays.binarySearch(roomIds, roomId);
+                if (row >= 0) {
+                    rows.set(row);
+                }
+            });
+            return rows;
+        }
+
+        /**
+         * Проверяет секцию позиций: считает подходящие строки и запоминает первые из них.
+         */
+        private ShardResult scan(RowOrder order, int from, int to, int limit) {
+            int[] rows = new int[Math.min(limit, 64)];
+            int size = 0;
+            long matches = 0;
+            for (int position = from; position < to; position++) {
+                int i = order.row(position);
+                if (!matches(i)) {
+                    continue;
+                }
+                if (size < limit) {
+                    if (size == rows.length) {
+                        rows = Arrays.copyOf(rows, (int) Math.min(limit, rows.length * 2L));
+                    }
+                    rows[size++] = i;
+                }
+                matches++;
+            }
+            return new ShardResult(rows, size, matches);
+        }
+    }
+
+    /**
+     * Результат проверки секции: первые подходящие строки и общее количество подходящих строк.
+     */
+    private record ShardResult(int[] rows, int size, long matches) {
+    }
+
+    /**
+     * Считает подходящие строки и собирает только строки запрошенной страницы.
+     */
+    private static final class PageCollector<T> {
+
+        private final Pageable pageable;
+        private final long offset;
+        private final List<T> content;
+        private long total;
+
+        private PageCollector(Pageable pageable) {
+            this.pageable = pageable;
+            this.offset = pageable.getOffset();
+            this.content = new ArrayList<>(pageable.getPageSize());
+        }
+
+        private void accept(T row) {
+            if (total >= offset && content.size() < pageable.getPageSize()) {
+                content.add(row);
+            }
+            total++;
+        }
+
+        private Page<T> toPage() {
+            return toPage(total);
+        }
+
+        private Page<T> toPage(long matches) {
+            return new PageImpl<>(content, pageable, matches);
+        }
+    }
+}
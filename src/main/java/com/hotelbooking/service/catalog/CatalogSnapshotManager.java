@@ -0,0 +1,324 @@
+package com.hotelbooking.service.catalog;
+
+import com.hotelbooking.datasource.PrimaryReads;
+import com.hotelbooking.dto.response.HotelResponseDto;
+import com.hotelbooking.dto.response.RoomResponseDto;
+import com.hotelbooking.exception.CatalogUnavailableException;
+import com.hotelbooking.mapper.HotelMapper;
+import com.hotelbooking.mapper.RoomMapper;
+import com.hotelbooking.repository.HotelRepository;
+import com.hotelbooking.repository.RoomRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Владелец снимка каталога в памяти.
+ * Снимок загружается при старте и периодически перечитывается, чтобы учесть изменения других экземпляров
+ * приложения. Изменения отелей и комнат этого экземпляра применяются после фиксации транзакции:
+ * строки меняются в упорядоченных картах, а снимок перестраивается в фоновом потоке и публикуется
+ * заменой ссылки, поэтому поиск всегда работает с неизменяемыми массивами без блокировок.
+ * Перестроение откладывается на app.catalog.snapshot.publish-delay: изменения за это время, например
+ * поток оценок отелей, попадают в один снимок, а поток запроса не ждет перестроения.
+ * Действия, зависящие от содержимого снимка (очистка кэша результатов поиска), выполняются
+ * после публикации снимка с уже примененными изменениями, см. {@link #afterPublish(Runnable)}.
+ * Дерево подсказок отелей загружается вместе со снимком и получает те же изменения отелей сразу.
+ * Изменения, примененные во время чтения каталога, запоминаются и повторяются на прочитанных строках
+ * перед публикацией, поэтому поток записей не мешает загрузке снимка.
+ * @author Кирилл_Христич
+ */
+@Component
+@Slf4j
+public class CatalogSnapshotManager {
+
+    private final HotelRepository hotelRepository;
+    private final RoomRepository roomRepository;
+    private final HotelMapper hotelMapper;
+    private final RoomMapper roomMapper;
+    private final HotelSuggestionIndex hotelSuggestions;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+
+    private final ScheduledExecutorService publisher;
+    private final long publishDelayMillis;
+
+    private TreeMap<Long, HotelResponseDto> hotels;
+    private TreeMap<Long, RoomResponseDto> rooms;
+    private List<Runnable> changesDuringLoad;
+    private long modifications;
+    private long publishedModifications;
+    private boolean publishScheduled;
+    private final List<PendingAction> afterPublish = new ArrayList<>();
+
+    private final Object reloadLock = new Object();
+
+    private volatile CatalogSnapshot snapshot;
+
+    public CatalogSnapshotManager(HotelRepository hotelRepository,
+                                  RoomRepository roomRepository,
+                                  HotelMapper hotelMapper,
+                                  RoomMapper roomMapper,
+                                  HotelSuggestionIndex hotelSuggestions,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.catalog.snapshot.enabled:true}") boolean enabled,
+                                  @Value("${app.catalog.snapshot.publish-delay:200ms}") Duration publishDelay) {
+        this.hotelRepository = hotelRepository;
+        this.roomRepository = roomRepository;
+        this.hotelMapper = hotelMapper;
+        this.roomMapper = roomMapper;
+        this.hotelSuggestions = hotelSuggestions;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.publishDelayMillis = publishDelay.toMillis();
+        this.publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-snapshot-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Перечитывает каталог из основной базы: отстающая реплика вернула бы строки без изменений,
+     * уже примененных к снимку.
+     * Изменения этого экземпляра, примененные во время чтения, повторяются на прочитанных строках:
+     * изменение содержит полные данные строки, поэтому повтор уже прочитанного изменения ничего не меняет.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.catalog.snapshot.reload-cron:0 */5 * * * *}")
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (reloadLock) {
+            synchronized (this) {
+                changesDuringLoad = new ArrayList<>();
+            }
+
+            try {
+                TreeMap<Long, HotelResponseDto> loadedHotels = new TreeMap<>();
+                TreeMap<Long, RoomResponseDto> loadedRooms = new TreeMap<>();
+                PrimaryReads.call(() -> readOnlyTransaction.execute(status -> {
+                    hotelRepository.findAll(Sort.by("id"))
+                            .forEach(hotel -> loadedHotels.put(hotel.getId(), hotelMapper.toResponseDto(hotel)));
+                    roomRepository.findAllForCatalog()
+                            .forEach(room -> loadedRooms.put(room.getId(), roomMapper.toResponseDto(room)));
+                    return null;
+                }));
+
+                int replayed;
+                synchronized (this) {
+                    hotels = loadedHotels;
+                    rooms = loadedRooms;
+                    hotelSuggestions.rebuild(hotels.values());
+                    changesDuringLoad.forEach(Runnable::run);
+                    replayed = changesDuringLoad.size();
+                }
+                publish();
+                log.info("Catalog snapshot loaded: {} hotels, {} rooms, {} changes replayed",
+                        loadedHotels.size(), loadedRooms.size(), replayed);
+            } catch (Exception e) {
+                log.error("Failed to reload catalog snapshot", e);
+            } finally {
+                synchronized (this) {
+                    changesDuringLoad = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Получает текущий снимок каталога.
+     * @return снимок или null, если снимок выключен или еще не загружен
+     */
+    public CatalogSnapshot current() {
+        return snapshot;
+    }
+
+    /**
+     * Получает текущий снимок каталога для поиска, который выполняется только по снимку.
+     * @return снимок
+     * @throws CatalogUnavailableException если снимок выключен или еще не загружен
+     */
+    public CatalogSnapshot require() {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            throw new CatalogUnavailableException("Каталог загружается, повторите запрос позже");
+        }
+        return current;
+    }
+
+    /**
+     * Выполняет действие после публикации снимка, содержащего все уже примененные изменения.
+     * Если таких изменений нет или снимок не ведется, действие выполняется сразу.
+     * @param action действие
+     */
+    public void afterPublish(Runnable action) {
+        synchronized (this) {
+            if (hotels != null && publishedModifications < modifications) {
+                afterPublish.add(new PendingAction(modifications, action));
+                return;
+            }
+        }
+        action.run();
+    }
+
+    /**
+     * Добавляет или заменяет отель после фиксации транзакции.
+     * Название отеля в его комнатах обновляется, только если оно изменилось.
+     * @param hotel данные отеля
+     */
+    public void putHotel(HotelResponseDto hotel) {
+        AfterCommit.run(() -> modify(() -> {
+            HotelResponseDto previous = hotels.put(hotel.getId(), hotel);
+            hotelSuggestions.put(hotel);
+            if (previous != null && !Objects.equals(previous.getName(), hotel.getName())) {
+                rooms.replaceAll((id, room) -> hotel.getId().equals(room.getHotelId())
+                        ? withHotelName(room, hotel.getName())
+                        : room);
+            }
+        }));
+    }
+
+    /**
+     * Удаляет отель и его комнаты после фиксации транзакции.
+     * @param hotelId ID отеля
+     */
+    public void removeHotel(Long hotelId) {
+        AfterCommit.run(() -> modify(() -> {
+            hotels.remove(hotelId);
+            hotelSuggestions.remove(hotelId);
+            rooms.values().removeIf(room -> hotelId.equals(room.getHotelId()));
+        }));
+    }
+
+    /**
+     * Добавляет или заменяет комнату после фиксации транзакции.
+     * @param room данные комнаты
+     */
+    public void putRoom(RoomResponseDto room) {
+        AfterCommit.run(() -> modify(() -> rooms.put(room.getId(), room)));
+    }
+
+    /**
+     * Удаляет комнату после фиксации транзакции.
+     * @param roomId ID комнаты
+     */
+    public void removeRoom(Long roomId) {
+        AfterCommit.run(() -> modify(() -> rooms.remove(roomId)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publisher.shutdownNow();
+    }
+
+    private synchronized void modify(Runnable change) {
+        modifications++;
+        if (changesDuringLoad != null) {
+            changesDuringLoad.add(change);
+        }
+        if (hotels == null) {
+            return;
+        }
+        change.run();
+        if (!publishScheduled) {
+            publishScheduled = true;
+            publisher.schedule(this::publishPending, publishDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void publishPending() {
+        try {
+            publish();
+        } catch (Exception e) {
+            log.error("Failed to publish catalog snapshot", e);
+        }
+    }
+
+    /**
+     * Перестраивает снимок из текущих строк. Строки копируются под блокировкой менеджера,
+     * а снимок строится без нее, поэтому изменения каталога не ждут перестроения.
+     * Снимок не публикуется, если уже опубликован снимок с более поздними изменениями.
+     */
+    private void publish() {
+        List<HotelResponseDto> hotelRows;
+        List<RoomResponseDto> roomRows;
+        long version;
+        synchronized (this) {
+            publishScheduled = false;
+            hotelRows = new ArrayList<>(hotels.values());
+            roomRows = new ArrayList<>(rooms.values());
+            version = modifications;
+        }
+
+        CatalogSnapshot built = CatalogSnapshot.of(hotelRows, roomRows);
+
+        List<Runnable> ready = new ArrayList<>();
+        synchronized (this) {
+            if (version < publishedModifications) {
+                return;
+            }
+            snapshot = built;
+            publishedModifications = version;
+            Iterator<PendingAction> iterator = afterPublish.iterator();
+            while (iterator.hasNext()) {
+                PendingAction pending = iterator.next();
+                if (pending.modifications() <= version) {
+                    ready.add(pending.action());
+                    iterator.remove();
+                }
+            }
+        }
+
+        for (Runnable action : ready) {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.error("Catalog snapshot publish action failed", e);
+            }
+        }
+    }
+
+    /**
+     * Копирует строку комнаты с новым названием отеля, не изменяя строки опубликованных снимков.
+     */
+    private static RoomResponseDto withHotelName(RoomResponseDto room, String hotelName) {
+        RoomResponseDto copy = new RoomResponseDto();
+        copy.setId(room.getId());
+        copy.setName(room.getName());
+        copy.setDescription(room.getDescription());
+        copy.setNumber(room.getNumber());
+        copy.setPrice(room.getPrice());
+        copy.setMaxGuests(room.getMaxGuests());
+        copy.setHotelId(room.getHotelId());
+        copy.setHotelName(hotelName);
+        copy.setRoomTypeId(room.getRoomTypeId());
+        copy.setRoomTypeName(room.getRoomTypeName());
+        return copy;
+    }
+
+    /**
+     * Действие, ожидающее публикации снимка с изменениями до заданного номера включительно.
+     */
+    private record PendingAction(long modifications, Runnable action) {
+    }
+}
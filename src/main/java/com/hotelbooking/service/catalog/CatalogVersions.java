@@ -0,0 +1,102 @@
+package com.hotelbooking.service.catalog;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счетчики версий каталога отелей и комнат для ETag ответов.
+ * Версия увеличивается после фиксации транзакции, изменившей отель или комнату, поэтому
+ * запрос с актуальным If-None-Match получает 304 без обращения к базе. До фиксации версия
+ * не меняется, иначе параллельный запрос мог бы получить новый ETag вместе с прежними данными.
+ * По той же причине тело ответа с ETag читается с основной базы, а не с реплики.
+ * Счетчики хранятся в памяти экземпляра; в ETag входит время запуска, чтобы после перезапуска
+ * прежние ETag не совпадали. Изменения, сделанные другим экземпляром, этот экземпляр
+ * не видит, и клиент может получать прежний ответ до следующего изменения каталога здесь.
+ * @author Кирилл_Христич
+ */
+@Component
+public class CatalogVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Long, AtomicLong> hotelVersions = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> roomVersions = new ConcurrentHashMap<>();
+    private final AtomicLong hotelGeneration = new AtomicLong();
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final CacheControl cacheControl;
+
+    public CatalogVersions(@Value("${app.catalog.http-cache.max-age:30s}") Duration maxAge) {
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic();
+    }
+
+    /**
+     * Получает ETag отеля.
+     * @param hotelId ID отеля
+     * @return ETag отеля
+     */
+    public String getHotelTag(Long hotelId) {
+        return "\"h" + hotelId + "-" + epoch + "-" + version(hotelVersions, hotelId) + "\"";
+    }
+
+    /**
+     * Получает ETag комнаты.
+     * Ответ о комнате содержит название отеля, поэтому ETag меняется и при изменении любого отеля.
+     * @param roomId ID комнаты
+     * @return ETag комнаты
+     */
+    public String getRoomTag(Long roomId) {
+        return "\"r" + roomId + "-" + epoch + "-" + version(roomVersions, roomId)
+                + "." + hotelGeneration.get() + "\"";
+    }
+
+    /**
+     * Получает ETag списков каталога.
+     * Меняется при любом изменении отелей или комнат.
+     * @param kind вид списка
+     * @return ETag списка
+     */
+    public String getListTag(String kind) {
+        return "\"" + kind + "-" + epoch + "-" + catalogVersion.get() + "\"";
+    }
+
+    /**
+     * Получает заголовок Cache-Control для чтения каталога.
+     * @return Cache-Control
+     */
+    public CacheControl getCacheControl() {
+        return cacheControl;
+    }
+
+    /**
+     * Отмечает изменение отеля после фиксации текущей транзакции.
+     * @param hotelId ID отеля
+     */
+    public void hotelChanged(Long hotelId) {
+        AfterCommit.run(() -> {
+            hotelVersions.computeIfAbsent(hotelId, id -> new AtomicLong()).incrementAndGet();
+            hotelGeneration.incrementAndGet();
+            catalogVersion.incrementAndGet();
+        });
+    }
+
+    /**
+     * Отмечает изменение комнаты после фиксации текущей транзакции.
+     * @param roomId ID комнаты
+     */
+    public void roomChanged(Long roomId) {
+        AfterCommit.run(() -> {
+            roomVersions.computeIfAbsent(roomId, id -> new AtomicLong()).incrementAndGet();
+            catalogVersion.incrementAndGet();
+        });
+    }
+
+    private static long version(Map<Long, AtomicLong> versions, Long id) {
+        AtomicLong version = versions.get(id);
+        return version != null ? version.get() : 0;
+    }
+}
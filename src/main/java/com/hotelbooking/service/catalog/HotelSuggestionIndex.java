@@ -0,0 +1,499 @@
+package com.hotelbooking.service.catalog;
+
+import com.hotelbooking.dto.response.HotelResponseDto;
+import com.hotelbooking.dto.response.HotelSuggestionDto;
+import com.hotelbooking.exception.CatalogUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Сжатое префиксное дерево (radix tree) подсказок по названию, городу и заголовку отелей.
+ * Ключи дерева - нормализованные строки полей, начиная с каждого слова, поэтому запрос находит отель
+ * по началу любого слова поля, в том числе по нескольким словам подряд. Ключи ограничены по длине,
+ * чтобы длинные заголовки не раздували дерево; более длинный запрос сравнивается по началу той же длины.
+ * Цепочки узлов с единственным продолжением сжаты в одно ребро, поэтому узлов не больше, чем
+ * ветвлений и концов ключей. В каждом разветвляющемся узле хранятся лучшие по рейтингу и количеству
+ * оценок отели поддерева, поэтому подсказки берутся из узла, на ребре к которому заканчивается запрос,
+ * без обхода поддерева. Дерево загружается вместе со снимком каталога, а изменение отеля перестраивает
+ * только узлы на путях его ключей.
+ * @author Кирилл_Христич
+ */
+@Component
+public class HotelSuggestionIndex {
+
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    /**
+     * Порядок подсказок: рейтинг по убыванию, затем количество оценок по убыванию, затем ID.
+     */
+    private static final Comparator<Entry> RANK = Comparator.comparingLong(Entry::rating).reversed()
+            .thenComparing(Comparator.comparingInt(Entry::ratingCount).reversed())
+            .thenComparingLong(Entry::id);
+
+    private final int maxKeyLength;
+    private final int maxSuggestions;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Node root;
+    private Map<Long, Entry> entries;
+
+    public HotelSuggestionIndex(@Value("${app.catalog.suggest.max-key-length:32}") int maxKeyLength,
+                                @Value("${app.catalog.suggest.max-limit:10}") int maxSuggestions) {
+        this.maxKeyLength = Math.max(1, maxKeyLength);
+        this.maxSuggestions = Math.max(1, maxSuggestions);
+    }
+
+    /**
+     * Получает наибольшее количество подсказок в ответе.
+     * @return наибольшее количество подсказок
+     */
+    public int getMaxSuggestions() {
+        return maxSuggestions;
+    }
+
+    /**
+     * Находит отели, у которых название, город или заголовок содержат слово, начинающееся с запроса.
+     * Регистр, буква ё и знаки препинания между словами не учитываются.
+     * @param query начало слова или нескольких слов
+     * @param limit количество подсказок, не больше getMaxSuggestions()
+     * @return отели по убыванию рейтинга и количества оценок
+     * @throws CatalogUnavailableException если дерево еще не загружено
+     */
+    public List<HotelSuggestionDto> suggest(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.length() > maxKeyLength) {
+            prefix = prefix.substring(0, maxKeyLength);
+        }
+
+        lock.readLock().lock();
+        try {
+            if (root == null) {
+                throw new CatalogUnavailableException("Каталог загружается, повторите запрос позже");
+            }
+            if (prefix.isEmpty()) {
+                return List.of();
+            }
+
+            Node node = root;
+            for (int depth = 0; depth < prefix.length(); depth += node.segment.length()) {
+                node = node.child(prefix.charAt(depth));
+                if (node == null || !prefix.regionMatches(depth, node.segment, 0,
+                        Math.min(node.segment.length(), prefix.length() - depth))) {
+                    return List.of();
+                }
+            }
+
+            Entry[] top = node.top();
+            int count = Math.min(limit, Math.min(maxSuggestions, top.length));
+            List<HotelSuggestionDto> suggestions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                suggestions.add(top[i].toDto());
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Строит дерево заново и заменяет им текущее.
+     * @param hotels все отели каталога
+     */
+    public void rebuild(Collection<HotelResponseDto> hotels) {
+        Node newRoot = new Node("");
+        Map<Long, Entry> newEntries = new HashMap<>(hotels.size() * 2);
+        for (HotelResponseDto hotel : hotels) {
+            Entry entry = entry(hotel);
+            newEntries.put(entry.id(), entry);
+            insert(newRoot, entry);
+        }
+
+        lock.writeLock().lock();
+        try {
+            root = newRoot;
+            entries = newEntries;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Добавляет или заменяет отель. До загрузки дерева изменение пропускается: его учтет загрузка.
+     * @param hotel данные отеля
+     */
+    public void put(HotelResponseDto hotel) {
+        Entry entry = entry(hotel);
+        lock.writeLock().lock();
+        try {
+            if (root == null) {
+                return;
+            }
+            Entry previous = entries.put(entry.id(), entry);
+            if (previous != null) {
+                remove(root, previous);
+            }
+            insert(root, entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удаляет отель.
+     * @param hotelId ID отеля
+     */
+    public void remove(Long hotelId) {
+        lock.writeLock().lock();
+        try {
+            if (root == null) {
+                return;
+            }
+            Entry previous = entries.remove(hotelId);
+            if (previous != null) {
+                remove(root, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Добавляет ключи отеля. Ребро, расходящееся с ключом, делится в точке расхождения; отель
+     * предлагается лучшим каждого разветвляющегося узла на пути ключа.
+     */
+    private void insert(Node root, Entry entry) {
+        for (String key : keys(entry)) {
+            Node node = root;
+            int depth = 0;
+            while (depth < key.length()) {
+                int index = Arrays.binarySearch(node.labels, key.charAt(depth));
+                if (index < 0) {
+                    Node leaf = new Node(key.substring(depth));
+                    leaf.addTerminal(entry);
+                    node.addChild(-index - 1, leaf, maxSuggestions);
+                    if (node != root) {
+                        node.offer(entry, maxSuggestions);
+                    }
+                    break;
+                }
+
+                Node child = node.children[index];
+                int common = commonLength(child.segment, key, depth);
+                if (common < child.segment.length()) {
+                    child = node.split(index, common, maxSuggestions);
+                }
+                depth += common;
+                if (depth == key.length()) {
+                    child.addTerminal(entry);
+                }
+                child.offer(entry, maxSuggestions);
+                node = child;
+            }
+        }
+    }
+
+    /**
+     * Удаляет ключи отеля. Узлы на пути ключа пересчитываются снизу вверх из своих отелей и лучших
+     * отелей дочерних узлов, пустые узлы удаляются, а узел без отелей с единственным дочерним узлом
+     * сливается с ним в одно ребро. Пересчитываются только узлы, в лучших которых есть отель: без него
+     * лучшие поддерева не меняются. Узлы, общие для нескольких ключей, пересчитываются и при удалении
+     * последнего из них, поэтому отель не остается в лучших ни одного узла.
+     */
+    private void remove(Node root, Entry entry) {
+        for (String key : keys(entry)) {
+            List<Node> path = new ArrayList<>();
+            path.add(root);
+            Node node = root;
+            for (int depth = 0; depth < key.length(); depth += node.segment.length()) {
+                node = node.child(key.charAt(depth));
+                path.add(node);
+            }
+
+            node.removeTerminal(entry.id());
+            for (int i = path.size() - 1; i >= 1; i--) {
+                Node current = path.get(i);
+                Node parent = path.get(i - 1);
+                if (current.terminals.length == 0 && current.children.length == 0) {
+                    parent.removeChild(current);
+                } else if (current.terminals.length == 0 && current.children.length == 1) {
+                    parent.replaceChild(current, current.children[0].withPrefix(current.segment));
+                } else if (current.ranks(entry.id())) {
+                    current.recompute(maxSuggestions);
+                }
+            }
+        }
+    }
+
+    private static int commonLength(String segment, String key, int offset) {
+        int length = Math.min(segment.length(), key.length() - offset);
+        int common = 0;
+        while (common < length && segment.charAt(common) == key.charAt(offset + common)) {
+            common++;
+        }
+        return common;
+    }
+
+    private Entry entry(HotelResponseDto hotel) {
+        long rating = hotel.getRating() != null
+                ? hotel.getRating().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue()
+                : -1;
+        int ratingCount = hotel.getNumberOfRatings() != null ? hotel.getNumberOfRatings() : 0;
+        return new Entry(hotel.getId(), hotel.getName(), hotel.getCity(), hotel.getTitle(), hotel.getRating(),
+                hotel.getNumberOfRatings(), rating, ratingCount);
+    }
+
+    /**
+     * Строит ключи отеля из его полей. Ключи не хранятся в отеле, а вычисляются при добавлении
+     * и удалении, поэтому память занимают только отрезки ребер дерева.
+     */
+    private Set<String> keys(Entry entry) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String field : new String[]{entry.name(), entry.city(), entry.title()}) {
+            String text = normalize(field);
+            for (int start = 0; start < text.length(); start++) {
+                if (start == 0 || text.charAt(start - 1) == ' ') {
+                    keys.add(text.substring(start, Math.min(text.length(), start + maxKeyLength)));
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Переводит строку в нижний регистр, заменяет ё на е и оставляет буквы и цифры,
+     * разделяя слова одним пробелом.
+     */
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        String lower = value.toLowerCase(Locale.ROOT);
+        StringBuilder normalized = new StringBuilder(lower.length());
+        boolean separator = false;
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i) == 'ё' ? 'е' : lower.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                separator = true;
+                continue;
+            }
+            if (separator && !normalized.isEmpty()) {
+                normalized.append(' ');
+            }
+            normalized.append(c);
+            separator = false;
+        }
+        return normalized.toString();
+    }
+
+    private static <T> T[] insertAt(T[] array, int index, T value) {
+        T[] result = Arrays.copyOf(array, array.length + 1);
+        System.arraycopy(array, index, result, index + 1, array.length - index);
+        result[index] = value;
+        return result;
+    }
+
+    /**
+     * Отель в дереве подсказок.
+     * @param id ID отеля
+     * @param name название
+     * @param city город
+     * @param title заголовок
+     * @param ratingValue рейтинг для ответа
+     * @param numberOfRatings количество оценок для ответа
+     * @param rating рейтинг в сотых долях для сравнения, -1 если оценок нет
+     * @param ratingCount количество оценок для сравнения
+     */
+    private record Entry(long id, String name, String city, String title, BigDecimal ratingValue,
+                         Integer numberOfRatings, long rating, int ratingCount) {
+
+        private HotelSuggestionDto toDto() {
+            return new HotelSuggestionDto(id, name, city, ratingValue, numberOfRatings);
+        }
+    }
+
+    /**
+     * Узел сжатого дерева. Ребро к узлу подписано отрезком ключа segment; у дочерних узлов отрезки
+     * начинаются с разных символов, по которым упорядочен массив labels. Узел хранит отели, ключи которых
+     * заканчиваются в нем, в порядке подсказок. Лучшие отели поддерева хранятся только в узлах
+     * с дочерними узлами; у листа ими служат его собственные отели.
+     */
+    private static final class Node {
+
+        private String segment;
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        private Entry[] terminals = NO_ENTRIES;
+        private Entry[] top = NO_ENTRIES;
+
+        private Node(String segment) {
+            this.segment = segment;
+        }
+
+        private Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        /**
+         * Лучшие отели поддерева в порядке подсказок; у листа массив может быть длиннее лимита.
+         */
+        private Entry[] top() {
+            return children.length == 0 ? terminals : top;
+        }
+
+        /**
+         * Добавляет дочерний узел; лист, получивший первый дочерний узел, начинает хранить лучшие отели.
+         */
+        private void addChild(int position, Node child, int limit) {
+            if (children.length == 0) {
+                top = terminals.length > limit ? Arrays.copyOf(terminals, limit) : terminals;
+            }
+            char[] newLabels = new char[labels.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, position);
+            System.arraycopy(labels, position, newLabels, position + 1, labels.length - position);
+            newLabels[position] = child.segment.charAt(0);
+            labels = newLabels;
+            children = insertAt(children, position, child);
+        }
+
+        private void removeChild(Node child) {
+            int index = Arrays.binarySearch(labels, child.segment.charAt(0));
+            char[] newLabels = new char[labels.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(labels, index + 1, newLabels, index, newLabels.length - index);
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(children, index + 1, newChildren, index, newChildren.length - index);
+            labels = newLabels;
+            children = newChildren;
+            if (children.length == 0) {
+                top = NO_ENTRIES;
+            }
+        }
+
+        private void replaceChild(Node previous, Node child) {
+            children[Arrays.binarySearch(labels, previous.segment.charAt(0))] = child;
+        }
+
+        /**
+         * Делит ребро дочернего узла после length символов отрезка и возвращает новый промежуточный узел.
+         */
+        private Node split(int index, int length, int limit) {
+            Node child = children[index];
+            Node middle = new Node(child.segment.substring(0, length));
+            child.segment = child.segment.substring(length);
+            Entry[] childTop = child.top();
+            middle.labels = new char[]{child.segment.charAt(0)};
+            middle.children = new Node[]{child};
+            middle.top = childTop.length > limit ? Arrays.copyOf(childTop, limit) : childTop;
+            children[index] = middle;
+            return middle;
+        }
+
+        /**
+         * Присоединяет отрезок удаленного родителя к ребру узла.
+         */
+        private Node withPrefix(String prefix) {
+            segment = prefix + segment;
+            return this;
+        }
+
+        private void addTerminal(Entry entry) {
+            int index = Arrays.binarySearch(terminals, entry, RANK);
+            terminals = insertAt(terminals, index >= 0 ? index : -index - 1, entry);
+        }
+
+        private void removeTerminal(long id) {
+            for (int i = 0; i < terminals.length; i++) {
+                if (terminals[i].id() == id) {
+                    Entry[] result = new Entry[terminals.length - 1];
+                    System.arraycopy(terminals, 0, result, 0, i);
+                    System.arraycopy(terminals, i + 1, result, i, result.length - i);
+                    terminals = result;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Добавляет отель в лучшие, если он проходит по рангу и еще не входит в них. Лист лучших не хранит.
+         */
+        private void offer(Entry entry, int limit) {
+            if (children.length == 0) {
+                return;
+            }
+
+            int position = top.length;
+            for (int i = 0; i < top.length; i++) {
+                if (top[i].id() == entry.id()) {
+                    return;
+                }
+                if (position == top.length && RANK.compare(entry, top[i]) < 0) {
+                    position = i;
+                }
+            }
+            if (position >= limit) {
+                return;
+            }
+
+            Entry[] result = insertAt(top, position, entry);
+            top = result.length > limit ? Arrays.copyOf(result, limit) : result;
+        }
+
+        private boolean ranks(long id) {
+            for (Entry entry : top) {
+                if (entry.id() == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Собирает лучшие отели из отелей узла и лучших отелей дочерних узлов.
+         */
+        private void recompute(int limit) {
+            if (children.length == 0) {
+                top = NO_ENTRIES;
+                return;
+            }
+
+            List<Entry> candidates = new ArrayList<>(limit * (children.length + 1));
+            candidates.addAll(Arrays.asList(terminals).subList(0, Math.min(limit, terminals.length)));
+            for (Node child : children) {
+                Entry[] childTop = child.top();
+                candidates.addAll(Arrays.asList(childTop).subList(0, Math.min(limit, childTop.length)));
+            }
+            candidates.sort(RANK);
+
+            List<Entry> best = new ArrayList<>(Math.min(limit, candidates.size()));
+            for (Entry candidate : candidates) {
+                if (best.size() == limit) {
+                    break;
+                }
+                if (best.isEmpty() || best.get(best.size() - 1).id() != candidate.id()) {
+                    best.add(candidate);
+                }
+            }
+            top = best.toArray(NO_ENTRIES);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.hotelbooking.service.catalog;
+
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Ключ кэша результатов поиска: нормализованные критерии и параметры страницы.
+ * Строковые критерии сравниваются в поиске без учета регистра, а пустая строка не фильтрует,
+ * поэтому они приводятся к нижнему регистру, а пустые значения отбрасываются.
+ * @param kind вид поиска
+ * @param criteria непустые критерии по имени
+ * @param page номер страницы
+ * @param size размер страницы
+ * @param sort сортировка
+ * @author Кирилл_Христич
+ */
+public record SearchKey(String kind, Map<String, Object> criteria, int page, int size, String sort) {
+
+    /**
+     * Получает форму запроса: вид поиска и набор заданных критериев без значений.
+     * @return форма запроса
+     */
+    public String shape() {
+        return kind + ":" + (criteria.isEmpty() ? "all" : String.join(",", criteria.keySet()));
+    }
+
+    /**
+     * Создает построитель ключа.
+     * @param kind вид поиска
+     * @param pageable параметры пагинации
+     * @return построитель ключа
+     */
+    public static Builder builder(String kind, Pageable pageable) {
+        return new Builder(kind, pageable);
+    }
+
+    public static class Builder {
+
+        private final String kind;
+        private final Pageable pageable;
+        private final Map<String, Object> criteria = new TreeMap<>();
+
+        private Builder(String kind, Pageable pageable) {
+            this.kind = kind;
+            this.pageable = pageable;
+        }
+
+        public Builder with(String name, Object value) {
+            if (value instanceof String text) {
+                value = text.isEmpty() ? null : text.toLowerCase();
+            } else if (value instanceof BigDecimal number) {
+                value = number.stripTrailingZeros();
+            }
+            if (value != null) {
+                criteria.put(name, value);
+            }
+            return this;
+        }
+
+        public SearchKey build() {
+            return new SearchKey(kind, Collections.unmodifiableMap(criteria), pageable.getPageNumber(), pageable.getPageSize(),
+                    pageable.getSort().toString());
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.hotelbooking.service.catalog;
+
+import com.hotelbooking.datasource.PrimaryReads;
+import com.hotelbooking.dto.response.PaginatedResponse;
+import com.hotelbooking.dto.response.SearchCacheStatsDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Кэш страниц результатов поиска отелей и комнат.
+ * Записи вытесняются в порядке LRU по оценке занимаемой памяти и истекают по времени жизни.
+ * Изменения удаляют только затронутые записи: изменение отеля - поиски отелей по его городу
+ * и поиски комнат по этому отелю, бронирование - поиски комнат отеля с пересекающимися датами.
+ * Кэш локален для экземпляра; изменения на других экземплярах видны после истечения записей.
+ * @author Кирилл_Христич
+ */
+@Component
+@Slf4j
+public class SearchResultCache {
+
+    public static final String HOTELS = "hotels";
+    public static final String ROOMS = "rooms";
+
+    /**
+     * Оценка памяти записи без элементов: ключ, страница и служебные поля.
+     */
+    private static final long ENTRY_OVERHEAD = 512;
+
+    private final CatalogSnapshotManager catalogSnapshot;
+    private final long maxWeight;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<SearchKey, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long weight;
+    private long invalidationCount;
+
+    private final Map<String, ShapeCounters> shapes = new ConcurrentHashMap<>();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public SearchResultCache(CatalogSnapshotManager catalogSnapshot,
+                             @Value("${app.catalog.search-cache.max-weight:32MB}") DataSize maxWeight,
+                             @Value("${app.catalog.search-cache.ttl:60s}") Duration ttl) {
+        this.catalogSnapshot = catalogSnapshot;
+        this.maxWeight = maxWeight.toBytes();
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    /**
+     * Получает страницу результатов из кэша или загружает ее.
+     * Результат не кэшируется, если во время загрузки кэш очищался: загрузка могла прочитать
+     * данные до изменения, которое очистка отражает. Загрузка читает с основной базы:
+     * очистка выполняется после фиксации на основной базе, и только там загрузка, начатая
+     * после очистки, гарантированно видит изменение. Отстающая реплика вернула бы прежнюю занятость,
+     * и результат хранился бы до истечения времени жизни.
+     * @param key ключ поиска
+     * @param scope область данных, от которых зависит результат
+     * @param loader загрузка страницы
+     * @param weigher оценка памяти элемента в байтах
+     * @param <T> тип элементов
+     * @return страница результатов
+     */
+    @SuppressWarnings("unchecked")
+    public <T> PaginatedResponse<T> get(SearchKey key, SearchScope scope, Supplier<PaginatedResponse<T>> loader,
+                                        ToLongFunction<T> weigher) {
+        ShapeCounters counters = shapes.computeIfAbsent(key.shape(), shape -> new ShapeCounters());
+        long now = System.currentTimeMillis();
+        long invalidationsBeforeLoad;
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt() > now) {
+                counters.hits.incrementAndGet();
+                return (PaginatedResponse<T>) entry.response();
+            }
+            if (entry != null) {
+                remove(key);
+            }
+            invalidationsBeforeLoad = invalidationCount;
+        }
+
+        counters.misses.incrementAndGet();
+        PaginatedResponse<T> response = PrimaryReads.call(loader);
+
+        long entryWeight = ENTRY_OVERHEAD;
+        for (T item : response.getContent()) {
+            entryWeight += weigher.applyAsLong(item);
+        }
+        if (entryWeight > maxWeight) {
+            return response;
+        }
+
+        synchronized (this) {
+            if (invalidationCount == invalidationsBeforeLoad) {
+                Entry previous = entries.put(key, new Entry(response, scope, entryWeight, now + ttlMillis));
+                weight += entryWeight - (previous != null ? previous.weight() : 0);
+                evict();
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Удаляет результаты, затронутые изменением отеля: поиски отелей по его городам и поиски комнат
+     * по этому отелю. Удаление выполняется после фиксации транзакции и публикации снимка каталога
+     * с изменением, чтобы результат поиска по прежнему снимку не остался в кэше.
+     * @param hotelId ID отеля
+     * @param cities город отеля до и после изменения
+     */
+    public void invalidateHotel(Long hotelId, String... cities) {
+        AfterCommit.run(() -> catalogSnapshot.afterPublish(() -> invalidate(scope -> scope.kind().equals(HOTELS)
+                ? scope.city() == null || matchesCity(scope.city(), cities)
+                : scope.hotelId() == null || scope.hotelId().equals(hotelId))));
+    }
+
+    /**
+     * Удаляет поиски комнат по отелю без учета дат после фиксации транзакции и публикации
+     * снимка каталога с изменением комнаты.
+     * @param hotelId ID отеля
+     */
+    public void invalidateRooms(Long hotelId) {
+        AfterCommit.run(() -> catalogSnapshot.afterPublish(() -> invalidate(scope -> scope.kind().equals(ROOMS)
+                && (scope.hotelId() == null || scope.hotelId().equals(hotelId)))));
+    }
+
+    /**
+     * Удаляет после фиксации транзакции поиски свободных комнат отеля, даты которых
+     * пересекаются с забронированными ночами.
+     * @param hotelId ID отеля
+     * @param checkIn дата заезда
+     * @param checkOut дата выезда
+     */
+    public void invalidateBooking(Long hotelId, LocalDate checkIn, LocalDate checkOut) {
+        AfterCommit.run(() -> invalidate(scope -> scope.kind().equals(ROOMS)
+                && (scope.hotelId() == null || scope.hotelId().equals(hotelId))
+                && scope.checkIn() != null && scope.checkOut() != null
+                && scope.checkIn().isBefore(checkOut) && scope.checkOut().isAfter(checkIn)));
+    }
+
+    /**
+     * Получает показатели кэша.
+     * @return показатели кэша
+     */
+    public SearchCacheStatsDto getStats() {
+        List<SearchCacheStatsDto.ShapeStats> shapeStats = shapes.entrySet().stream()
+                .map(entry -> {
+                    long hits = entry.getValue().hits.get();
+                    long misses = entry.getValue().misses.get();
+                    long total = hits + misses;
+                    return new SearchCacheStatsDto.ShapeStats(entry.getKey(), hits, misses,
+                            total > 0 ? (double) hits / total : 0);
+                })
+                .sorted(Comparator.comparingLong(stats -> -(stats.getHits() + stats.getMisses())))
+                .toList();
+
+        synchronized (this) {
+            return SearchCacheStatsDto.builder()
+                    .entries(entries.size())
+                    .weightBytes(weight)
+                    .maxWeightBytes(maxWeight)
+                    .evictions(evictions.get())
+                    .invalidations(invalidations.get())
+                    .shapes(shapeStats)
+                    .build();
+        }
+    }
+
+    private synchronized void invalidate(Predicate<SearchScope> affected) {
+        invalidationCount++;
+
+        int removed = 0;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (affected.test(entry.scope())) {
+                weight -= entry.weight();
+                iterator.remove();
+                removed++;
+            }
+        }
+
+        if (removed > 0) {
+            invalidations.addAndGet(removed);
+            log.debug("Invalidated {} cached search results", removed);
+        }
+    }
+
+    private void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            weight -= iterator.next().weight();
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(SearchKey key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            weight -= entry.weight();
+        }
+    }
+
+    private static boolean matchesCity(String city, String... cities) {
+        for (String candidate : cities) {
+            if (candidate != null && candidate.toLowerCase().equals(city)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Оценивает память строки в байтах.
+     * @param value строка или null
+     * @return оценка памяти
+     */
+    public static long weigh(String value) {
+        return value != null ? 48 + value.length() * 2L : 0;
+    }
+
+    /**
+     * Область данных, от которых зависит результат поиска.
+     * @param kind вид поиска
+     * @param city город поиска отелей (в нижнем регистре) или null
+     * @param hotelId ID отеля поиска комнат или null
+     * @param checkIn дата заезда поиска комнат или null
+     * @param checkOut дата выезда поиска комнат или null
+     */
+    public record SearchScope(String kind, String city, Long hotelId, LocalDate checkIn, LocalDate checkOut) {
+
+        public static SearchScope hotels(String city) {
+            return new SearchScope(HOTELS, city == null || city.isEmpty() ? null : city.toLowerCase(),
+                    null, null, null);
+        }
+
+        public static SearchScope rooms(Long hotelId, LocalDate checkIn, LocalDate checkOut) {
+            return new SearchScope(ROOMS, null, hotelId, checkIn, checkOut);
+        }
+    }
+
+    private record Entry(PaginatedResponse<?> response, SearchScope scope, long weight, long expiresAt) {
+    }
+
+    private static final class ShapeCounters {
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+    }
+}
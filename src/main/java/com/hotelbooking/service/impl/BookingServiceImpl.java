@@ -1,30 +1,44 @@
 package com.hotelbooking.service.impl;
 
+import com.hotelbooking.datasource.ReadYourWritesTracker;
 import com.hotelbooking.dto.request.BookingRequestDto;
+import com.hotelbooking.dto.response.BookingHoldResponseDto;
 import com.hotelbooking.dto.response.BookingResponseDto;
 import com.hotelbooking.dto.response.PaginatedResponse;
 import com.hotelbooking.entity.Booking;
 import com.hotelbooking.entity.Room;
-import com.hotelbooking.entity.User;
+import com.hotelbooking.entity.RoomType;
+import com.hotelbooking.entity.enums.BookingStatus;
 import com.hotelbooking.event.BookingEvent;
 import com.hotelbooking.exception.ResourceNotFoundException;
 import com.hotelbooking.exception.ValidationException;
 import com.hotelbooking.mapper.BookingMapper;
 import com.hotelbooking.repository.BookingRepository;
 import com.hotelbooking.repository.RoomRepository;
-import com.hotelbooking.repository.UserRepository;
+import com.hotelbooking.repository.RoomTypeRepository;
+import com.hotelbooking.security.AuthenticatedUser;
 import com.hotelbooking.service.BookingService;
+import com.hotelbooking.service.booking.RoomHold;
+import com.hotelbooking.service.booking.RoomHoldRegistry;
+import com.hotelbooking.service.booking.RoomInventoryService;
+import com.hotelbooking.service.catalog.SearchResultCache;
 import com.hotelbooking.service.statistics.StatisticsService;
+import com.hotelbooking.util.LongHashSet;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 /**
  * Сервис для работы с бронированиями.
@@ -37,112 +51,268 @@ public class BookingServiceImpl implements BookingService {
 
     private final BookingRepository bookingRepository;
     private final RoomRepository roomRepository;
-    private final UserRepository userRepository;
+    private final RoomTypeRepository roomTypeRepository;
+    private final RoomInventoryService roomInventoryService;
+    private final RoomHoldRegistry roomHoldRegistry;
     private final BookingMapper bookingMapper;
     private final StatisticsService statisticsService;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final SearchResultCache searchResultCache;
+
+    @Value("${app.booking.max-stay-days:30}")
+    private int maxStayDays;
+
+    /**
+     * Проверяет, что допустимая длительность проживания не превышает закрепленную в схеме:
+     * иначе поиск пересечений, ограниченный Booking.MAX_STAY_DAYS, пропускал бы более длинные бронирования.
+     */
+    @PostConstruct
+    void checkMaxStayDays() {
+        if (maxStayDays > Booking.MAX_STAY_DAYS) {
+            throw new IllegalStateException("app.booking.max-stay-days must not exceed " + Booking.MAX_STAY_DAYS);
+        }
+    }
 
     /**
      * Создает новое бронирование.
+     * Бронирование конкретной комнаты проверяет ее занятость и, если у комнаты есть тип,
+     * резервирует номер типа. Бронирование по типу резервирует номер типа и сразу
+     * назначает комнату, свободную на весь период.
      * @param bookingRequestDto данные бронирования
-     * @param username имя пользователя
+     * @param user текущий пользователь
      * @return информация о созданном бронировании
      */
     @Override
     @Transactional
-    public BookingResponseDto createBooking(BookingRequestDto bookingRequestDto, String username) {
-        log.info("Creating booking for user: {}", username);
+    public BookingResponseDto createBooking(BookingRequestDto bookingRequestDto, AuthenticatedUser user) {
+        log.info("Creating booking for user: {}", user.username());
+
+        validateBookingDates(bookingRequestDto);
+        validateBookingTarget(bookingRequestDto);
+
+        return bookingMapper.toResponseDto(persistBooking(bookingRequestDto, user, null));
+    }
+
+    /**
+     * Временно удерживает комнату на период до подтверждения бронирования.
+     * Удержание хранится в памяти и учитывается проверкой доступности и поиском комнат.
+     * Строка комнаты блокируется, а удержание регистрируется до проверки бронирований,
+     * поэтому параллельное бронирование либо видит удержание, либо уже зафиксировано к проверке;
+     * при найденном пересечении удержание снимается.
+     * Комнаты с типом номера не удерживаются: их номера учитываются счетчиками типа.
+     * @param bookingRequestDto данные бронирования
+     * @param user текущий пользователь
+     * @return информация об удержании
+     */
+    @Override
+    @Transactional
+    public BookingHoldResponseDto holdRoom(BookingRequestDto bookingRequestDto, AuthenticatedUser user) {
+        log.info("Holding room {} for user: {}", bookingRequestDto.getRoomId(), user.username());
 
         validateBookingDates(bookingRequestDto);
+        if (bookingRequestDto.getRoomId() == null) {
+            throw new ValidationException("Удержание возможно только для конкретной комнаты");
+        }
 
-        Room room = roomRepository.findById(bookingRequestDto.getRoomId())
+        Room room = roomRepository.findByIdForUpdate(bookingRequestDto.getRoomId())
                 .orElseThrow(() -> new ResourceNotFoundException("Комната с ID " + bookingRequestDto.getRoomId() + " не найдена"));
+        if (room.getRoomType() != null) {
+            throw new ValidationException("Комнату с типом номера нельзя удержать, забронируйте ее напрямую или по типу");
+        }
+
+        RoomHold hold = roomHoldRegistry.hold(room.getId(), user.username(),
+                bookingRequestDto.getCheckInDate(), bookingRequestDto.getCheckOutDate());
+        try {
+            checkRoomAvailability(room.getId(), bookingRequestDto.getCheckInDate(), bookingRequestDto.getCheckOutDate(),
+                    hold.getId());
+        } catch (RuntimeException e) {
+            roomHoldRegistry.release(hold.getId());
+            throw e;
+        }
+
+        searchResultCache.invalidateBooking(room.getHotel().getId(),
+                bookingRequestDto.getCheckInDate(), bookingRequestDto.getCheckOutDate());
+        log.info("Room {} held with hold ID: {}", room.getId(), hold.getId());
+
+        return bookingMapper.toHoldResponseDto(hold);
+    }
+
+    /**
+     * Подтверждает удержание, создавая бронирование.
+     * Удержание снимается после фиксации транзакции, поэтому при ошибке сохранения комната остается удержанной.
+     * @param holdId ID удержания
+     * @param user текущий пользователь
+     * @return информация о созданном бронировании
+     */
+    @Override
+    @Transactional
+    public BookingResponseDto confirmHold(String holdId, AuthenticatedUser user) {
+        log.info("Confirming hold {} for user: {}", holdId, user.username());
+
+        RoomHold hold = findUserHold(holdId, user.username());
+
+        BookingRequestDto bookingRequestDto = new BookingRequestDto();
+        bookingRequestDto.setRoomId(hold.getRoomId());
+        bookingRequestDto.setCheckInDate(hold.getCheckInDate());
+        bookingRequestDto.setCheckOutDate(hold.getCheckOutDate());
+        validateBookingDates(bookingRequestDto);
+
+        Booking savedBooking = persistBooking(bookingRequestDto, user, holdId);
+        roomHoldRegistry.releaseAfterCommit(holdId);
+
+        return bookingMapper.toResponseDto(savedBooking);
+    }
 
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Пользователь с именем " + username + " не найден"));
+    /**
+     * Снимает удержание комнаты.
+     * @param holdId ID удержания
+     * @param user текущий пользователь
+     */
+    @Override
+    public void releaseHold(String holdId, AuthenticatedUser user) {
+        log.info("Releasing hold {} for user: {}", holdId, user.username());
 
-        checkRoomAvailability(room.getId(), bookingRequestDto.getCheckInDate(), bookingRequestDto.getCheckOutDate());
+        findUserHold(holdId, user.username());
+        roomHoldRegistry.release(holdId);
+    }
 
+    /**
+     * Сохраняет бронирование комнаты или типа номера.
+     * Каждое бронирование получает комнату в момент создания, поэтому проверка пересечений
+     * комнаты видит и бронирования по типу, а посуточные счетчики типа служат быстрой
+     * проверкой перед подбором комнаты.
+     * @param bookingRequestDto проверенные данные бронирования
+     * @param user текущий пользователь
+     * @param holdId ID подтверждаемого удержания или null
+     * @return сохраненное бронирование
+     */
+    private Booking persistBooking(BookingRequestDto bookingRequestDto, AuthenticatedUser user, String holdId) {
+        LocalDate checkIn = bookingRequestDto.getCheckInDate();
+        LocalDate checkOut = bookingRequestDto.getCheckOutDate();
         Booking booking = bookingMapper.toEntity(bookingRequestDto);
-        booking.setRoom(room);
-        booking.setUser(user);
+
+        if (bookingRequestDto.getRoomId() != null) {
+            Room room = roomRepository.findByIdForUpdate(bookingRequestDto.getRoomId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Комната с ID " + bookingRequestDto.getRoomId() + " не найдена"));
+
+            checkRoomAvailability(room.getId(), checkIn, checkOut, holdId);
+            if (room.getRoomType() != null) {
+                roomInventoryService.reserve(room.getRoomType(), checkIn, checkOut);
+            }
+            booking.setRoom(room);
+            booking.setRoomType(room.getRoomType());
+        } else {
+            RoomType roomType = roomTypeRepository.findById(bookingRequestDto.getRoomTypeId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Тип номера с ID " + bookingRequestDto.getRoomTypeId() + " не найден"));
+
+            roomInventoryService.reserve(roomType, checkIn, checkOut);
+            booking.setRoom(findFreeRoomOfType(roomType, checkIn, checkOut));
+            booking.setRoomType(roomType);
+        }
+
+        booking.setUser(user.toReference());
 
         Booking savedBooking = bookingRepository.save(booking);
-        log.info("Booking created with ID: {} for user: {}", savedBooking.getId(), username);
+        readYourWritesTracker.markWrite(user.username());
+        invalidateSearches(savedBooking);
+        log.info("Booking created with ID: {} for user: {}", savedBooking.getId(), user.username());
 
-        sendBookingEvent(savedBooking);
+        sendBookingEvent(savedBooking, BookingEvent.BOOKING_CREATED);
 
-        return bookingMapper.toResponseDto(savedBooking);
+        return savedBooking;
+    }
+
+    /**
+     * Находит и блокирует комнату типа, свободную на весь период и не удерживаемую.
+     * Посуточные счетчики не гарантируют, что одна комната свободна все ночи периода,
+     * поэтому при их успешной проверке комнаты может не найтись.
+     * @param roomType тип номера
+     * @param checkIn дата заезда
+     * @param checkOut дата выезда
+     * @return комната
+     */
+    private Room findFreeRoomOfType(RoomType roomType, LocalDate checkIn, LocalDate checkOut) {
+        LongHashSet heldRoomIds = roomHoldRegistry.getHeldRoomIds(checkIn, checkOut);
+        Long roomId = roomRepository.findFreeRoomIdsOfType(roomType.getId(), checkIn, checkOut,
+                        checkIn.minusDays(Booking.MAX_STAY_DAYS), heldRoomIds.size() + 1)
+                .stream()
+                .filter(candidate -> !heldRoomIds.contains(candidate))
+                .findFirst()
+                .orElseThrow(() -> new ValidationException("Нет комнаты типа \"" + roomType.getName()
+                        + "\", свободной на весь период"));
+
+        return roomRepository.getReferenceById(roomId);
     }
 
     /**
      * Получает бронирование по ID.
      * @param id ID бронирования
-     * @param username имя пользователя
+     * @param user текущий пользователь
      * @return информация о бронировании
      */
     @Override
     @Transactional(readOnly = true)
-    public BookingResponseDto getBookingById(Long id, String username) {
-        log.info("Getting booking by ID: {} for user: {}", id, username);
-
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Пользователь не найден"));
+    public BookingResponseDto getBookingById(Long id, AuthenticatedUser user) {
+        log.info("Getting booking by ID: {} for user: {}", id, user.username());
 
         Booking booking = bookingRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Бронирование с ID " + id + " не найдено"));
 
-        if (!booking.getUser().getId().equals(user.getId()) &&
-                !user.getRole().name().equals("ROLE_ADMIN")) {
-            throw new AccessDeniedException("Доступ запрещен");
-        }
+        checkAccess(booking, user);
 
         return bookingMapper.toResponseDto(booking);
     }
 
     /**
      * Отменяет бронирование.
+     * Строка бронирования сохраняется со статусом CANCELLED, номер типа освобождается,
+     * а в статистику отправляется событие отмены.
      * @param id ID бронирования
-     * @param username имя пользователя
+     * @param user текущий пользователь
      */
     @Override
     @Transactional
-    public void cancelBooking(Long id, String username) {
-        log.info("Canceling booking with ID: {} for user: {}", id, username);
-
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Пользователь не найден"));
+    public void cancelBooking(Long id, AuthenticatedUser user) {
+        log.info("Canceling booking with ID: {} for user: {}", id, user.username());
 
         Booking booking = bookingRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Бронирование с ID " + id + " не найдено"));
 
-        if (!booking.getUser().getId().equals(user.getId()) &&
-                !user.getRole().name().equals("ROLE_ADMIN")) {
-            throw new AccessDeniedException("Доступ запрещен");
+        checkAccess(booking, user);
+
+        if (booking.getStatus() == BookingStatus.CANCELLED) {
+            throw new ValidationException("Бронирование уже отменено");
         }
 
         if (booking.getCheckInDate().isBefore(LocalDate.now())) {
             throw new ValidationException("Невозможно отменить прошедшее бронирование");
         }
 
-        bookingRepository.delete(booking);
+        if (booking.getRoomType() != null) {
+            roomInventoryService.release(booking.getRoomType(), booking.getCheckInDate(), booking.getCheckOutDate());
+        }
+        booking.setStatus(BookingStatus.CANCELLED);
+        booking.setCancelledAt(LocalDateTime.now());
+        bookingRepository.save(booking);
+        readYourWritesTracker.markWrite(user.username());
+        invalidateSearches(booking);
         log.info("Booking with ID {} canceled", id);
+
+        sendBookingEvent(booking, BookingEvent.BOOKING_CANCELLED);
     }
 
     /**
      * Получает бронирования пользователя с пагинацией.
-     * @param username имя пользователя
+     * @param user текущий пользователь
      * @param pageable параметры пагинации
      * @return пагинированный список бронирований
      */
     @Override
     @Transactional(readOnly = true)
-    public PaginatedResponse<BookingResponseDto> getUserBookings(String username, Pageable pageable) {
-        log.info("Getting bookings for user: {} with pagination: {}", username, pageable);
-
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Пользователь с именем " + username + " не найден"));
+    public PaginatedResponse<BookingResponseDto> getUserBookings(AuthenticatedUser user, Pageable pageable) {
+        log.info("Getting bookings for user: {} with pagination: {}", user.username(), pageable);
 
-        Page<Booking> bookingPage = bookingRepository.findByUserId(user.getId(), pageable);
+        Page<Booking> bookingPage = bookingRepository.findByUserId(user.id(), pageable);
         return PaginatedResponse.of(bookingPage.map(bookingMapper::toResponseDto));
     }
 
@@ -176,40 +346,112 @@ public class BookingServiceImpl implements BookingService {
         if (bookingRequestDto.getCheckOutDate().isBefore(LocalDate.now())) {
             throw new ValidationException("Дата выезда должна быть в будущем");
         }
+
+        long nights = ChronoUnit.DAYS.between(bookingRequestDto.getCheckInDate(), bookingRequestDto.getCheckOutDate());
+        if (nights > maxStayDays) {
+            throw new ValidationException("Длительность проживания не может превышать " + maxStayDays + " ночей");
+        }
+    }
+
+    /**
+     * Проверяет, что бронирование указывает либо комнату, либо тип номера.
+     * @param bookingRequestDto данные бронирования
+     */
+    private void validateBookingTarget(BookingRequestDto bookingRequestDto) {
+        if ((bookingRequestDto.getRoomId() == null) == (bookingRequestDto.getRoomTypeId() == null)) {
+            throw new ValidationException("Укажите либо ID комнаты, либо ID типа номера");
+        }
+    }
+
+    /**
+     * Проверяет, что бронирование принадлежит пользователю или пользователь является администратором.
+     * @param booking бронирование
+     * @param user текущий пользователь
+     */
+    private void checkAccess(Booking booking, AuthenticatedUser user) {
+        if (!booking.getUser().getId().equals(user.id()) && !user.isAdmin()) {
+            throw new AccessDeniedException("Доступ запрещен");
+        }
+    }
+
+    /**
+     * Находит действующее удержание пользователя.
+     * @param holdId ID удержания
+     * @param username имя пользователя
+     * @return удержание
+     */
+    private RoomHold findUserHold(String holdId, String username) {
+        return roomHoldRegistry.find(holdId)
+                .filter(hold -> hold.getUsername().equals(username))
+                .orElseThrow(() -> new ResourceNotFoundException("Удержание с ID " + holdId + " не найдено или истекло"));
     }
 
     /**
-     * Проверяет доступность комнаты на выбранные даты.
+     * Проверяет доступность комнаты на выбранные даты с учетом удержаний.
      * @param roomId ID комнаты
      * @param checkIn дата заезда
      * @param checkOut дата выезда
+     * @param holdId ID удержания, которое не учитывается, или null
      */
-    private void checkRoomAvailability(Long roomId, LocalDate checkIn, LocalDate checkOut) {
-        boolean isBooked = bookingRepository.existsOverlappingBooking(roomId, checkIn, checkOut);
+    private void checkRoomAvailability(Long roomId, LocalDate checkIn, LocalDate checkOut, String holdId) {
+        if (roomHoldRegistry.isHeld(roomId, checkIn, checkOut, holdId)) {
+            throw new ValidationException("Комната временно удерживается другим пользователем");
+        }
+
+        boolean isBooked = bookingRepository.existsOverlappingBooking(
+                roomId, checkIn, checkOut, checkIn.minusDays(Booking.MAX_STAY_DAYS));
         if (isBooked) {
             throw new ValidationException("Комната недоступна на выбранные даты");
         }
     }
 
     /**
-     * Отправляет событие о создании бронирования.
-     * @param booking созданное бронирование
+     * Удаляет из кэша поиски свободных комнат отеля бронирования на пересекающиеся даты.
+     * @param booking бронирование
      */
-    private void sendBookingEvent(Booking booking) {
-        try {
-            BookingEvent event = BookingEvent.builder()
-                    .userId(booking.getUser().getId())
-                    .bookingId(booking.getId())
-                    .roomId(booking.getRoom().getId())
-                    .checkInDate(booking.getCheckInDate())
-                    .checkOutDate(booking.getCheckOutDate())
-                    .timestamp(LocalDateTime.now())
-                    .build();
+    private void invalidateSearches(Booking booking) {
+        searchResultCache.invalidateBooking(booking.getRoom().getHotel().getId(),
+                booking.getCheckInDate(), booking.getCheckOutDate());
+    }
+
+    /**
+     * Отправляет событие о создании или отмене бронирования после фиксации текущей транзакции.
+     * При откате событие не отправляется, поэтому статистика не учитывает несостоявшиеся изменения.
+     * @param booking бронирование
+     * @param eventType тип события
+     */
+    private void sendBookingEvent(Booking booking, String eventType) {
+        Room room = booking.getRoom();
+        BookingEvent event = BookingEvent.builder()
+                .eventType(eventType)
+                .userId(booking.getUser().getId())
+                .bookingId(booking.getId())
+                .roomId(room.getId())
+                .hotelId(room.getHotel().getId())
+                .checkInDate(booking.getCheckInDate())
+                .checkOutDate(booking.getCheckOutDate())
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishBookingEvent(event);
+            return;
+        }
 
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publishBookingEvent(event);
+            }
+        });
+    }
+
+    private void publishBookingEvent(BookingEvent event) {
+        try {
             statisticsService.sendBookingEvent(event);
-            log.info("Booking event sent for booking ID: {}", booking.getId());
+            log.info("Booking event sent for booking ID: {}", event.getBookingId());
         } catch (Exception e) {
-            log.error("Failed to send booking event for booking ID: {}", booking.getId(), e);
+            log.error("Failed to send booking event for booking ID: {}", event.getBookingId(), e);
         }
     }
 }
@@ -2,7 +2,9 @@ package com.hotelbooking.service.impl;
 
 import com.hotelbooking.dto.request.HotelRequestDto;
 import com.hotelbooking.dto.request.HotelSearchCriteria;
+import com.hotelbooking.dto.response.FacetedSearchResponse;
 import com.hotelbooking.dto.response.HotelResponseDto;
+import com.hotelbooking.dto.response.HotelSuggestionDto;
 import com.hotelbooking.dto.response.PaginatedResponse;
 import com.hotelbooking.entity.Hotel;
 import com.hotelbooking.exception.ResourceNotFoundException;
@@ -10,6 +12,13 @@ import com.hotelbooking.exception.ValidationException;
 import com.hotelbooking.mapper.HotelMapper;
 import com.hotelbooking.repository.HotelRepository;
 import com.hotelbooking.service.HotelService;
+import com.hotelbooking.service.catalog.CatalogSnapshot;
+import com.hotelbooking.service.catalog.CatalogSnapshotManager;
+import com.hotelbooking.service.catalog.CatalogVersions;
+import com.hotelbooking.service.catalog.HotelSuggestionIndex;
+import com.hotelbooking.service.catalog.SearchKey;
+import com.hotelbooking.service.catalog.SearchResultCache;
+import com.hotelbooking.service.catalog.SearchResultCache.SearchScope;
 import com.hotelbooking.util.HotelSpecification;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,6 +30,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.List;
 
 /**
  * Сервис для работы с отелями.
@@ -33,6 +43,10 @@ public class HotelServiceImpl implements HotelService {
 
     private final HotelRepository hotelRepository;
     private final HotelMapper hotelMapper;
+    private final CatalogVersions catalogVersions;
+    private final CatalogSnapshotManager catalogSnapshot;
+    private final SearchResultCache searchResultCache;
+    private final HotelSuggestionIndex hotelSuggestions;
 
     /**
      * Создает новый отель.
@@ -49,9 +63,13 @@ public class HotelServiceImpl implements HotelService {
         hotel.setNumberOfRatings(0);
 
         Hotel savedHotel = hotelRepository.save(hotel);
+        HotelResponseDto response = hotelMapper.toResponseDto(savedHotel);
+        catalogVersions.hotelChanged(savedHotel.getId());
+        catalogSnapshot.putHotel(response);
+        searchResultCache.invalidateHotel(savedHotel.getId(), savedHotel.getCity());
         log.info("Hotel created with ID: {}", savedHotel.getId());
 
-        return hotelMapper.toResponseDto(savedHotel);
+        return response;
     }
 
     /**
@@ -84,11 +102,16 @@ public class HotelServiceImpl implements HotelService {
         Hotel hotel = hotelRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Отель с ID " + id + " не найден"));
 
+        String previousCity = hotel.getCity();
         hotelMapper.updateEntity(hotelRequestDto, hotel);
         Hotel updatedHotel = hotelRepository.save(hotel);
+        HotelResponseDto response = hotelMapper.toResponseDto(updatedHotel);
+        catalogVersions.hotelChanged(id);
+        catalogSnapshot.putHotel(response);
+        searchResultCache.invalidateHotel(id, previousCity, updatedHotel.getCity());
         log.info("Hotel with ID {} updated", id);
 
-        return hotelMapper.toResponseDto(updatedHotel);
+        return response;
     }
 
     /**
@@ -100,11 +123,13 @@ public class HotelServiceImpl implements HotelService {
     public void deleteHotel(Long id) {
         log.info("Deleting hotel with ID: {}", id);
 
-        if (!hotelRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Отель с ID " + id + " не найден");
-        }
+        Hotel hotel = hotelRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Отель с ID " + id + " не найден"));
 
-        hotelRepository.deleteById(id);
+        hotelRepository.delete(hotel);
+        catalogVersions.hotelChanged(id);
+        catalogSnapshot.removeHotel(id);
+        searchResultCache.invalidateHotel(id, hotel.getCity());
         log.info("Hotel with ID {} deleted", id);
     }
 
@@ -124,6 +149,8 @@ public class HotelServiceImpl implements HotelService {
 
     /**
      * Ищет отели по критериям.
+     * Поиск выполняется по снимку каталога в памяти, если снимок загружен.
+     * Страницы результатов кэшируются до изменения отеля в городе поиска.
      * @param criteria критерии поиска
      * @param pageable параметры пагинации
      * @return пагинированный список найденных отелей
@@ -133,6 +160,30 @@ public class HotelServiceImpl implements HotelService {
     public PaginatedResponse<HotelResponseDto> searchHotels(HotelSearchCriteria criteria, Pageable pageable) {
         log.info("Searching hotels with criteria: {}", criteria);
 
+        SearchKey key = SearchKey.builder(SearchResultCache.HOTELS, pageable)
+                .with("id", criteria.getId())
+                .with("name", criteria.getName())
+                .with("title", criteria.getTitle())
+                .with("city", criteria.getCity())
+                .with("address", criteria.getAddress())
+                .with("minDistance", criteria.getMinDistance())
+                .with("maxDistance", criteria.getMaxDistance())
+                .with("minRating", criteria.getMinRating())
+                .with("maxRating", criteria.getMaxRating())
+                .with("minRatingsCount", criteria.getMinRatingsCount())
+                .with("maxRatingsCount", criteria.getMaxRatingsCount())
+                .build();
+
+        return searchResultCache.get(key, SearchScope.hotels(criteria.getCity()),
+                () -> findHotels(criteria, pageable), HotelServiceImpl::weigh);
+    }
+
+    private PaginatedResponse<HotelResponseDto> findHotels(HotelSearchCriteria criteria, Pageable pageable) {
+        CatalogSnapshot snapshot = catalogSnapshot.current();
+        if (snapshot != null && snapshot.supportsHotelSearch(criteria, pageable)) {
+            return PaginatedResponse.of(snapshot.searchHotels(criteria, pageable));
+        }
+
         Specification<Hotel> spec = HotelSpecification.searchHotels(
                 criteria.getId(), criteria.getName(), criteria.getTitle(), criteria.getCity(),
                 criteria.getAddress(), criteria.getMinDistance(), criteria.getMaxDistance(),
@@ -144,6 +195,38 @@ public class HotelServiceImpl implements HotelService {
         return PaginatedResponse.of(hotelPage.map(hotelMapper::toResponseDto));
     }
 
+    /**
+     * Ищет отели по критериям и считает количество результатов по городам и диапазонам рейтинга.
+     * Фасеты считаются одним проходом по снимку каталога вместе со страницей результатов,
+     * поэтому без загруженного снимка поиск недоступен.
+     * @param criteria критерии поиска
+     * @param pageable параметры пагинации
+     * @return страница найденных отелей с фасетами
+     */
+    @Override
+    public FacetedSearchResponse<HotelResponseDto> searchHotelsWithFacets(HotelSearchCriteria criteria,
+                                                                         Pageable pageable) {
+        log.info("Searching hotels with facets, criteria: {}", criteria);
+
+        return catalogSnapshot.require().searchHotelsWithFacets(criteria, pageable);
+    }
+
+    /**
+     * Подсказывает отели по началу слова в названии, городе или заголовке.
+     * Подсказки берутся из префиксного дерева в памяти без обращения к базе.
+     * @param query введенная часть запроса
+     * @param limit количество подсказок
+     * @return отели по убыванию рейтинга и количества оценок
+     */
+    @Override
+    public List<HotelSuggestionDto> suggestHotels(String query, int limit) {
+        if (limit < 1 || limit > hotelSuggestions.getMaxSuggestions()) {
+            throw new ValidationException("Количество подсказок должно быть от 1 до " + hotelSuggestions.getMaxSuggestions());
+        }
+
+        return hotelSuggestions.suggest(query, limit);
+    }
+
     /**
      * Оценивает отель.
      * @param hotelId ID отеля
@@ -178,9 +261,18 @@ public class HotelServiceImpl implements HotelService {
         hotel.setNumberOfRatings(newNumberOfRatings);
 
         Hotel updatedHotel = hotelRepository.save(hotel);
+        HotelResponseDto response = hotelMapper.toResponseDto(updatedHotel);
+        catalogVersions.hotelChanged(hotelId);
+        catalogSnapshot.putHotel(response);
+        searchResultCache.invalidateHotel(hotelId, updatedHotel.getCity());
         log.info("Hotel {} rated. New rating: {}, total ratings: {}",
                 hotelId, newRating, newNumberOfRatings);
 
-        return hotelMapper.toResponseDto(updatedHotel);
+        return response;
+    }
+
+    private static long weigh(HotelResponseDto hotel) {
+        return 160 + SearchResultCache.weigh(hotel.getName()) + SearchResultCache.weigh(hotel.getTitle())
+                + SearchResultCache.weigh(hotel.getCity()) + SearchResultCache.weigh(hotel.getAddress());
     }
 }
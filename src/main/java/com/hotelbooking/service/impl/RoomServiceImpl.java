@@ -2,24 +2,48 @@ package com.hotelbooking.service.impl;
 
 import com.hotelbooking.dto.request.RoomRequestDto;
 import com.hotelbooking.dto.request.RoomSearchCriteria;
+import com.hotelbooking.dto.response.FacetedSearchResponse;
 import com.hotelbooking.dto.response.PaginatedResponse;
 import com.hotelbooking.dto.response.RoomResponseDto;
 import com.hotelbooking.entity.Hotel;
+import com.hotelbooking.entity.Booking;
 import com.hotelbooking.entity.Room;
+import com.hotelbooking.entity.RoomType;
+import com.hotelbooking.entity.enums.BookingStatus;
 import com.hotelbooking.exception.ResourceNotFoundException;
+import com.hotelbooking.exception.ValidationException;
 import com.hotelbooking.mapper.RoomMapper;
+import com.hotelbooking.repository.BookingRepository;
 import com.hotelbooking.repository.HotelRepository;
+import com.hotelbooking.repository.RoomInventoryRepository;
 import com.hotelbooking.repository.RoomRepository;
+import com.hotelbooking.repository.RoomTypeRepository;
 import com.hotelbooking.service.RoomService;
+import com.hotelbooking.service.booking.RoomHoldRegistry;
+import com.hotelbooking.service.booking.RoomInventoryService;
+import com.hotelbooking.service.catalog.CatalogSearchPool;
+import com.hotelbooking.service.catalog.CatalogSnapshot;
+import com.hotelbooking.service.catalog.CatalogSnapshotManager;
+import com.hotelbooking.service.catalog.CatalogVersions;
+import com.hotelbooking.service.catalog.SearchKey;
+import com.hotelbooking.service.catalog.SearchResultCache;
+import com.hotelbooking.service.catalog.SearchResultCache.SearchScope;
+import com.hotelbooking.util.LongHashSet;
 import com.hotelbooking.util.RoomSpecification;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+
 /**
  * Сервис для работы с комнатами.
  * @author Кирилл_Христич
@@ -32,6 +56,18 @@ public class RoomServiceImpl implements RoomService {
     private final RoomRepository roomRepository;
     private final HotelRepository hotelRepository;
     private final RoomMapper roomMapper;
+    private final RoomTypeRepository roomTypeRepository;
+    private final BookingRepository bookingRepository;
+    private final RoomInventoryRepository roomInventoryRepository;
+    private final RoomInventoryService roomInventoryService;
+    private final RoomHoldRegistry roomHoldRegistry;
+    private final CatalogVersions catalogVersions;
+    private final CatalogSnapshotManager catalogSnapshot;
+    private final CatalogSearchPool catalogSearchPool;
+    private final SearchResultCache searchResultCache;
+
+    @Value("${app.catalog.facets.price-step:50}")
+    private BigDecimal priceFacetStep;
 
     /**
      * Создает новую комнату.
@@ -48,11 +84,17 @@ public class RoomServiceImpl implements RoomService {
 
         Room room = roomMapper.toEntity(roomRequestDto);
         room.setHotel(hotel);
+        room.setRoomType(resolveRoomType(roomRequestDto.getRoomTypeId(), hotel));
 
         Room savedRoom = roomRepository.save(room);
+        refreshTotalRooms(savedRoom.getRoomType());
+        RoomResponseDto response = roomMapper.toResponseDto(savedRoom);
+        catalogVersions.roomChanged(savedRoom.getId());
+        catalogSnapshot.putRoom(response);
+        searchResultCache.invalidateRooms(hotel.getId());
         log.info("Room created with ID: {} for hotel ID: {}", savedRoom.getId(), hotel.getId());
 
-        return roomMapper.toResponseDto(savedRoom);
+        return response;
     }
 
     /**
@@ -73,6 +115,7 @@ public class RoomServiceImpl implements RoomService {
 
     /**
      * Обновляет информацию о комнате.
+     * Незаполненные поля, включая тип номера, остаются без изменений.
      * @param id ID комнаты
      * @param roomRequestDto новые данные комнаты
      * @return обновленная информация о комнате
@@ -85,17 +128,43 @@ public class RoomServiceImpl implements RoomService {
         Room room = roomRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Комната с ID " + id + " не найдена"));
 
-        if (!room.getHotel().getId().equals(roomRequestDto.getHotelId())) {
+        Long previousHotelId = room.getHotel().getId();
+        if (!previousHotelId.equals(roomRequestDto.getHotelId())) {
             Hotel hotel = hotelRepository.findById(roomRequestDto.getHotelId())
                     .orElseThrow(() -> new ResourceNotFoundException("Отель с ID " + roomRequestDto.getHotelId() + " не найден"));
             room.setHotel(hotel);
         }
 
+        RoomType previousType = room.getRoomType();
+        RoomType roomType = roomRequestDto.getRoomTypeId() != null
+                ? resolveRoomType(roomRequestDto.getRoomTypeId(), room.getHotel())
+                : previousType;
+        if (roomType != null && !roomType.getHotel().getId().equals(room.getHotel().getId())) {
+            throw new ValidationException("Тип номера принадлежит другому отелю");
+        }
+        boolean typeChanged = !Objects.equals(
+                previousType != null ? previousType.getId() : null,
+                roomType != null ? roomType.getId() : null);
+        if (typeChanged && !bookingRepository.findByRoomIdAndStatusAndCheckOutDateAfter(
+                id, BookingStatus.CONFIRMED, LocalDate.now()).isEmpty()) {
+            throw new ValidationException("Нельзя изменить тип комнаты с предстоящими бронированиями");
+        }
+        room.setRoomType(roomType);
+
         roomMapper.updateEntity(roomRequestDto, room);
         Room updatedRoom = roomRepository.save(room);
+        if (typeChanged) {
+            refreshTotalRooms(previousType);
+            refreshTotalRooms(roomType);
+        }
+        RoomResponseDto response = roomMapper.toResponseDto(updatedRoom);
+        catalogVersions.roomChanged(id);
+        catalogSnapshot.putRoom(response);
+        searchResultCache.invalidateRooms(previousHotelId);
+        searchResultCache.invalidateRooms(updatedRoom.getHotel().getId());
         log.info("Room with ID {} updated", id);
 
-        return roomMapper.toResponseDto(updatedRoom);
+        return response;
     }
 
     /**
@@ -107,11 +176,24 @@ public class RoomServiceImpl implements RoomService {
     public void deleteRoom(Long id) {
         log.info("Deleting room with ID: {}", id);
 
-        if (!roomRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Комната с ID " + id + " не найдена");
+        Room room = roomRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Комната с ID " + id + " не найдена"));
+
+        List<Booking> upcoming = bookingRepository.findByRoomIdAndStatusAndCheckOutDateAfter(
+                id, BookingStatus.CONFIRMED, LocalDate.now());
+        for (Booking booking : upcoming) {
+            if (booking.getRoomType() != null) {
+                roomInventoryService.release(booking.getRoomType(), booking.getCheckInDate(), booking.getCheckOutDate());
+            }
         }
 
-        roomRepository.deleteById(id);
+        RoomType roomType = room.getRoomType();
+        Long hotelId = room.getHotel().getId();
+        roomRepository.delete(room);
+        refreshTotalRooms(roomType);
+        catalogVersions.roomChanged(id);
+        catalogSnapshot.removeRoom(id);
+        searchResultCache.invalidateRooms(hotelId);
         log.info("Room with ID {} deleted", id);
     }
 
@@ -131,6 +213,10 @@ public class RoomServiceImpl implements RoomService {
 
     /**
      * Ищет доступные комнаты по критериям.
+     * Комнаты, временно удерживаемые на период поиска, исключаются.
+     * Поиск выполняется по снимку каталога в памяти, если снимок загружен;
+     * занятость на период при этом запрашивается отдельно списками ID.
+     * Страницы результатов кэшируются до изменения комнат отеля или бронирования на пересекающиеся даты.
      * @param criteria критерии поиска
      * @param pageable параметры пагинации
      * @return пагинированный список найденных комнат
@@ -140,13 +226,123 @@ public class RoomServiceImpl implements RoomService {
     public PaginatedResponse<RoomResponseDto> searchAvailableRooms(RoomSearchCriteria criteria, Pageable pageable) {
         log.info("Searching available rooms with criteria: {}", criteria);
 
+        SearchKey key = SearchKey.builder(SearchResultCache.ROOMS, pageable)
+                .with("id", criteria.getId())
+                .with("name", criteria.getName())
+                .with("minPrice", criteria.getMinPrice())
+                .with("maxPrice", criteria.getMaxPrice())
+                .with("maxGuests", criteria.getMaxGuests())
+                .with("hotelId", criteria.getHotelId())
+                .with("checkIn", criteria.getCheckInDate())
+                .with("checkOut", criteria.getCheckOutDate())
+                .build();
+        SearchScope scope = SearchScope.rooms(criteria.getHotelId(), criteria.getCheckInDate(), criteria.getCheckOutDate());
+
+        return searchResultCache.get(key, scope, () -> findAvailableRooms(criteria, pageable), RoomServiceImpl::weigh);
+    }
+
+    /**
+     * Ищет доступные комнаты по критериям и считает количество результатов по диапазонам цены и вместимости.
+     * Фасеты считаются одним проходом по снимку каталога вместе со страницей результатов,
+     * поэтому без загруженного снимка поиск недоступен.
+     * @param criteria критерии поиска
+     * @param pageable параметры пагинации
+     * @return страница найденных комнат с фасетами
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public FacetedSearchResponse<RoomResponseDto> searchAvailableRoomsWithFacets(RoomSearchCriteria criteria,
+                                                                                Pageable pageable) {
+        log.info("Searching available rooms with facets, criteria: {}", criteria);
+
+        CatalogSnapshot snapshot = catalogSnapshot.require();
+        return snapshot.searchRoomsWithFacets(criteria, unavailableRoomIds(criteria), soldOutRoomTypeIds(criteria),
+                pageable, priceFacetStep);
+    }
+
+    private PaginatedResponse<RoomResponseDto> findAvailableRooms(RoomSearchCriteria criteria, Pageable pageable) {
+        CatalogSnapshot snapshot = catalogSnapshot.current();
+        if (snapshot != null && snapshot.supportsRoomSearch(criteria, pageable)) {
+            return PaginatedResponse.of(snapshot.searchRooms(criteria, unavailableRoomIds(criteria),
+                    soldOutRoomTypeIds(criteria), pageable, catalogSearchPool));
+        }
+
+        LongHashSet heldRoomIds = criteria.getCheckInDate() != null && criteria.getCheckOutDate() != null
+                ? roomHoldRegistry.getHeldRoomIds(criteria.getCheckInDate(), criteria.getCheckOutDate())
+                : new LongHashSet();
+
         Specification<Room> spec = RoomSpecification.searchRooms(
                 criteria.getId(), criteria.getName(), criteria.getMinPrice(),
                 criteria.getMaxPrice(), criteria.getMaxGuests(), criteria.getHotelId(),
-                criteria.getCheckInDate(), criteria.getCheckOutDate()
+                criteria.getCheckInDate(), criteria.getCheckOutDate(), heldRoomIds.toList()
         );
 
         Page<Room> roomPage = roomRepository.findAll(spec, pageable);
         return PaginatedResponse.of(roomPage.map(roomMapper::toResponseDto));
     }
+
+    /**
+     * Находит комнаты, недоступные для поиска по снимку каталога: для периода с датой выезда позже даты заезда
+     * это комнаты с пересекающимися бронированиями и удерживаемые комнаты, как в RoomSpecification.
+     * При поиске по отелю запрашиваются бронирования только его комнат.
+     */
+    private LongHashSet unavailableRoomIds(RoomSearchCriteria criteria) {
+        if (!hasStayPeriod(criteria)) {
+            return new LongHashSet();
+        }
+
+        LocalDate checkIn = criteria.getCheckInDate();
+        LocalDate checkOut = criteria.getCheckOutDate();
+        LocalDate earliestCheckIn = checkIn.minusDays(Booking.MAX_STAY_DAYS);
+        LongHashSet unavailableRoomIds = LongHashSet.of(criteria.getHotelId() != null
+                ? bookingRepository.findBookedRoomIdsInHotel(criteria.getHotelId(), checkIn, checkOut, earliestCheckIn)
+                : bookingRepository.findBookedRoomIds(checkIn, checkOut, earliestCheckIn));
+        unavailableRoomIds.addAll(roomHoldRegistry.getHeldRoomIds(checkIn, checkOut));
+        return unavailableRoomIds;
+    }
+
+    /**
+     * Находит типы номеров, распроданные хотя бы на одну ночь периода поиска.
+     */
+    private LongHashSet soldOutRoomTypeIds(RoomSearchCriteria criteria) {
+        return hasStayPeriod(criteria)
+                ? LongHashSet.of(roomInventoryRepository.findSoldOutRoomTypeIds(criteria.getCheckInDate(), criteria.getCheckOutDate()))
+                : new LongHashSet();
+    }
+
+    private static boolean hasStayPeriod(RoomSearchCriteria criteria) {
+        return criteria.getCheckInDate() != null && criteria.getCheckOutDate() != null
+                && criteria.getCheckInDate().isBefore(criteria.getCheckOutDate());
+    }
+
+    /**
+     * Находит тип номера и проверяет, что он принадлежит отелю комнаты.
+     * @param roomTypeId ID типа номера или null
+     * @param hotel отель комнаты
+     * @return тип номера или null
+     */
+    private RoomType resolveRoomType(Long roomTypeId, Hotel hotel) {
+        if (roomTypeId == null) {
+            return null;
+        }
+
+        RoomType roomType = roomTypeRepository.findById(roomTypeId)
+                .orElseThrow(() -> new ResourceNotFoundException("Тип номера с ID " + roomTypeId + " не найден"));
+        if (!roomType.getHotel().getId().equals(hotel.getId())) {
+            throw new ValidationException("Тип номера принадлежит другому отелю");
+        }
+        return roomType;
+    }
+
+    private static long weigh(RoomResponseDto room) {
+        return 160 + SearchResultCache.weigh(room.getName()) + SearchResultCache.weigh(room.getDescription())
+                + SearchResultCache.weigh(room.getNumber()) + SearchResultCache.weigh(room.getHotelName())
+                + SearchResultCache.weigh(room.getRoomTypeName());
+    }
+
+    private void refreshTotalRooms(RoomType roomType) {
+        if (roomType != null) {
+            roomTypeRepository.refreshTotalRooms(roomType.getId());
+        }
+    }
 }
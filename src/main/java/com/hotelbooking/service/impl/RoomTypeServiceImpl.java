@@ -0,0 +1,118 @@
+package com.hotelbooking.service.impl;
+
+import com.hotelbooking.dto.request.RoomTypeRequestDto;
+import com.hotelbooking.dto.response.RoomTypeAvailabilityDto;
+import com.hotelbooking.dto.response.RoomTypeResponseDto;
+import com.hotelbooking.entity.Hotel;
+import com.hotelbooking.entity.RoomType;
+import com.hotelbooking.exception.ResourceNotFoundException;
+import com.hotelbooking.exception.ValidationException;
+import com.hotelbooking.mapper.RoomTypeMapper;
+import com.hotelbooking.repository.HotelRepository;
+import com.hotelbooking.repository.RoomTypeRepository;
+import com.hotelbooking.service.RoomTypeService;
+import com.hotelbooking.service.booking.RoomInventoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сервис для работы с типами номеров.
+ * @author Кирилл_Христич
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RoomTypeServiceImpl implements RoomTypeService {
+
+    private final RoomTypeRepository roomTypeRepository;
+    private final HotelRepository hotelRepository;
+    private final RoomTypeMapper roomTypeMapper;
+    private final RoomInventoryService roomInventoryService;
+
+    @Value("${app.booking.max-stay-days:30}")
+    private int maxStayDays;
+
+    /**
+     * Создает новый тип номера.
+     * @param roomTypeRequestDto данные типа номера
+     * @return информация о созданном типе номера
+     */
+    @Override
+    @Transactional
+    public RoomTypeResponseDto createRoomType(RoomTypeRequestDto roomTypeRequestDto) {
+        log.info("Creating room type {} for hotel ID: {}", roomTypeRequestDto.getName(), roomTypeRequestDto.getHotelId());
+
+        Hotel hotel = hotelRepository.findById(roomTypeRequestDto.getHotelId())
+                .orElseThrow(() -> new ResourceNotFoundException("Отель с ID " + roomTypeRequestDto.getHotelId() + " не найден"));
+
+        RoomType roomType = roomTypeMapper.toEntity(roomTypeRequestDto);
+        roomType.setHotel(hotel);
+
+        RoomType savedRoomType = roomTypeRepository.save(roomType);
+        log.info("Room type created with ID: {}", savedRoomType.getId());
+
+        return roomTypeMapper.toResponseDto(savedRoomType);
+    }
+
+    /**
+     * Получает типы номеров отеля.
+     * @param hotelId ID отеля
+     * @return список типов номеров
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<RoomTypeResponseDto> getHotelRoomTypes(Long hotelId) {
+        return roomTypeRepository.findByHotelIdOrderByPriceAsc(hotelId).stream()
+                .map(roomTypeMapper::toResponseDto)
+                .toList();
+    }
+
+    /**
+     * Получает доступность типов номеров отеля на период.
+     * Использует только строки занятости ночей периода, поэтому стоимость не зависит
+     * от количества комнат и бронирований.
+     * @param hotelId ID отеля
+     * @param checkIn дата заезда
+     * @param checkOut дата выезда
+     * @param guests количество гостей или null
+     * @return доступность типов номеров
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<RoomTypeAvailabilityDto> getAvailability(Long hotelId, LocalDate checkIn, LocalDate checkOut,
+                                                         Integer guests) {
+        if (!checkIn.isBefore(checkOut)) {
+            throw new ValidationException("Дата заезда должна быть раньше даты выезда");
+        }
+        if (ChronoUnit.DAYS.between(checkIn, checkOut) > maxStayDays) {
+            throw new ValidationException("Длительность проживания не может превышать " + maxStayDays + " ночей");
+        }
+
+        List<RoomType> roomTypes = roomTypeRepository.findByHotelIdOrderByPriceAsc(hotelId).stream()
+                .filter(roomType -> guests == null || roomType.getMaxGuests() >= guests)
+                .toList();
+        Map<Long, int[]> availability = roomInventoryService.getNightlyAvailability(roomTypes, checkIn, checkOut);
+
+        return roomTypes.stream()
+                .map(roomType -> {
+                    int[] nights = availability.get(roomType.getId());
+                    Map<LocalDate, Integer> nightly = new LinkedHashMap<>();
+                    int availableRooms = nights.length == 0 ? 0 : Integer.MAX_VALUE;
+                    for (int night = 0; night < nights.length; night++) {
+                        nightly.put(checkIn.plusDays(night), nights[night]);
+                        availableRooms = Math.min(availableRooms, nights[night]);
+                    }
+                    return new RoomTypeAvailabilityDto(roomTypeMapper.toResponseDto(roomType), availableRooms, nightly);
+                })
+                .toList();
+    }
+}
@@ -1,6 +1,10 @@
 package com.hotelbooking.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.hotelbooking.dto.request.UserRequestDto;
+import com.hotelbooking.dto.response.KeysetResponse;
+import com.hotelbooking.dto.response.PaginatedResponse;
 import com.hotelbooking.dto.response.UserResponseDto;
 import com.hotelbooking.entity.enums.Role;
 import com.hotelbooking.entity.User;
@@ -9,32 +13,65 @@ import com.hotelbooking.exception.ResourceNotFoundException;
 import com.hotelbooking.exception.ValidationException;
 import com.hotelbooking.mapper.UserMapper;
 import com.hotelbooking.repository.UserRepository;
+import com.hotelbooking.security.AuthenticatedUser;
 import com.hotelbooking.service.UserService;
 import com.hotelbooking.service.statistics.StatisticsService;
-import lombok.RequiredArgsConstructor;
+import com.hotelbooking.service.user.UserIdentityFilter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Сервис для работы с пользователями.
+ * Пароли хешируются до открытия транзакции: ожидание ограниченного пула хеширования
+ * не удерживает соединение с базой.
  * @author Кирилл_Христич
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class UserServiceImpl implements UserService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
     private final StatisticsService statisticsService;
+    private final UserIdentityFilter userIdentityFilter;
+    private final ObjectWriter ndjsonWriter;
+    private final TransactionTemplate transaction;
+
+    public UserServiceImpl(UserRepository userRepository,
+                           UserMapper userMapper,
+                           PasswordEncoder passwordEncoder,
+                           StatisticsService statisticsService,
+                           UserIdentityFilter userIdentityFilter,
+                           ObjectMapper objectMapper,
+                           PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.passwordEncoder = passwordEncoder;
+        this.statisticsService = statisticsService;
+        this.userIdentityFilter = userIdentityFilter;
+        this.ndjsonWriter = objectMapper.writerFor(UserResponseDto.class);
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
 
     /**
      * Создает нового пользователя.
@@ -42,20 +79,31 @@ public class UserServiceImpl implements UserService {
      * @return информация о созданном пользователе
      */
     @Override
-    @Transactional
     public UserResponseDto createUser(UserRequestDto userRequestDto) {
         log.info("Creating new user: {}", userRequestDto.getUsername());
 
         validateUserCreation(userRequestDto);
+        String encodedPassword = passwordEncoder.encode(userRequestDto.getPassword());
 
+        return transaction.execute(status -> persistNewUser(userRequestDto, encodedPassword));
+    }
+
+    /**
+     * Сохраняет нового пользователя с готовым хешем пароля.
+     * @param userRequestDto данные пользователя
+     * @param encodedPassword хеш пароля
+     * @return информация о созданном пользователе
+     */
+    private UserResponseDto persistNewUser(UserRequestDto userRequestDto, String encodedPassword) {
         User user = userMapper.toEntity(userRequestDto);
-        user.setPassword(passwordEncoder.encode(userRequestDto.getPassword()));
+        user.setPassword(encodedPassword);
 
         if (user.getRole() == null) {
             user.setRole(Role.ROLE_USER);
         }
 
-        User savedUser = userRepository.save(user);
+        User savedUser = saveUnique(user);
+        userIdentityFilter.add(savedUser.getUsername(), savedUser.getEmail());
         log.info("User created with ID: {}", savedUser.getId());
 
         sendUserRegistrationEvent(savedUser);
@@ -83,45 +131,61 @@ public class UserServiceImpl implements UserService {
      * Обновляет информацию о пользователе
      * @param id ID пользователя
      * @param userRequestDto новые данные пользователя
-     * @param currentUsername имя текущего пользователя
+     * @param currentUser текущий пользователь
      * @return обновленная информация о пользователе
      */
     @Override
-    @Transactional
-    public UserResponseDto updateUser(Long id, UserRequestDto userRequestDto, String currentUsername) {
-        log.info("Updating user with ID: {} by user: {}", id, currentUsername);
+    public UserResponseDto updateUser(Long id, UserRequestDto userRequestDto, AuthenticatedUser currentUser) {
+        log.info("Updating user with ID: {} by user: {}", id, currentUser.username());
+
+        if (!currentUser.id().equals(id) && !currentUser.isAdmin()) {
+            throw new AccessDeniedException("Недостаточно прав для обновления пользователя");
+        }
+
+        String encodedPassword = userRequestDto.getPassword() != null && !userRequestDto.getPassword().isEmpty()
+                ? passwordEncoder.encode(userRequestDto.getPassword())
+                : null;
 
-        User currentUser = userRepository.findByUsername(currentUsername)
-                .orElseThrow(() -> new ResourceNotFoundException("Текущий пользователь не найден"));
+        return transaction.execute(status -> persistUserUpdate(id, userRequestDto, encodedPassword, currentUser));
+    }
 
+    /**
+     * Применяет изменения пользователя с готовым хешем нового пароля.
+     * @param id ID пользователя
+     * @param userRequestDto новые данные пользователя
+     * @param encodedPassword хеш нового пароля или null, если пароль не меняется
+     * @param currentUser текущий пользователь
+     * @return обновленная информация о пользователе
+     */
+    private UserResponseDto persistUserUpdate(Long id, UserRequestDto userRequestDto, String encodedPassword,
+                                              AuthenticatedUser currentUser) {
         User userToUpdate = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Пользователь с ID " + id + " не найден"));
 
-        if (!currentUser.getId().equals(id) && !currentUser.getRole().equals(Role.ROLE_ADMIN)) {
-            throw new AccessDeniedException("Недостаточно прав для обновления пользователя");
-        }
-
         if (!userToUpdate.getUsername().equals(userRequestDto.getUsername()) &&
-                userRepository.existsByUsername(userRequestDto.getUsername())) {
+                userIdentityFilter.isTaken(userRequestDto.getUsername(), null,
+                        () -> userRepository.existsByUsername(userRequestDto.getUsername()))) {
             throw new ValidationException("Имя пользователя уже занято");
         }
 
         if (!userToUpdate.getEmail().equals(userRequestDto.getEmail()) &&
-                userRepository.existsByEmail(userRequestDto.getEmail())) {
+                userIdentityFilter.isTaken(null, userRequestDto.getEmail(),
+                        () -> userRepository.existsByEmail(userRequestDto.getEmail()))) {
             throw new ValidationException("Email уже зарегистрирован");
         }
 
-        if (!currentUser.getRole().equals(Role.ROLE_ADMIN)) {
+        if (!currentUser.isAdmin()) {
             userRequestDto.setRole(userToUpdate.getRole());
         }
 
         userMapper.updateEntity(userRequestDto, userToUpdate);
 
-        if (userRequestDto.getPassword() != null && !userRequestDto.getPassword().isEmpty()) {
-            userToUpdate.setPassword(passwordEncoder.encode(userRequestDto.getPassword()));
+        if (encodedPassword != null) {
+            userToUpdate.setPassword(encodedPassword);
         }
 
-        User updatedUser = userRepository.save(userToUpdate);
+        User updatedUser = saveUnique(userToUpdate);
+        userIdentityFilter.add(updatedUser.getUsername(), updatedUser.getEmail());
         log.info("User with ID {} updated", id);
 
         return userMapper.toResponseDto(updatedUser);
@@ -130,17 +194,14 @@ public class UserServiceImpl implements UserService {
     /**
      * Удаляет пользователя.
      * @param id ID пользователя
-     * @param currentUsername имя текущего пользователя
+     * @param currentUser текущий пользователь
      */
     @Override
     @Transactional
-    public void deleteUser(Long id, String currentUsername) {
-        log.info("Deleting user with ID: {} by user: {}", id, currentUsername);
+    public void deleteUser(Long id, AuthenticatedUser currentUser) {
+        log.info("Deleting user with ID: {} by user: {}", id, currentUser.username());
 
-        User currentUser = userRepository.findByUsername(currentUsername)
-                .orElseThrow(() -> new ResourceNotFoundException("Текущий пользователь не найден"));
-
-        if (!currentUser.getId().equals(id) && !currentUser.getRole().equals(Role.ROLE_ADMIN)) {
+        if (!currentUser.id().equals(id) && !currentUser.isAdmin()) {
             throw new AccessDeniedException("Недостаточно прав для удаления пользователя");
         }
 
@@ -153,17 +214,81 @@ public class UserServiceImpl implements UserService {
     }
 
     /**
-     * Получает всех пользователей.
-     * @return список всех пользователей
+     * Получает страницу пользователей.
+     * Пользователи выбираются сразу в DTO, без загрузки сущностей и их бронирований.
+     * @param role роль пользователя или null для всех ролей
+     * @param page номер страницы
+     * @param size размер страницы
+     * @return пагинированный список пользователей
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PaginatedResponse<UserResponseDto> getUsers(Role role, int page, int size) {
+        log.info("Getting users page {} of size {} with role {}", page, size, role);
+
+        validatePageSize(size);
+        if (page < 0) {
+            throw new ValidationException("Номер страницы не может быть отрицательным");
+        }
+
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id").ascending());
+        Page<UserResponseDto> users = role != null
+                ? userRepository.findAllResponsesByRole(role, pageable)
+                : userRepository.findAllResponses(pageable);
+
+        return PaginatedResponse.of(users);
+    }
+
+    /**
+     * Получает страницу пользователей, следующих за курсором, в порядке ID.
+     * Запрос продолжает чтение индекса с курсора, поэтому не пропускает строки предыдущих страниц
+     * и не считает общее количество пользователей.
+     * @param role роль пользователя или null для всех ролей
+     * @param cursor ID последнего пользователя предыдущей страницы или null для первой страницы
+     * @param size размер страницы
+     * @return страница пользователей с курсором следующей страницы
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetResponse<UserResponseDto> getUsersAfter(Role role, Long cursor, int size) {
+        log.info("Getting users after ID {} of size {} with role {}", cursor, size, role);
+
+        validatePageSize(size);
+        long afterId = cursor != null ? cursor : 0L;
+        Pageable limit = PageRequest.ofSize(size);
+
+        List<UserResponseDto> users = role != null
+                ? userRepository.findResponsesByRoleAfter(role, afterId, limit)
+                : userRepository.findResponsesAfter(afterId, limit);
+
+        Long lastId = users.isEmpty() ? null : users.get(users.size() - 1).getId();
+        return KeysetResponse.of(users, size, lastId);
+    }
+
+    /**
+     * Выгружает пользователей в формате NDJSON.
+     * Строки читаются курсором базы и записываются по одной, поэтому объем памяти
+     * не зависит от количества пользователей.
+     * @param role роль пользователя или null для всех ролей
+     * @param out выходной поток
+     * @throws IOException если не удалось записать данные
      */
     @Override
     @Transactional(readOnly = true)
-    public List<UserResponseDto> getAllUsers() {
-        log.info("Getting all users");
+    public void exportUsers(Role role, OutputStream out) throws IOException {
+        log.info("Exporting users with role {}", role);
+
+        try (Stream<UserResponseDto> users = role != null
+                ? userRepository.streamAllResponsesByRole(role)
+                : userRepository.streamAllResponses()) {
+            Iterator<UserResponseDto> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                out.write(ndjsonWriter.writeValueAsBytes(iterator.next()));
+                out.write('\n');
+            }
+        }
 
-        return userRepository.findAll().stream()
-                .map(userMapper::toResponseDto)
-                .collect(Collectors.toList());
+        out.flush();
     }
 
     /**
@@ -184,13 +309,25 @@ public class UserServiceImpl implements UserService {
 
     /**
      * Проверяет существование пользователя по имени пользователя или email.
+     * Запрос к базе выполняется только для возможных совпадений фильтра занятых имен.
      * @param username имя пользователя
      * @param email email пользователя
      * @return true если пользователь существует
      */
     @Override
     public boolean existsByUsernameOrEmail(String username, String email) {
-        return userRepository.existsByUsernameOrEmail(username, email);
+        return userIdentityFilter.isTaken(username, email,
+                () -> userRepository.existsByUsernameOrEmail(username, email));
+    }
+
+    /**
+     * Проверяет размер страницы.
+     * @param size размер страницы
+     */
+    private void validatePageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
     }
 
     /**
@@ -203,6 +340,21 @@ public class UserServiceImpl implements UserService {
         }
     }
 
+    /**
+     * Сохраняет пользователя, преобразуя нарушение уникальности имени или email в ошибку валидации.
+     * Нарушение возможно, если пользователь создан другим экземпляром приложения
+     * после последнего заполнения фильтра.
+     * @param user пользователь
+     * @return сохраненный пользователь
+     */
+    private User saveUnique(User user) {
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new ValidationException("Пользователь с таким именем или email уже существует");
+        }
+    }
+
     /**
      * Отправляет событие о регистрации пользователя.
      * @param user созданный пользователь
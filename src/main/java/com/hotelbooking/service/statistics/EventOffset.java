@@ -0,0 +1,29 @@
+package com.hotelbooking.service.statistics;
+
+/**
+ * Позиция события в Kafka. В пределах партиции смещения возрастают, поэтому по последнему учтенному
+ * смещению партиции можно узнать повторно доставленное событие.
+ * @param topic топик
+ * @param partition партиция
+ * @param offset смещение в партиции
+ * @author Кирилл_Христич
+ */
+public record EventOffset(String topic, int partition, long offset) {
+
+    /**
+     * Получает ключ партиции, пригодный как имя поля документа MongoDB.
+     * @return ключ партиции
+     */
+    public String partitionKey() {
+        return topic.replace('.', '_') + "-" + partition;
+    }
+
+    /**
+     * Получает ID исходной записи статистики для события. Повторная доставка события
+     * перезаписывает ту же запись, поэтому пересчет агрегатов совпадает с агрегатами, накопленными на лету.
+     * @return ID записи
+     */
+    public String recordId() {
+        return partitionKey() + "-" + offset;
+    }
+}
@@ -0,0 +1,34 @@
+package com.hotelbooking.service.statistics;
+
+/**
+ * Перечисление форматов экспорта статистики.
+ * @author Кирилл_Христич
+ */
+public enum ExportFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    /**
+     * Получает MIME тип формата.
+     * @return MIME тип
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Получает расширение файла формата.
+     * @return расширение файла
+     */
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -5,6 +5,8 @@ import com.hotelbooking.event.UserRegistrationEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 
 /**
@@ -17,30 +19,43 @@ import org.springframework.stereotype.Service;
 public class KafkaStatisticsConsumer {
 
     private final StatisticsService statisticsService;
+    private final PartitionAggregateStore partitionAggregateStore;
 
     /**
      * Обрабатывает события регистрации пользователей.
      * @param event событие регистрации пользователя
+     * @param partition партиция, из которой получено событие
+     * @param offset смещение события в партиции
      */
-    @KafkaListener(topics = "user-registration-events", groupId = "statistics-group")
-    public void consumeUserRegistrationEvent(UserRegistrationEvent event) {
+    @KafkaListener(topics = StatisticsService.USER_REGISTRATION_TOPIC, groupId = "statistics-group")
+    public void consumeUserRegistrationEvent(UserRegistrationEvent event,
+                                             @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+                                             @Header(KafkaHeaders.OFFSET) long offset) {
         try {
-            log.info("Received user registration event: {}", event);
-            statisticsService.saveUserRegistrationEvent(event);
+            log.info("Received user registration event from partition {}: {}", partition, event);
+            EventOffset eventOffset = new EventOffset(StatisticsService.USER_REGISTRATION_TOPIC, partition, offset);
+            statisticsService.saveUserRegistrationEvent(event, eventOffset);
+            partitionAggregateStore.applyUserRegistrationEvent(eventOffset, event);
         } catch (Exception e) {
             log.error("Error processing user registration event", e);
         }
     }
 
     /**
-     * Обрабатывает события создания бронирований.
-     * @param event событие создания бронирования
+     * Обрабатывает события создания и отмены бронирований.
+     * @param event событие бронирования
+     * @param partition партиция, из которой получено событие
+     * @param offset смещение события в партиции
      */
-    @KafkaListener(topics = "booking-events", groupId = "statistics-group")
-    public void consumeBookingEvent(BookingEvent event) {
+    @KafkaListener(topics = StatisticsService.BOOKING_EVENTS_TOPIC, groupId = "statistics-group")
+    public void consumeBookingEvent(BookingEvent event,
+                                    @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+                                    @Header(KafkaHeaders.OFFSET) long offset) {
         try {
-            log.info("Received booking event: {}", event);
-            statisticsService.saveBookingEvent(event);
+            log.info("Received booking event from partition {}: {}", partition, event);
+            EventOffset eventOffset = new EventOffset(StatisticsService.BOOKING_EVENTS_TOPIC, partition, offset);
+            statisticsService.saveBookingEvent(event, eventOffset);
+            partitionAggregateStore.applyBookingEvent(eventOffset, event);
         } catch (Exception e) {
             log.error("Error processing booking event", e);
         }
@@ -0,0 +1,261 @@
+package com.hotelbooking.service.statistics;
+
+import com.hotelbooking.event.BookingEvent;
+import com.hotelbooking.event.UserRegistrationEvent;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Хранилище агрегатов статистики, которые ведутся локально для каждой партиции Kafka.
+ * События бронирования ключуются по ID комнаты, события регистрации - по ID пользователя,
+ * поэтому каждую партицию обрабатывает ровно один поток консьюмера и агрегаты партиции
+ * обновляются без межпоточной координации.
+ * Поток консьюмера периодически и при отзыве партиции сохраняет снимок ее агрегатов вместе со смещением
+ * последнего учтенного события. При назначении партиции агрегаты восстанавливаются из снимка,
+ * а чтение партиции продолжается со следующего за снимком смещения; повторно прочитанные события
+ * сохраняются в статистику идемпотентно. Партиция без снимка начинает счет с текущего смещения группы.
+ * @author Кирилл_Христич
+ */
+@Component
+@Slf4j
+public class PartitionAggregateStore {
+
+    public static final String COLLECTION = "statistics_partition_aggregates";
+
+    private static final Set<String> TOPICS =
+            Set.of(StatisticsService.BOOKING_EVENTS_TOPIC, StatisticsService.USER_REGISTRATION_TOPIC);
+    private static final String OFFSET = "offset";
+    private static final String ROOM_BOOKINGS = "room_bookings";
+    private static final String HOTEL_BOOKINGS = "hotel_bookings";
+    private static final String HOTEL_NIGHTS = "hotel_nights";
+    private static final String REGISTRATIONS_BY_ROLE = "registrations_by_role";
+
+    private final MongoTemplate mongoTemplate;
+    private final long snapshotIntervalMillis;
+    private final ConcurrentMap<TopicPartition, PartitionAggregates> partitions = new ConcurrentHashMap<>();
+
+    public PartitionAggregateStore(MongoTemplate mongoTemplate,
+                                   @Value("${app.statistics.partition-snapshot-interval:30s}") Duration snapshotInterval) {
+        this.mongoTemplate = mongoTemplate;
+        this.snapshotIntervalMillis = snapshotInterval.toMillis();
+    }
+
+    /**
+     * Учитывает событие бронирования в агрегатах партиции.
+     * Отмена вычитает бронирование из счетчиков, поэтому агрегаты отражают действующие бронирования.
+     * Комната назначается при создании бронирования, в том числе по типу номера, поэтому событие отмены
+     * имеет тот же ключ, что и событие создания, и вычитается в той же партиции.
+     * @param offset позиция события в Kafka
+     * @param event событие бронирования
+     */
+    public void applyBookingEvent(EventOffset offset, BookingEvent event) {
+        TopicPartition topicPartition = new TopicPartition(offset.topic(), offset.partition());
+        PartitionAggregates aggregates = forPartition(topicPartition);
+        long sign = BookingEvent.BOOKING_CANCELLED.equals(event.getEventType()) ? -1 : 1;
+        long nights = ChronoUnit.DAYS.between(event.getCheckInDate(), event.getCheckOutDate());
+
+        aggregates.roomBookings.merge(event.getRoomId(), sign, Long::sum);
+        if (event.getHotelId() != null) {
+            aggregates.hotelBookings.merge(event.getHotelId(), sign, Long::sum);
+            aggregates.hotelNights.merge(event.getHotelId(), sign * nights, Long::sum);
+        }
+        applied(topicPartition, aggregates, offset.offset());
+    }
+
+    /**
+     * Учитывает событие регистрации пользователя в агрегатах партиции.
+     * @param offset позиция события в Kafka
+     * @param event событие регистрации
+     */
+    public void applyUserRegistrationEvent(EventOffset offset, UserRegistrationEvent event) {
+        TopicPartition topicPartition = new TopicPartition(offset.topic(), offset.partition());
+        PartitionAggregates aggregates = forPartition(topicPartition);
+        aggregates.registrationsByRole.merge(String.valueOf(event.getRole()), 1L, Long::sum);
+        applied(topicPartition, aggregates, offset.offset());
+    }
+
+    /**
+     * Восстанавливает агрегаты назначенных партиций из снимков и переводит консьюмер
+     * на первое событие после снимка. Вызывается в потоке консьюмера.
+     * @param consumer консьюмер, которому назначены партиции
+     * @param assigned назначенные партиции
+     */
+    public void restore(Consumer<?, ?> consumer, Collection<TopicPartition> assigned) {
+        for (TopicPartition topicPartition : assigned) {
+            if (!TOPICS.contains(topicPartition.topic())) {
+                continue;
+            }
+
+            Document snapshot = mongoTemplate.getCollection(COLLECTION)
+                    .find(Filters.eq("_id", snapshotId(topicPartition))).first();
+            if (snapshot == null) {
+                partitions.put(topicPartition, new PartitionAggregates());
+                log.info("No aggregate snapshot for partition {}, counting from the committed offset", topicPartition);
+                continue;
+            }
+
+            PartitionAggregates aggregates = fromDocument(snapshot);
+            partitions.put(topicPartition, aggregates);
+            consumer.seek(topicPartition, aggregates.offset + 1);
+            log.info("Restored aggregates of partition {} at offset {}", topicPartition, aggregates.offset);
+        }
+    }
+
+    /**
+     * Сохраняет снимки партиций перед их отзывом. Вызывается в потоке консьюмера.
+     * @param revoked отзываемые партиции
+     */
+    public void snapshot(Collection<TopicPartition> revoked) {
+        for (TopicPartition topicPartition : revoked) {
+            PartitionAggregates aggregates = partitions.get(topicPartition);
+            if (aggregates != null) {
+                save(topicPartition, aggregates);
+            }
+        }
+    }
+
+    /**
+     * Сбрасывает состояние партиций, которые были отозваны у консьюмера при ребалансировке.
+     * @param revoked отозванные партиции
+     */
+    public void release(Collection<TopicPartition> revoked) {
+        revoked.forEach(partitions::remove);
+        log.info("Released partition aggregates: {}", revoked);
+    }
+
+    /**
+     * Получает количество действующих бронирований комнаты.
+     * @param roomId ID комнаты
+     * @return количество бронирований
+     */
+    public long getRoomBookings(Long roomId) {
+        return partitions.values().stream()
+                .mapToLong(aggregates -> aggregates.roomBookings.getOrDefault(roomId, 0L))
+                .sum();
+    }
+
+    /**
+     * Получает количество бронирований по отелям.
+     * @return карта ID отеля - количество бронирований
+     */
+    public Map<Long, Long> getHotelBookings() {
+        return collect(aggregates -> aggregates.hotelBookings);
+    }
+
+    /**
+     * Получает количество забронированных ночей по отелям.
+     * @return карта ID отеля - количество ночей
+     */
+    public Map<Long, Long> getHotelNights() {
+        return collect(aggregates -> aggregates.hotelNights);
+    }
+
+    /**
+     * Получает количество регистраций по ролям.
+     * @return карта роль - количество регистраций
+     */
+    public Map<String, Long> getRegistrationsByRole() {
+        return collect(aggregates -> aggregates.registrationsByRole);
+    }
+
+    private PartitionAggregates forPartition(TopicPartition topicPartition) {
+        return partitions.computeIfAbsent(topicPartition, tp -> new PartitionAggregates());
+    }
+
+    /**
+     * Запоминает смещение учтенного события и сохраняет снимок, если с прошлого прошел интервал.
+     */
+    private void applied(TopicPartition topicPartition, PartitionAggregates aggregates, long offset) {
+        aggregates.offset = offset;
+        if (System.currentTimeMillis() - aggregates.savedAt >= snapshotIntervalMillis) {
+            save(topicPartition, aggregates);
+        }
+    }
+
+    private void save(TopicPartition topicPartition, PartitionAggregates aggregates) {
+        if (aggregates.offset < 0) {
+            return;
+        }
+        try {
+            mongoTemplate.getCollection(COLLECTION).replaceOne(Filters.eq("_id", snapshotId(topicPartition)),
+                    toDocument(topicPartition, aggregates), new ReplaceOptions().upsert(true));
+            aggregates.savedAt = System.currentTimeMillis();
+        } catch (Exception e) {
+            log.warn("Failed to save aggregate snapshot of partition {}", topicPartition, e);
+        }
+    }
+
+    private static String snapshotId(TopicPartition topicPartition) {
+        return topicPartition.topic() + "-" + topicPartition.partition();
+    }
+
+    private static Document toDocument(TopicPartition topicPartition, PartitionAggregates aggregates) {
+        return new Document("_id", snapshotId(topicPartition))
+                .append(OFFSET, aggregates.offset)
+                .append(ROOM_BOOKINGS, toDocument(aggregates.roomBookings))
+                .append(HOTEL_BOOKINGS, toDocument(aggregates.hotelBookings))
+                .append(HOTEL_NIGHTS, toDocument(aggregates.hotelNights))
+                .append(REGISTRATIONS_BY_ROLE, toDocument(aggregates.registrationsByRole));
+    }
+
+    private static Document toDocument(Map<?, Long> counters) {
+        Document document = new Document();
+        counters.forEach((key, value) -> document.append(String.valueOf(key), value));
+        return document;
+    }
+
+    private static PartitionAggregates fromDocument(Document snapshot) {
+        PartitionAggregates aggregates = new PartitionAggregates();
+        aggregates.offset = snapshot.getLong(OFFSET);
+        readCounters(snapshot, ROOM_BOOKINGS, Long::valueOf, aggregates.roomBookings);
+        readCounters(snapshot, HOTEL_BOOKINGS, Long::valueOf, aggregates.hotelBookings);
+        readCounters(snapshot, HOTEL_NIGHTS, Long::valueOf, aggregates.hotelNights);
+        readCounters(snapshot, REGISTRATIONS_BY_ROLE, Function.identity(), aggregates.registrationsByRole);
+        return aggregates;
+    }
+
+    private static <K> void readCounters(Document snapshot, String field, Function<String, K> key,
+                                         Map<K, Long> target) {
+        Document counters = snapshot.get(field, Document.class);
+        if (counters != null) {
+            counters.forEach((name, value) -> target.put(key.apply(name), ((Number) value).longValue()));
+        }
+    }
+
+    private <K> Map<K, Long> collect(Function<PartitionAggregates, Map<K, Long>> extractor) {
+        Map<K, Long> result = new HashMap<>();
+        partitions.values().forEach(aggregates -> extractor.apply(aggregates).forEach(
+                (key, value) -> result.merge(key, value, Long::sum)));
+        return result;
+    }
+
+    /**
+     * Агрегаты одной партиции. Изменяются только потоком, которому назначена партиция,
+     * конкурентные карты нужны лишь для безопасного чтения из других потоков.
+     */
+    private static class PartitionAggregates {
+        private final Map<Long, Long> roomBookings = new ConcurrentHashMap<>();
+        private final Map<Long, Long> hotelBookings = new ConcurrentHashMap<>();
+        private final Map<Long, Long> hotelNights = new ConcurrentHashMap<>();
+        private final Map<String, Long> registrationsByRole = new ConcurrentHashMap<>();
+        private long offset = -1;
+        private long savedAt;
+    }
+}
@@ -0,0 +1,191 @@
+package com.hotelbooking.service.statistics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelbooking.entity.enums.RollupGranularity;
+import com.hotelbooking.entity.mongo.StatisticsRecord;
+import com.hotelbooking.entity.mongo.StatisticsRollup;
+import com.hotelbooking.repository.mongo.StatisticsRollupRepository;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Архивный уровень хранения статистики.
+ * Исходные события старше заданного возраста выгружаются посуточно в сжатые NDJSON файлы
+ * только после того, как для суток существуют агрегаты, и затем удаляются из коллекции.
+ * Для time-series коллекции удаление выполняет TTL коллекции (app.statistics.ttl-days),
+ * который должен быть больше возраста архивации.
+ * Последние заархивированные сутки сохраняются в коллекции statistics_archive_state, и следующий
+ * запуск начинает со следующих суток, а не с самого старого события.
+ * @author Кирилл_Христич
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StatisticsArchiver {
+
+    private static final String STATE_COLLECTION = "statistics_archive_state";
+    private static final String STATE_ID = "archive";
+    private static final String ARCHIVED_THROUGH = "archived_through";
+
+    private final MongoTemplate mongoTemplate;
+    private final StatisticsRollupRepository rollupRepository;
+    private final StatisticsRollupService statisticsRollupService;
+    private final StatisticsStorageManager statisticsStorageManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.statistics.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.statistics.archive.after-days:90}")
+    private int archiveAfterDays;
+
+    @Value("${app.statistics.archive.directory:statistics-archive}")
+    private String archiveDirectory;
+
+    /**
+     * Архивирует исходные события за сутки, которые старше заданного возраста.
+     */
+    @Scheduled(cron = "${app.statistics.archive.cron:0 30 3 * * *}")
+    public void archiveOldEvents() {
+        if (!enabled) {
+            return;
+        }
+
+        StatisticsRecord oldest = mongoTemplate.findOne(
+                new Query().with(Sort.by(Sort.Direction.ASC, "timestamp")).limit(1), StatisticsRecord.class);
+        if (oldest == null) {
+            return;
+        }
+
+        LocalDate cutoff = LocalDate.now().minusDays(archiveAfterDays);
+        boolean deleteArchived = !statisticsStorageManager.isTimeSeries();
+        LocalDate from = oldest.getTimestamp().toLocalDate();
+        LocalDate archivedThrough = archivedThrough();
+        if (archivedThrough != null && !archivedThrough.isBefore(from)) {
+            from = archivedThrough.plusDays(1);
+        }
+
+        for (LocalDate day = from; day.isBefore(cutoff); day = day.plusDays(1)) {
+            try {
+                archiveDay(day, deleteArchived);
+                saveArchivedThrough(day);
+            } catch (Exception e) {
+                log.error("Failed to archive statistics for {}", day, e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Архивирует исходные события за сутки.
+     * @param day сутки
+     * @param deleteArchived удалять ли заархивированные события из коллекции
+     */
+    private void archiveDay(LocalDate day, boolean deleteArchived) throws IOException {
+        Path target = Paths.get(archiveDirectory, "statistics-" + day + ".ndjson.gz");
+        LocalDateTime start = day.atStartOfDay();
+        Query dayQuery = Query.query(Criteria.where("timestamp").gte(start).lt(start.plusDays(1)));
+
+        if (Files.exists(target) && isComplete(target, dayQuery)) {
+            if (deleteArchived) {
+                mongoTemplate.remove(dayQuery, StatisticsRecord.class);
+            }
+            log.info("Statistics for {} are already archived to {}", day, target);
+            return;
+        }
+
+        String rollupId = StatisticsRollup.bucketId(RollupGranularity.DAY, start, null);
+        if (!rollupRepository.existsById(rollupId)) {
+            statisticsRollupService.rebuild(day, day);
+        }
+
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "statistics-" + day, ".tmp");
+        long count = 0;
+
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8));
+             Stream<StatisticsRecord> records = mongoTemplate.stream(dayQuery, StatisticsRecord.class)) {
+            for (StatisticsRecord record : (Iterable<StatisticsRecord>) records::iterator) {
+                writer.write(objectMapper.writeValueAsString(record));
+                writer.newLine();
+                count++;
+            }
+        } catch (IOException | UncheckedIOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        if (deleteArchived) {
+            mongoTemplate.remove(dayQuery, StatisticsRecord.class);
+        }
+        log.info("Archived {} statistics records for {} to {}", count, day, target);
+    }
+
+    /**
+     * Проверяет, что существующий архив суток читается полностью и содержит не меньше событий,
+     * чем осталось в коллекции. Архив мог остаться после сбоя между его записью и удалением событий.
+     * @param target файл архива
+     * @param dayQuery запрос событий суток
+     * @return true если архив можно считать полным
+     */
+    private boolean isComplete(Path target, Query dayQuery) {
+        long archived = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(target)), StandardCharsets.UTF_8))) {
+            while (reader.readLine() != null) {
+                archived++;
+            }
+        } catch (IOException e) {
+            log.warn("Statistics archive {} is unreadable and will be rewritten", target, e);
+            return false;
+        }
+
+        long stored = mongoTemplate.count(dayQuery, StatisticsRecord.class);
+        if (archived < stored) {
+            log.warn("Statistics archive {} has {} records, collection has {}; rewriting", target, archived, stored);
+            return false;
+        }
+        return true;
+    }
+
+    private LocalDate archivedThrough() {
+        Document state = mongoTemplate.getCollection(STATE_COLLECTION).find(Filters.eq("_id", STATE_ID)).first();
+        return state == null ? null : LocalDate.parse(state.getString(ARCHIVED_THROUGH));
+    }
+
+    private void saveArchivedThrough(LocalDate day) {
+        mongoTemplate.getCollection(STATE_COLLECTION).updateOne(Filters.eq("_id", STATE_ID),
+                Updates.set(ARCHIVED_THROUGH, day.toString()), new UpdateOptions().upsert(true));
+    }
+}
@@ -0,0 +1,287 @@
+package com.hotelbooking.service.statistics;
+
+import com.hotelbooking.entity.mongo.BookingPayload;
+import com.hotelbooking.entity.mongo.RegistrationPayload;
+import com.hotelbooking.entity.mongo.StatisticsRecord;
+import com.hotelbooking.event.BookingEvent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Специализированный писатель CSV для записей статистики.
+ * Строки кодируются в UTF-8 напрямую в буфер байтов, размер которого рассчитывается по числу строк
+ * (см. {@link #forRows(long)}), поэтому при верной оценке буфер не копируется. Заголовок и подписи
+ * закодированы заранее, числа, даты и время записываются посимвольно, а байты даты кэшируются
+ * между соседними записями. Формат совпадает с CSVWriter: все значения в кавычках,
+ * кавычки внутри значений удваиваются, строки разделяются символом '\n'.
+ * Экземпляр не потокобезопасен.
+ * @author Кирилл_Христич
+ */
+public class StatisticsCsvWriter {
+
+    private static final byte[] HEADER = utf8(
+            "\"ID события\",\"Тип события\",\"ID пользователя\",\"Время события\",\"Дополнительные данные\"\n");
+    private static final byte[] REGISTRATION_NAME = utf8("Регистрация пользователя");
+    private static final byte[] BOOKING_NAME = utf8("Создание бронирования");
+    private static final byte[] CANCELLATION_NAME = utf8("Отмена бронирования");
+    private static final byte[] USERNAME_LABEL = utf8("Имя: ");
+    private static final byte[] EMAIL_LABEL = utf8(", Email: ");
+    private static final byte[] ROLE_LABEL = utf8(", Роль: ");
+    private static final byte[] BOOKING_ID_LABEL = utf8("ID бронирования: ");
+    private static final byte[] ROOM_ID_LABEL = utf8(", ID комнаты: ");
+    private static final byte[] CHECK_IN_LABEL = utf8(", Заезд: ");
+    private static final byte[] CHECK_OUT_LABEL = utf8(", Выезд: ");
+    private static final byte[] NULL = utf8("null");
+
+    /**
+     * Оценка размера строки в байтах с запасом: строка бронирования занимает около 210 байтов,
+     * строка регистрации - около 175.
+     */
+    private static final int ESTIMATED_ROW_BYTES = 224;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private byte[] buffer;
+    private int position;
+
+    private final byte[] timestamp = new byte[19];
+    private int cachedYear = -1;
+    private int cachedMonth = -1;
+    private int cachedDay = -1;
+
+    public StatisticsCsvWriter(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+        timestamp[4] = '-';
+        timestamp[7] = '-';
+        timestamp[10] = ' ';
+        timestamp[13] = ':';
+        timestamp[16] = ':';
+    }
+
+    /**
+     * Создает писатель с буфером, рассчитанным на заданное число строк.
+     * @param rows ожидаемое количество строк
+     * @return писатель
+     */
+    public static StatisticsCsvWriter forRows(long rows) {
+        return new StatisticsCsvWriter((int) Math.min(MAX_CAPACITY, Math.max(1, rows) * ESTIMATED_ROW_BYTES));
+    }
+
+    /**
+     * Записывает строку заголовков.
+     */
+    public void writeHeader() {
+        writeBytes(HEADER);
+    }
+
+    /**
+     * Записывает строку с данными записи статистики.
+     * @param record запись статистики
+     */
+    public void writeRow(StatisticsRecord record) {
+        String eventType = record.getEventType();
+        boolean registration = "USER_REGISTRATION".equals(eventType);
+
+        quote();
+        writeEscaped(record.getId());
+        quote();
+        comma();
+
+        quote();
+        writeBytes(registration ? REGISTRATION_NAME
+                : BookingEvent.BOOKING_CANCELLED.equals(eventType) ? CANCELLATION_NAME : BOOKING_NAME);
+        quote();
+        comma();
+
+        quote();
+        writeValue(record.getUserId());
+        quote();
+        comma();
+
+        quote();
+        writeTimestamp(record.getTimestamp());
+        quote();
+        comma();
+
+        quote();
+        if (registration && record.getData() instanceof RegistrationPayload data) {
+            writeBytes(USERNAME_LABEL);
+            writeValue(data.getUsername());
+            writeBytes(EMAIL_LABEL);
+            writeValue(data.getEmail());
+            writeBytes(ROLE_LABEL);
+            writeValue(data.getRole());
+        } else if (record.getData() instanceof BookingPayload data) {
+            writeBytes(BOOKING_ID_LABEL);
+            writeValue(data.getBookingId());
+            writeBytes(ROOM_ID_LABEL);
+            writeValue(data.getRoomId());
+            writeBytes(CHECK_IN_LABEL);
+            writeDate(data.getCheckInDate());
+            writeBytes(CHECK_OUT_LABEL);
+            writeDate(data.getCheckOutDate());
+        }
+        quote();
+
+        ensureCapacity(1);
+        buffer[position++] = '\n';
+    }
+
+    /**
+     * Записывает содержимое буфера в выходной поток.
+     * @param out выходной поток
+     * @throws IOException если не удалось записать данные
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, position);
+    }
+
+    private void writeValue(Object value) {
+        if (value == null) {
+            writeBytes(NULL);
+        } else if (value instanceof Long || value instanceof Integer) {
+            writeLong(((Number) value).longValue());
+        } else if (value instanceof CharSequence) {
+            writeEscaped((CharSequence) value);
+        } else {
+            writeEscaped(value.toString());
+        }
+    }
+
+    private void writeDate(LocalDate value) {
+        if (value == null) {
+            writeBytes(NULL);
+            return;
+        }
+
+        ensureCapacity(10);
+        int year = value.getYear();
+        buffer[position] = (byte) ('0' + year / 1000 % 10);
+        buffer[position + 1] = (byte) ('0' + year / 100 % 10);
+        buffer[position + 2] = (byte) ('0' + year / 10 % 10);
+        buffer[position + 3] = (byte) ('0' + year % 10);
+        buffer[position + 4] = '-';
+        twoDigits(buffer, position + 5, value.getMonthValue());
+        buffer[position + 7] = '-';
+        twoDigits(buffer, position + 8, value.getDayOfMonth());
+        position += 10;
+    }
+
+    private void writeTimestamp(LocalDateTime value) {
+        int year = value.getYear();
+        int month = value.getMonthValue();
+        int day = value.getDayOfMonth();
+
+        if (year != cachedYear || month != cachedMonth || day != cachedDay) {
+            timestamp[0] = (byte) ('0' + year / 1000 % 10);
+            timestamp[1] = (byte) ('0' + year / 100 % 10);
+            timestamp[2] = (byte) ('0' + year / 10 % 10);
+            timestamp[3] = (byte) ('0' + year % 10);
+            twoDigits(timestamp, 5, month);
+            twoDigits(timestamp, 8, day);
+            cachedYear = year;
+            cachedMonth = month;
+            cachedDay = day;
+        }
+
+        twoDigits(timestamp, 11, value.getHour());
+        twoDigits(timestamp, 14, value.getMinute());
+        twoDigits(timestamp, 17, value.getSecond());
+        writeBytes(timestamp);
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeEscaped(Long.toString(value));
+            return;
+        }
+
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position = end;
+    }
+
+    /**
+     * Кодирует строку в UTF-8 с удвоением кавычек.
+     */
+    private void writeEscaped(CharSequence value) {
+        int length = value.length();
+        ensureCapacity(length * 3);
+
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c == '"') {
+                    buffer[position++] = '"';
+                }
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void quote() {
+        ensureCapacity(1);
+        buffer[position++] = '"';
+    }
+
+    private void comma() {
+        ensureCapacity(1);
+        buffer[position++] = ',';
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, (int) Math.min(MAX_CAPACITY,
+                    Math.max((long) buffer.length * 2, (long) position + extra)));
+        }
+    }
+
+    private static void twoDigits(byte[] target, int offset, int value) {
+        target[offset] = (byte) ('0' + value / 10);
+        target[offset + 1] = (byte) ('0' + value % 10);
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
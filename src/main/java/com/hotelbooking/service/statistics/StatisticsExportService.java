@@ -0,0 +1,212 @@
+package com.hotelbooking.service.statistics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.hotelbooking.entity.mongo.StatisticsRecord;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+
+/**
+ * Сервис параллельного экспорта статистики.
+ * Диапазон timestamp делится на интервалы не более чем по chunk-records событий, которые читаются
+ * курсором и форматируются параллельно в пуле fork-join, а результат записывается в выходной поток
+ * в порядке интервалов. В памяти находятся отформатированные данные не более чем двух интервалов
+ * на поток пула, независимо от объема выгрузки.
+ * @author Кирилл_Христич
+ */
+@Service
+@Slf4j
+public class StatisticsExportService {
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectWriter ndjsonWriter;
+    private final ForkJoinPool exportPool;
+    private final int chunkRecords;
+    private final String exportDirectory;
+
+    public StatisticsExportService(MongoTemplate mongoTemplate,
+                                   ObjectMapper objectMapper,
+                                   @Value("${app.statistics.export.parallelism:4}") int parallelism,
+                                   @Value("${app.statistics.export.chunk-records:20000}") int chunkRecords,
+                                   @Value("${app.statistics.export.directory:statistics-export}") String exportDirectory) {
+        this.mongoTemplate = mongoTemplate;
+        this.ndjsonWriter = objectMapper.writerFor(StatisticsRecord.class);
+        this.exportPool = new ForkJoinPool(parallelism);
+        this.chunkRecords = chunkRecords;
+        this.exportDirectory = exportDirectory;
+    }
+
+    /**
+     * Экспортирует статистику в выходной поток.
+     * @param format формат экспорта
+     * @param out выходной поток
+     * @throws IOException если не удалось записать данные
+     */
+    public void export(ExportFormat format, OutputStream out) throws IOException {
+        if (format == ExportFormat.CSV) {
+            StatisticsCsvWriter header = new StatisticsCsvWriter(256);
+            header.writeHeader();
+            header.writeTo(out);
+        }
+
+        List<ExportChunk> chunks = chunks();
+        int window = exportPool.getParallelism() * 2;
+        Deque<ForkJoinTask<RenderedChunk>> inFlight = new ArrayDeque<>();
+        int next = 0;
+
+        while (next < chunks.size() || !inFlight.isEmpty()) {
+            while (inFlight.size() < window && next < chunks.size()) {
+                ExportChunk chunk = chunks.get(next++);
+                inFlight.addLast(exportPool.submit(() -> renderChunk(format, chunk)));
+            }
+            inFlight.removeFirst().join().writeTo(out);
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Экспортирует статистику в локальный файл.
+     * @param format формат экспорта
+     * @return путь к созданному файлу
+     * @throws IOException если не удалось записать файл
+     */
+    public Path exportToFile(ExportFormat format) throws IOException {
+        Path directory = Paths.get(exportDirectory);
+        Files.createDirectories(directory);
+        Path target = directory.resolve("statistics-" + System.currentTimeMillis() + "." + format.getExtension());
+
+        try (OutputStream out = Files.newOutputStream(target)) {
+            export(format, out);
+        }
+
+        log.info("Statistics exported to {}", target);
+        return target;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        exportPool.shutdown();
+    }
+
+    /**
+     * Делит диапазон timestamp сохраненных событий на интервалы не более чем по chunkRecords событий.
+     * Интервал с большим количеством событий делится пополам по времени, пока не уложится в лимит;
+     * количество событий интервала считается по индексу timestamp. Интервал короче двух миллисекунд
+     * не делится, даже если превышает лимит.
+     * @return интервалы в порядке времени; пустой список, если событий нет
+     */
+    private List<ExportChunk> chunks() {
+        StatisticsRecord first = findEdge(Sort.Direction.ASC);
+        StatisticsRecord last = findEdge(Sort.Direction.DESC);
+        if (first == null || last == null) {
+            return List.of();
+        }
+
+        List<ExportChunk> chunks = new ArrayList<>();
+        Deque<LocalDateTime[]> pending = new ArrayDeque<>();
+        pending.push(new LocalDateTime[]{first.getTimestamp(), last.getTimestamp().plusSeconds(1)});
+
+        while (!pending.isEmpty()) {
+            LocalDateTime[] range = pending.pop();
+            long count = mongoTemplate.count(rangeQuery(range[0], range[1]), StatisticsRecord.class);
+            if (count == 0) {
+                continue;
+            }
+
+            Duration length = Duration.between(range[0], range[1]);
+            if (count <= chunkRecords || length.toMillis() < 2) {
+                chunks.add(new ExportChunk(range[0], range[1], count));
+                continue;
+            }
+
+            LocalDateTime middle = range[0].plus(Duration.ofMillis(length.toMillis() / 2));
+            pending.push(new LocalDateTime[]{middle, range[1]});
+            pending.push(new LocalDateTime[]{range[0], middle});
+        }
+
+        return chunks;
+    }
+
+    private StatisticsRecord findEdge(Sort.Direction direction) {
+        Query query = new Query().with(Sort.by(direction, "timestamp")).limit(1);
+        query.fields().include("timestamp");
+        return mongoTemplate.findOne(query, StatisticsRecord.class);
+    }
+
+    private Query rangeQuery(LocalDateTime from, LocalDateTime to) {
+        return Query.query(Criteria.where("timestamp").gte(from).lt(to));
+    }
+
+    /**
+     * Читает курсором и форматирует события одного интервала в собственный буфер задачи.
+     * Буфер CSV рассчитывается по количеству событий интервала, записывается в выходной поток
+     * без копирования и освобождается вместе с интервалом.
+     * @param format формат экспорта
+     * @param chunk интервал
+     * @return отформатированные события интервала
+     */
+    private RenderedChunk renderChunk(ExportFormat format, ExportChunk chunk) {
+        Query query = rangeQuery(chunk.from(), chunk.to()).with(Sort.by(Sort.Direction.ASC, "timestamp"));
+
+        try (Stream<StatisticsRecord> records = mongoTemplate.stream(query, StatisticsRecord.class)) {
+            if (format == ExportFormat.CSV) {
+                StatisticsCsvWriter writer = StatisticsCsvWriter.forRows(chunk.records());
+                records.forEach(writer::writeRow);
+                return writer::writeTo;
+            }
+
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            Iterator<StatisticsRecord> iterator = records.iterator();
+            while (iterator.hasNext()) {
+                ndjsonWriter.writeValue(buffer, iterator.next());
+                buffer.write('\n');
+            }
+            return buffer::writeTo;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Отформатированный интервал выгрузки.
+     */
+    @FunctionalInterface
+    private interface RenderedChunk {
+
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Интервал выгрузки.
+     * @param from начало интервала (включительно)
+     * @param to конец интервала (не включительно)
+     * @param records количество событий интервала на момент разбиения
+     */
+    private record ExportChunk(LocalDateTime from, LocalDateTime to, long records) {
+    }
+}
@@ -0,0 +1,80 @@
+package com.hotelbooking.service.statistics;
+
+import com.hotelbooking.entity.mongo.StatisticsRecord;
+import com.hotelbooking.entity.mongo.converter.StatisticsFields;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Миграция данных событий статистики прежнего формата.
+ * Даты заезда и выезда, сохраненные строками, преобразуются в BSON Date на полночь UTC
+ * одним обновлением на стороне сервера. Миграция идемпотентна: повторный запуск
+ * не находит строковых дат. Документы time-series коллекции не изменяются
+ * (MongoDB позволяет обновлять в ней только метаданные), их читает конвертер прежнего формата.
+ * @author Кирилл_Христич
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StatisticsPayloadMigration {
+
+    private static final String CHECK_IN_PATH = StatisticsFields.DATA + "." + StatisticsFields.CHECK_IN_DATE;
+    private static final String CHECK_OUT_PATH = StatisticsFields.DATA + "." + StatisticsFields.CHECK_OUT_DATE;
+
+    private final MongoTemplate mongoTemplate;
+    private final StatisticsStorageManager statisticsStorageManager;
+
+    @Value("${app.statistics.payload-migration.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Преобразует строковые даты бронирований в BSON Date.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!enabled || !mongoTemplate.collectionExists(StatisticsRecord.COLLECTION)) {
+            return;
+        }
+        if (statisticsStorageManager.isTimeSeries()) {
+            log.info("Skipping statistics payload migration for time-series collection {}",
+                    StatisticsRecord.COLLECTION);
+            return;
+        }
+
+        Bson filter = Filters.or(
+                Filters.type(CHECK_IN_PATH, BsonType.STRING),
+                Filters.type(CHECK_OUT_PATH, BsonType.STRING));
+        List<Document> pipeline = List.of(new Document("$set", new Document()
+                .append(CHECK_IN_PATH, toDate(CHECK_IN_PATH))
+                .append(CHECK_OUT_PATH, toDate(CHECK_OUT_PATH))));
+
+        UpdateResult result = mongoTemplate.getCollection(StatisticsRecord.COLLECTION).updateMany(filter, pipeline);
+        if (result.getModifiedCount() > 0) {
+            log.info("Migrated {} statistics records to typed payloads", result.getModifiedCount());
+        }
+    }
+
+    /**
+     * Выражение, преобразующее строковую дату в BSON Date и оставляющее прочие значения без изменений.
+     */
+    private static Document toDate(String path) {
+        return new Document("$cond", List.of(
+                new Document("$eq", List.of(new Document("$type", "$" + path), "string")),
+                new Document("$dateFromString", new Document("dateString", "$" + path)
+                        .append("format", "%Y-%m-%d")
+                        .append("timezone", "UTC")),
+                "$" + path));
+    }
+}
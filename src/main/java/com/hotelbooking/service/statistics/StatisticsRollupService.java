@@ -0,0 +1,294 @@
+package com.hotelbooking.service.statistics;
+
+import com.hotelbooking.entity.enums.RollupGranularity;
+import com.hotelbooking.entity.mongo.BookingPayload;
+import com.hotelbooking.entity.mongo.StatisticsRecord;
+import com.hotelbooking.entity.mongo.StatisticsRollup;
+import com.hotelbooking.event.BookingEvent;
+import com.hotelbooking.event.UserRegistrationEvent;
+import com.hotelbooking.repository.mongo.StatisticsRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Сервис предагрегированной статистики.
+ * Счетчики по часам и суткам (в целом и по отелям) увеличиваются через $inc upsert
+ * при поступлении событий, поэтому запросы дашборда читают по одному документу на интервал.
+ * Обновление интервала применяется, только если смещение события больше последнего учтенного
+ * смещения его партиции в этом интервале, поэтому повторная доставка события Kafka
+ * не увеличивает счетчики дважды.
+ * @author Кирилл_Христич
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StatisticsRollupService {
+
+    private final MongoTemplate mongoTemplate;
+    private final StatisticsRollupRepository rollupRepository;
+
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int REMOVE_BATCH_SIZE = 1000;
+
+    /**
+     * Учитывает событие создания или отмены бронирования в агрегатах.
+     * @param event событие бронирования
+     * @param offset позиция события в Kafka
+     */
+    public void recordBooking(BookingEvent event, EventOffset offset) {
+        long nights = ChronoUnit.DAYS.between(event.getCheckInDate(), event.getCheckOutDate());
+        Counters counters = BookingEvent.BOOKING_CANCELLED.equals(event.getEventType())
+                ? new Counters(0, 0, 1, nights, 0)
+                : new Counters(1, nights, 0, 0, 0);
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StatisticsRollup.class);
+
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            LocalDateTime bucketStart = granularity.bucketStart(event.getTimestamp());
+            increment(bulk, granularity, bucketStart, null, counters, offset);
+            if (event.getHotelId() != null) {
+                increment(bulk, granularity, bucketStart, event.getHotelId(), counters, offset);
+            }
+        }
+
+        execute(bulk);
+    }
+
+    /**
+     * Учитывает событие регистрации пользователя в агрегатах.
+     * @param event событие регистрации
+     * @param offset позиция события в Kafka
+     */
+    public void recordUserRegistration(UserRegistrationEvent event, EventOffset offset) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StatisticsRollup.class);
+
+        Counters counters = new Counters(0, 0, 0, 0, 1);
+
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            increment(bulk, granularity, granularity.bucketStart(event.getTimestamp()), null, counters, offset);
+        }
+
+        execute(bulk);
+    }
+
+    /**
+     * Получает агрегаты за период.
+     * @param granularity гранулярность
+     * @param hotelId ID отеля или null для итога по всем отелям
+     * @param from начало периода (включительно)
+     * @param to конец периода (не включительно)
+     * @return список агрегатов, упорядоченный по времени
+     */
+    public List<StatisticsRollup> getRollups(RollupGranularity granularity, Long hotelId,
+                                             LocalDateTime from, LocalDateTime to) {
+        return rollupRepository
+                .findByGranularityAndHotelIdAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStartAsc(
+                        granularity, hotelId, from, to);
+    }
+
+    /**
+     * Пересчитывает агрегаты за период по исходным событиям.
+     * Используется для заполнения агрегатов по событиям, сохраненным до их появления,
+     * и должен вызываться для закрытых периодов, в которые не поступают новые события.
+     * Агрегаты строятся посуточно во временной коллекции и затем переносятся в основную
+     * одной операцией $merge: каждый документ заменяется целиком, поэтому чтение не видит
+     * период пустым или частично удаленным. После переноса удаляются агрегаты периода,
+     * для которых не осталось событий. Смещения партиций в существующих документах сохраняются.
+     * @param from первый день периода
+     * @param to последний день периода (включительно)
+     * @return количество пересчитанных агрегатов
+     */
+    public int rebuild(LocalDate from, LocalDate to) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        String staging = StatisticsRollup.COLLECTION + "_rebuild_" + UUID.randomUUID();
+        int count = 0;
+
+        try {
+            Query query = Query.query(Criteria.where("timestamp").gte(start).lt(end))
+                    .with(Sort.by(Sort.Direction.ASC, "timestamp"));
+            Map<String, StatisticsRollup> rollups = new HashMap<>();
+            LocalDate day = null;
+            try (Stream<StatisticsRecord> records = mongoTemplate.stream(query, StatisticsRecord.class)) {
+                for (StatisticsRecord record : (Iterable<StatisticsRecord>) records::iterator) {
+                    LocalDate recordDay = record.getTimestamp().toLocalDate();
+                    if (!recordDay.equals(day)) {
+                        count += flush(rollups, staging);
+                        day = recordDay;
+                    }
+                    accumulate(rollups, record);
+                }
+            }
+            count += flush(rollups, staging);
+
+            if (count > 0) {
+                mongoTemplate.aggregate(Aggregation.newAggregation(Aggregation.merge()
+                                .intoCollection(StatisticsRollup.COLLECTION)
+                                .on("_id")
+                                .whenMatched(MergeOperation.WhenDocumentsMatch.mergeDocuments())
+                                .whenDocumentsDontMatch(MergeOperation.WhenDocumentsDontMatch.insertNewDocument())
+                                .build()),
+                        staging, Document.class);
+            }
+            removeStale(staging, start, end);
+        } finally {
+            mongoTemplate.dropCollection(staging);
+        }
+
+        log.info("Rebuilt {} statistics rollups for period {} - {}", count, from, to);
+        return count;
+    }
+
+    /**
+     * Выполняет пакет обновлений агрегатов. Вставка, отклоненная по дубликату ID, означает, что документ
+     * интервала уже учел событие с этим или большим смещением, и ошибкой не считается.
+     */
+    private void execute(BulkOperations bulk) {
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            boolean onlyDuplicates = e.getErrors().stream().allMatch(error -> error.getCode() == DUPLICATE_KEY);
+            if (!onlyDuplicates) {
+                throw e;
+            }
+            log.debug("Skipped {} statistics rollup updates for redelivered events", e.getErrors().size());
+        }
+    }
+
+    /**
+     * Добавляет в пакет upsert с увеличением счетчиков интервала, если событие в нем еще не учтено.
+     */
+    private void increment(BulkOperations bulk, RollupGranularity granularity, LocalDateTime bucketStart,
+                           Long hotelId, Counters counters, EventOffset offset) {
+        String id = StatisticsRollup.bucketId(granularity, bucketStart, hotelId);
+        String offsetField = StatisticsRollup.OFFSETS + "." + offset.partitionKey();
+
+        Update update = new Update()
+                .inc("bookings", counters.bookings())
+                .inc("nights_booked", counters.nightsBooked())
+                .inc("cancellations", counters.cancellations())
+                .inc("nights_cancelled", counters.nightsCancelled())
+                .inc("registrations", counters.registrations())
+                .max(offsetField, offset.offset())
+                .setOnInsert("granularity", granularity.name())
+                .setOnInsert("bucket_start", bucketStart)
+                .setOnInsert("hotel_id", hotelId);
+
+        Query query = Query.query(Criteria.where("_id").is(id).orOperator(
+                Criteria.where(offsetField).exists(false),
+                Criteria.where(offsetField).lt(offset.offset())));
+        bulk.upsert(query, update);
+    }
+
+    /**
+     * Записывает накопленные агрегаты суток во временную коллекцию и очищает их.
+     * @return количество записанных агрегатов
+     */
+    private int flush(Map<String, StatisticsRollup> rollups, String staging) {
+        int count = rollups.size();
+        if (count > 0) {
+            mongoTemplate.insert(rollups.values(), staging);
+            rollups.clear();
+        }
+        return count;
+    }
+
+    /**
+     * Удаляет агрегаты периода, которых нет среди пересчитанных.
+     */
+    private void removeStale(String staging, LocalDateTime start, LocalDateTime end) {
+        Aggregation stale = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("bucket_start").gte(start).lt(end)),
+                Aggregation.lookup(staging, "_id", "_id", "rebuilt"),
+                Aggregation.match(Criteria.where("rebuilt").size(0)),
+                Aggregation.project("_id"));
+        List<Object> ids = new ArrayList<>();
+        try (Stream<Document> documents = mongoTemplate.aggregateStream(
+                stale, StatisticsRollup.COLLECTION, Document.class)) {
+            for (Document document : (Iterable<Document>) documents::iterator) {
+                ids.add(document.get("_id"));
+                if (ids.size() == REMOVE_BATCH_SIZE) {
+                    remove(ids);
+                }
+            }
+        }
+        remove(ids);
+    }
+
+    private void remove(List<Object> ids) {
+        if (!ids.isEmpty()) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), StatisticsRollup.COLLECTION);
+            ids.clear();
+        }
+    }
+
+    /**
+     * Учитывает исходное событие в пересчитываемых агрегатах.
+     */
+    private void accumulate(Map<String, StatisticsRollup> rollups, StatisticsRecord record) {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            LocalDateTime bucketStart = granularity.bucketStart(record.getTimestamp());
+
+            if ("USER_REGISTRATION".equals(record.getEventType())) {
+                StatisticsRollup rollup = bucket(rollups, granularity, bucketStart, null);
+                rollup.setRegistrations(rollup.getRegistrations() + 1);
+            } else if (record.getData() instanceof BookingPayload booking) {
+                long nights = ChronoUnit.DAYS.between(booking.getCheckInDate(), booking.getCheckOutDate());
+                boolean cancelled = BookingEvent.BOOKING_CANCELLED.equals(record.getEventType());
+
+                addBooking(bucket(rollups, granularity, bucketStart, null), nights, cancelled);
+                if (booking.getHotelId() != null) {
+                    addBooking(bucket(rollups, granularity, bucketStart, booking.getHotelId()), nights, cancelled);
+                }
+            }
+        }
+    }
+
+    private StatisticsRollup bucket(Map<String, StatisticsRollup> rollups, RollupGranularity granularity,
+                                    LocalDateTime bucketStart, Long hotelId) {
+        String id = StatisticsRollup.bucketId(granularity, bucketStart, hotelId);
+        return rollups.computeIfAbsent(id, key -> StatisticsRollup.builder()
+                .id(key)
+                .granularity(granularity)
+                .bucketStart(bucketStart)
+                .hotelId(hotelId)
+                .build());
+    }
+
+    private void addBooking(StatisticsRollup rollup, long nights, boolean cancelled) {
+        if (cancelled) {
+            rollup.setCancellations(rollup.getCancellations() + 1);
+            rollup.setNightsCancelled(rollup.getNightsCancelled() + nights);
+        } else {
+            rollup.setBookings(rollup.getBookings() + 1);
+            rollup.setNightsBooked(rollup.getNightsBooked() + nights);
+        }
+    }
+
+    /**
+     * Приращения счетчиков агрегата для одного события.
+     */
+    private record Counters(long bookings, long nightsBooked, long cancellations, long nightsCancelled,
+                            long registrations) {
+    }
+}
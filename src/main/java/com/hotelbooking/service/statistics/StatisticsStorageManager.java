@@ -0,0 +1,113 @@
+package com.hotelbooking.service.statistics;
+
+import com.hotelbooking.entity.mongo.StatisticsRecord;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подготавливает коллекцию исходных событий статистики при старте приложения.
+ * В режиме TIME_SERIES создает time-series коллекцию (время - timestamp, метаданные - event_type),
+ * в режиме STANDARD - обычную коллекцию. В обоих режимах создает составные индексы
+ * под реальные запросы и удаляет устаревшие одиночные индексы.
+ * @author Кирилл_Христич
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StatisticsStorageManager {
+
+    private static final Set<String> LEGACY_INDEXES = Set.of("event_type", "user_id", "timestamp");
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${app.statistics.storage-mode:STANDARD}")
+    private StatisticsStorageMode storageMode;
+
+    @Value("${app.statistics.timeseries-granularity:minutes}")
+    private String timeSeriesGranularity;
+
+    @Value("${app.statistics.ttl-days:0}")
+    private long ttlDays;
+
+    /**
+     * Создает коллекцию и индексы, если они еще не существуют.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!mongoTemplate.collectionExists(StatisticsRecord.COLLECTION)) {
+            createCollection();
+        } else if (storageMode == StatisticsStorageMode.TIME_SERIES && !isTimeSeries()) {
+            log.warn("Collection {} already exists as a regular collection; "
+                    + "time-series mode requires migrating it into a new collection", StatisticsRecord.COLLECTION);
+        }
+
+        ensureIndexes();
+    }
+
+    /**
+     * Проверяет, хранится ли статистика в time-series коллекции.
+     * @return true если коллекция является time-series
+     */
+    public boolean isTimeSeries() {
+        Document info = mongoTemplate.executeCommand(new Document("listCollections", 1)
+                .append("filter", new Document("name", StatisticsRecord.COLLECTION)));
+        Document cursor = info.get("cursor", Document.class);
+        return cursor.getList("firstBatch", Document.class).stream()
+                .anyMatch(collection -> "timeseries".equals(collection.getString("type")));
+    }
+
+    private void createCollection() {
+        if (storageMode == StatisticsStorageMode.TIME_SERIES) {
+            Document command = new Document("create", StatisticsRecord.COLLECTION)
+                    .append("timeseries", new Document("timeField", "timestamp")
+                            .append("metaField", "event_type")
+                            .append("granularity", timeSeriesGranularity));
+            if (ttlDays > 0) {
+                command.append("expireAfterSeconds", TimeUnit.DAYS.toSeconds(ttlDays));
+            }
+            mongoTemplate.executeCommand(command);
+        } else {
+            mongoTemplate.createCollection(StatisticsRecord.COLLECTION);
+        }
+
+        log.info("Created statistics collection {} in {} mode", StatisticsRecord.COLLECTION, storageMode);
+    }
+
+    private void ensureIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(StatisticsRecord.class);
+        boolean timeSeries = isTimeSeries();
+
+        for (IndexInfo indexInfo : indexOps.getIndexInfo()) {
+            if (LEGACY_INDEXES.contains(indexInfo.getName())) {
+                indexOps.dropIndex(indexInfo.getName());
+                log.info("Dropped legacy statistics index {}", indexInfo.getName());
+            }
+        }
+
+        indexOps.ensureIndex(new Index()
+                .on("event_type", Sort.Direction.ASC)
+                .on("timestamp", Sort.Direction.ASC)
+                .named("idx_stat_type_time"));
+
+        Index timestampIndex = new Index()
+                .on("timestamp", Sort.Direction.ASC)
+                .named("idx_stat_timestamp");
+        if (ttlDays > 0 && !timeSeries) {
+            timestampIndex.expire(ttlDays, TimeUnit.DAYS);
+        }
+        indexOps.ensureIndex(timestampIndex);
+    }
+}
@@ -0,0 +1,16 @@
+package com.hotelbooking.service.statistics;
+
+/**
+ * Перечисление режимов хранения исходных событий статистики.
+ * @author Кирилл_Христич
+ */
+public enum StatisticsStorageMode {
+    /**
+     * Обычная коллекция с составными индексами.
+     */
+    STANDARD,
+    /**
+     * Time-series коллекция MongoDB с event_type в качестве метаданных.
+     */
+    TIME_SERIES
+}
@@ -0,0 +1,195 @@
+package com.hotelbooking.service.user;
+
+import com.hotelbooking.dto.response.UserFilterStatsDto;
+import com.hotelbooking.repository.UserRepository;
+import com.hotelbooking.util.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Фильтр Блума занятых имен пользователей и email.
+ * Проверка свободного имени при регистрации завершается без запроса к базе, если фильтр отвечает,
+ * что ключ точно не добавлялся; возможные совпадения проверяются запросом.
+ * Фильтр заполняется при старте и периодически перестраивается, чтобы учесть удаленных пользователей
+ * и пользователей, созданных другими экземплярами приложения. До заполнения все проверки идут в базу;
+ * первое заполнение выполняется в отдельном потоке и не задерживает старт приложения.
+ * @author Кирилл_Христич
+ */
+@Component
+@Slf4j
+public class UserIdentityFilter {
+
+    private static final String USERNAME_PREFIX = "u:";
+    private static final String EMAIL_PREFIX = "e:";
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long minExpectedUsers;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    private volatile BloomFilter building;
+
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong skippedDatabaseChecks = new AtomicLong();
+    private final AtomicLong verifiedChecks = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    public UserIdentityFilter(UserRepository userRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.users.identity-filter.expected-users:100000}") long minExpectedUsers,
+                              @Value("${app.users.identity-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.minExpectedUsers = minExpectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Запускает первое заполнение фильтра в отдельном потоке.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void fillOnStartup() {
+        Thread thread = new Thread(this::rebuild, "user-identity-filter-fill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Заполняет фильтр заново по именам и email всех пользователей.
+     * Новый фильтр начинает принимать добавляемые ключи до начала транзакции снимка, а ключи
+     * из транзакций, зафиксированных после начала снимка, добавляются повторно после фиксации,
+     * поэтому снимок и повторные добавления вместе покрывают всех пользователей.
+     */
+    @Scheduled(cron = "${app.users.identity-filter.rebuild-cron:0 0 4 * * *}")
+    public synchronized void rebuild() {
+        long users = userRepository.count();
+        BloomFilter next = new BloomFilter(Math.max(minExpectedUsers, users * 2) * 2, falsePositiveRate);
+        building = next;
+
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<String> usernames = userRepository.streamAllUsernames()) {
+                    usernames.forEach(username -> next.add(USERNAME_PREFIX + username));
+                }
+                try (Stream<String> emails = userRepository.streamAllEmails()) {
+                    emails.forEach(email -> next.add(EMAIL_PREFIX + email));
+                }
+            });
+            filter = next;
+            log.info("User identity filter rebuilt for {} users, {} bytes", users, next.getMemoryBytes());
+        } catch (Exception e) {
+            log.error("Failed to rebuild user identity filter", e);
+        } finally {
+            building = null;
+        }
+    }
+
+    /**
+     * Добавляет имя пользователя и email в фильтр.
+     * Внутри транзакции ключи добавляются сразу и еще раз после ее фиксации: если транзакция
+     * зафиксирована после начала снимка перестроения, снимок ее не видит, а повторное
+     * добавление попадает в новый фильтр.
+     * @param username имя пользователя
+     * @param email email пользователя
+     */
+    public void add(String username, String email) {
+        addNow(username, email);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addNow(username, email);
+                }
+            });
+        }
+    }
+
+    /**
+     * Проверяет, заняты ли имя пользователя или email.
+     * @param username имя пользователя
+     * @param email email пользователя
+     * @param verify проверка в базе для возможного совпадения
+     * @return true если имя пользователя или email заняты
+     */
+    public boolean isTaken(String username, String email, BooleanSupplier verify) {
+        BloomFilter current = filter;
+        if (current == null) {
+            return verify.getAsBoolean();
+        }
+
+        checks.incrementAndGet();
+        boolean possible = (username != null && current.mightContain(USERNAME_PREFIX + username))
+                || (email != null && current.mightContain(EMAIL_PREFIX + email));
+        if (!possible) {
+            skippedDatabaseChecks.incrementAndGet();
+            return false;
+        }
+
+        verifiedChecks.incrementAndGet();
+        boolean taken = verify.getAsBoolean();
+        if (!taken) {
+            falsePositives.incrementAndGet();
+        }
+        return taken;
+    }
+
+    /**
+     * Получает показатели фильтра.
+     * @return показатели фильтра
+     */
+    public UserFilterStatsDto getStats() {
+        BloomFilter current = filter;
+        long skipped = skippedDatabaseChecks.get();
+        long falsePositiveCount = falsePositives.get();
+        long negatives = skipped + falsePositiveCount;
+
+        return UserFilterStatsDto.builder()
+                .ready(current != null)
+                .insertions(current != null ? current.getInsertions() : 0)
+                .memoryBytes(current != null ? current.getMemoryBytes() : 0)
+                .hashCount(current != null ? current.getHashCount() : 0)
+                .expectedFalsePositiveRate(current != null ? current.expectedFalsePositiveRate() : 0)
+                .checks(checks.get())
+                .skippedDatabaseChecks(skipped)
+                .verifiedChecks(verifiedChecks.get())
+                .falsePositives(falsePositiveCount)
+                .observedFalsePositiveRate(negatives > 0 ? (double) falsePositiveCount / negatives : 0)
+                .build();
+    }
+
+    /**
+     * Добавляет ключи в строящийся и текущий фильтры. Строящийся фильтр читается первым:
+     * перестроение публикует новый фильтр до сброса строящегося, поэтому ключ не пропускается.
+     */
+    private void addNow(String username, String email) {
+        addTo(building, username, email);
+        addTo(filter, username, email);
+    }
+
+    private static void addTo(BloomFilter target, String username, String email) {
+        if (target == null) {
+            return;
+        }
+        if (username != null) {
+            target.add(USERNAME_PREFIX + username);
+        }
+        if (email != null) {
+            target.add(EMAIL_PREFIX + email);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.hotelbooking.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Фильтр Блума для строк.
+ * Ответ false означает, что строка точно не добавлялась; ответ true требует проверки.
+ * Биты устанавливаются атомарно, поэтому добавление и проверка безопасны без блокировок.
+ * Позиции битов вычисляются двойным хешированием по 64-битному хешу строки.
+ * @author Кирилл_Христич
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final AtomicLong insertions = new AtomicLong();
+
+    /**
+     * Создает фильтр, рассчитанный на заданное количество элементов и вероятность ложного срабатывания.
+     * @param expectedInsertions ожидаемое количество элементов
+     * @param falsePositiveRate допустимая вероятность ложного срабатывания
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (bits + 63) / 64);
+
+        this.words = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    /**
+     * Добавляет строку в фильтр.
+     * @param value строка
+     */
+    public void add(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+
+            long word = words.get(index);
+            while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                word = words.get(index);
+            }
+        }
+        insertions.incrementAndGet();
+    }
+
+    /**
+     * Проверяет, могла ли строка быть добавлена в фильтр.
+     * @param value строка
+     * @return false если строка точно не добавлялась
+     */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Оценивает вероятность ложного срабатывания по доле установленных битов.
+     * @return ожидаемая вероятность ложного срабатывания
+     */
+    public double expectedFalsePositiveRate() {
+        long setBits = 0;
+        for (int i = 0; i < words.length(); i++) {
+            setBits += Long.bitCount(words.get(i));
+        }
+        return Math.pow((double) setBits / bitCount, hashCount);
+    }
+
+    /**
+     * Получает количество добавлений.
+     * @return количество добавленных строк, включая повторные
+     */
+    public long getInsertions() {
+        return insertions.get();
+    }
+
+    /**
+     * Получает размер битового массива в байтах.
+     * @return размер в байтах
+     */
+    public long getMemoryBytes() {
+        return bitCount / 8;
+    }
+
+    /**
+     * Получает количество хеш-функций.
+     * @return количество хеш-функций
+     */
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Вычисляет 64-битный хеш строки (FNV-1a по символам с финальным перемешиванием).
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
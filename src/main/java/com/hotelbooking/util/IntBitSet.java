@@ -0,0 +1,37 @@
+package com.hotelbooking.util;
+
+/**
+ * Набор неотрицательных int фиксированного размера в виде битового массива.
+ * Используется для отметок по номерам строк: один бит на строку вместо ~50 байт
+ * на элемент HashSet&lt;Integer&gt;. Набор не потокобезопасен.
+ * @author Кирилл_Христич
+ */
+public class IntBitSet {
+
+    private final long[] words;
+
+    /**
+     * Создает пустой набор для чисел от 0 до size - 1.
+     * @param size количество битов
+     */
+    public IntBitSet(int size) {
+        this.words = new long[(size + 63) >>> 6];
+    }
+
+    /**
+     * Отмечает число.
+     * @param index число от 0 до size - 1
+     */
+    public void set(int index) {
+        words[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Проверяет, отмечено ли число.
+     * @param index число от 0 до size - 1
+     * @return true если число отмечено
+     */
+    public boolean get(int index) {
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+}
@@ -0,0 +1,188 @@
+package com.hotelbooking.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Множество значений long без упаковки в Long.
+ * Значения хранятся в одном массиве с открытой адресацией и линейным пробированием,
+ * поэтому элемент занимает 11-21 байт против ~50 байт в HashSet&lt;Long&gt;.
+ * Ноль служит признаком пустой ячейки и хранится отдельным флагом.
+ * Множество не потокобезопасно и не поддерживает удаление: оно рассчитано на сборку
+ * наборов ID в рамках запроса и на данные, перестраиваемые целиком.
+ * @author Кирилл_Христич
+ */
+public class LongHashSet {
+
+    private long[] keys;
+    private int mask;
+    private int resizeAt;
+    private int size;
+    private boolean containsZero;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    /**
+     * Создает множество, рассчитанное на заданное количество элементов без увеличения.
+     * @param expectedSize ожидаемое количество элементов
+     */
+    public LongHashSet(int expectedSize) {
+        allocate(PrimitiveHashing.capacityFor(expectedSize));
+    }
+
+    /**
+     * Создает множество из коллекции ID.
+     * @param values значения; null пропускаются
+     * @return множество
+     */
+    public static LongHashSet of(Collection<Long> values) {
+        LongHashSet set = new LongHashSet(values.size());
+        for (Long value : values) {
+            if (value != null) {
+                set.add(value);
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Добавляет значение.
+     * @param value значение
+     * @return true если значения не было в множестве
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        int slot = PrimitiveHashing.mix(value) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = value;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Добавляет все значения другого множества.
+     * @param other множество
+     */
+    public void addAll(LongHashSet other) {
+        other.forEach(this::add);
+    }
+
+    /**
+     * Проверяет наличие значения.
+     * @param value значение
+     * @return true если значение есть в множестве
+     */
+    public boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+
+        int slot = PrimitiveHashing.mix(value) & mask;
+        long key;
+        while ((key = keys[slot]) != 0) {
+            if (key == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Получает количество элементов.
+     * @return количество элементов
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Проверяет, пусто ли множество.
+     * @return true если множество пусто
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Передает каждое значение действию в порядке таблицы.
+     * @param action действие
+     */
+    public void forEach(LongConsumer action) {
+        if (containsZero) {
+            action.accept(0);
+        }
+        for (long key : keys) {
+            if (key != 0) {
+                action.accept(key);
+            }
+        }
+    }
+
+    /**
+     * Получает значения массивом.
+     * @return значения в порядке таблицы
+     */
+    public long[] toArray() {
+        long[] values = new long[size];
+        int index = 0;
+        if (containsZero) {
+            values[index++] = 0;
+        }
+        for (long key : keys) {
+            if (key != 0) {
+                values[index++] = key;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Получает значения списком Long для передачи в запросы к базе.
+     * @return значения в порядке таблицы
+     */
+    public List<Long> toList() {
+        List<Long> values = new ArrayList<>(size);
+        forEach(values::add);
+        return values;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = PrimitiveHashing.resizeThreshold(capacity);
+    }
+
+    private void rehash(int capacity) {
+        long[] previous = keys;
+        allocate(capacity);
+        for (long key : previous) {
+            if (key != 0) {
+                int slot = PrimitiveHashing.mix(key) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+}
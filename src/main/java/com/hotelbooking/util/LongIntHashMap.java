@@ -0,0 +1,156 @@
+package com.hotelbooking.util;
+
+/**
+ * Отображение long в int без упаковки ключей и значений.
+ * Ключи и значения хранятся в параллельных массивах с открытой адресацией и линейным пробированием,
+ * поэтому запись занимает 16-32 байта против ~70 байт в HashMap&lt;Long, Integer&gt;.
+ * Ноль служит признаком пустой ячейки, значение для нулевого ключа хранится отдельно.
+ * Отображение не потокобезопасно и не поддерживает удаление.
+ * @author Кирилл_Христич
+ */
+public class LongIntHashMap {
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int resizeAt;
+    private int size;
+    private boolean containsZeroKey;
+    private int zeroValue;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    /**
+     * Создает отображение, рассчитанное на заданное количество записей без увеличения.
+     * @param expectedSize ожидаемое количество записей
+     */
+    public LongIntHashMap(int expectedSize) {
+        allocate(PrimitiveHashing.capacityFor(expectedSize));
+    }
+
+    /**
+     * Получает значение по ключу.
+     * @param key ключ
+     * @param defaultValue значение, если ключа нет
+     * @return значение
+     */
+    public int get(long key, int defaultValue) {
+        if (key == 0) {
+            return containsZeroKey ? zeroValue : defaultValue;
+        }
+        int slot = find(key);
+        return slot >= 0 ? values[slot] : defaultValue;
+    }
+
+    /**
+     * Прибавляет к значению по ключу; отсутствующий ключ считается равным нулю.
+     * @param key ключ
+     * @param delta прибавка
+     * @return новое значение
+     */
+    public int addTo(long key, int delta) {
+        if (key == 0) {
+            if (!containsZeroKey) {
+                containsZeroKey = true;
+                size++;
+            }
+            return zeroValue += delta;
+        }
+
+        int slot = slot(key);
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            values[slot] = delta;
+            grow();
+            return delta;
+        }
+        return values[slot] += delta;
+    }
+
+    /**
+     * Получает количество записей.
+     * @return количество записей
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Передает каждую запись действию в порядке таблицы.
+     * @param action действие
+     */
+    public void forEach(EntryConsumer action) {
+        if (containsZeroKey) {
+            action.accept(0, zeroValue);
+        }
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                action.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Находит ячейку ключа.
+     * @return номер ячейки или -1, если ключа нет
+     */
+    private int find(long key) {
+        int slot = PrimitiveHashing.mix(key) & mask;
+        long current;
+        while ((current = keys[slot]) != 0) {
+            if (current == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Находит ячейку ключа или первую пустую ячейку, в которую ключ будет записан.
+     */
+    private int slot(long key) {
+        int slot = PrimitiveHashing.mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = PrimitiveHashing.resizeThreshold(capacity);
+    }
+
+    private void rehash(int capacity) {
+        long[] previousKeys = keys;
+        int[] previousValues = values;
+        allocate(capacity);
+        for (int i = 0; i < previousKeys.length; i++) {
+            if (previousKeys[i] != 0) {
+                int slot = slot(previousKeys[i]);
+                keys[slot] = previousKeys[i];
+                values[slot] = previousValues[i];
+            }
+        }
+    }
+
+    /**
+     * Действие над записью отображения.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+
+        void accept(long key, int value);
+    }
+}
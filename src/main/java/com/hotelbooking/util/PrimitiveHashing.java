@@ -0,0 +1,52 @@
+package com.hotelbooking.util;
+
+/**
+ * Общие вычисления хеш-таблиц с открытой адресацией для примитивных ключей.
+ * @author Кирилл_Христич
+ */
+final class PrimitiveHashing {
+
+    /**
+     * Доля заполнения таблицы, при превышении которой таблица увеличивается вдвое.
+     */
+    static final float LOAD_FACTOR = 0.75f;
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private PrimitiveHashing() {
+    }
+
+    /**
+     * Перемешивает биты ключа, чтобы последовательные ID равномерно распределялись по таблице.
+     * @param key ключ
+     * @return хеш ключа
+     */
+    static int mix(long key) {
+        long hash = key * 0x9e3779b97f4a7c15L;
+        hash ^= hash >>> 32;
+        hash ^= hash >>> 16;
+        return (int) hash;
+    }
+
+    /**
+     * Вычисляет размер таблицы (степень двойки) для ожидаемого количества элементов.
+     * @param expectedSize ожидаемое количество элементов
+     * @return размер таблицы
+     */
+    static int capacityFor(int expectedSize) {
+        long required = (long) Math.ceil(Math.max(expectedSize, 4) / (double) LOAD_FACTOR);
+        if (required > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Слишком большой размер таблицы: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) required - 1) << 1;
+    }
+
+    /**
+     * Вычисляет количество элементов, при котором таблица увеличивается.
+     * @param capacity размер таблицы
+     * @return порог увеличения
+     */
+    static int resizeThreshold(int capacity) {
+        return (int) (capacity * LOAD_FACTOR);
+    }
+}
@@ -2,12 +2,16 @@ package com.hotelbooking.util;
 
 import com.hotelbooking.entity.Booking;
 import com.hotelbooking.entity.Room;
+import com.hotelbooking.entity.RoomInventory;
+import com.hotelbooking.entity.RoomType;
+import com.hotelbooking.entity.enums.BookingStatus;
 import jakarta.persistence.criteria.*;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -26,12 +30,14 @@ public class RoomSpecification {
      * @param hotelId ID отеля
      * @param checkInDate дата заезда
      * @param checkOutDate дата выезда
+     * @param heldRoomIds ID комнат, временно удерживаемых на период
      * @return спецификация для поиска
      */
     public static Specification<Room> searchRooms(Long id, String name, BigDecimal minPrice,
                                                   BigDecimal maxPrice, Integer maxGuests,
                                                   Long hotelId, LocalDate checkInDate,
-                                                  LocalDate checkOutDate) {
+                                                  LocalDate checkOutDate,
+                                                  Collection<Long> heldRoomIds) {
         return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
@@ -66,14 +72,33 @@ public class RoomSpecification {
 
                     Predicate roomMatch = cb.equal(bookingRoot.get("room").get("id"), root.get("id"));
                     Predicate dateOverlap = cb.and(
+                            cb.greaterThan(bookingRoot.get("checkInDate"), checkInDate.minusDays(Booking.MAX_STAY_DAYS)),
                             cb.lessThan(bookingRoot.get("checkInDate"), checkOutDate),
-                            cb.greaterThan(bookingRoot.get("checkOutDate"), checkInDate)
+                            cb.greaterThan(bookingRoot.get("checkOutDate"), checkInDate),
+                            cb.equal(bookingRoot.get("status"), BookingStatus.CONFIRMED)
                     );
 
                     subquery.select(bookingRoot.get("room").get("id"))
                             .where(cb.and(roomMatch, dateOverlap));
 
                     predicates.add(cb.not(cb.exists(subquery)));
+
+                    // Комната типа недоступна, если номера типа полностью распроданы хотя бы на одну ночь
+                    Join<Room, RoomType> roomType = root.join("roomType", JoinType.LEFT);
+                    Subquery<Integer> soldOutNights = query.subquery(Integer.class);
+                    Root<RoomInventory> inventoryRoot = soldOutNights.from(RoomInventory.class);
+
+                    soldOutNights.select(cb.literal(1))
+                            .where(cb.equal(inventoryRoot.get("roomTypeId"), roomType.get("id")),
+                                    cb.greaterThanOrEqualTo(inventoryRoot.get("stayDate"), checkInDate),
+                                    cb.lessThan(inventoryRoot.get("stayDate"), checkOutDate),
+                                    cb.greaterThanOrEqualTo(inventoryRoot.get("booked"), roomType.get("totalRooms")));
+
+                    predicates.add(cb.not(cb.exists(soldOutNights)));
+
+                    if (!heldRoomIds.isEmpty()) {
+                        predicates.add(cb.not(root.get("id").in(heldRoomIds)));
+                    }
                 }
             }
             return cb.and(predicates.toArray(new Predicate[0]));
@@ -0,0 +1,8 @@
+-- Частичный индекс действующих бронирований по датам для поиска занятых комнат всех отелей.
+-- Запрос занятых комнат периода фильтрует только по датам и статусу, а room_id берет из INCLUDE,
+-- поэтому выполняется сканированием только индекса в секциях периода.
+-- Секционированная таблица не поддерживает CREATE INDEX CONCURRENTLY: индекс строится
+-- с блокировкой записи в bookings на время построения во всех секциях.
+
+CREATE INDEX idx_booking_active_dates ON bookings (check_in_date, check_out_date) INCLUDE (room_id)
+    WHERE status = 'CONFIRMED';
@@ -0,0 +1,5 @@
+-- Проверка ограничения статуса бронирования, добавленного в V6 без проверки.
+-- VALIDATE CONSTRAINT сканирует секции под блокировкой SHARE UPDATE EXCLUSIVE,
+-- поэтому чтение и запись бронирований во время проверки не блокируются.
+
+ALTER TABLE bookings VALIDATE CONSTRAINT chk_booking_status;
@@ -0,0 +1,8 @@
+-- Ограничение длительности проживания, на которое опирается поиск пересечений бронирований:
+-- он просматривает только секции с датой заезда не раньше чем за Booking.MAX_STAY_DAYS дней до начала
+-- периода, поэтому более длинное бронирование осталось бы незамеченным и комнату можно было бы забронировать
+-- дважды. Ограничение добавляется без проверки существующих строк, чтобы не сканировать секции под
+-- блокировкой ACCESS EXCLUSIVE; существующие строки проверяются в V13. Увеличение предела требует новой
+-- миграции и одновременного изменения Booking.MAX_STAY_DAYS.
+
+ALTER TABLE bookings ADD CONSTRAINT chk_booking_stay_length CHECK (check_out_date - check_in_date <= 30) NOT VALID;
@@ -0,0 +1,5 @@
+-- Проверка ограничения длительности проживания, добавленного в V12 без проверки.
+-- Если в базе есть бронирования длиннее предела, миграция завершается ошибкой: их нужно разделить
+-- или отменить до запуска приложения. Проверка идет под блокировкой SHARE UPDATE EXCLUSIVE.
+
+ALTER TABLE bookings VALIDATE CONSTRAINT chk_booking_stay_length;
@@ -0,0 +1,61 @@
+-- Исходная схема, соответствующая сущностям JPA.
+-- На существующей базе не выполняется: spring.flyway.baseline-on-migrate помечает ее версией 1.
+
+CREATE TABLE hotels (
+    id                        BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name                      VARCHAR(100) NOT NULL,
+    title                     VARCHAR(200) NOT NULL,
+    city                      VARCHAR(50)  NOT NULL,
+    address                   VARCHAR(200) NOT NULL,
+    distance_from_city_center FLOAT(53),
+    rating                    NUMERIC(3, 2),
+    number_of_ratings         INTEGER,
+    CONSTRAINT hotels_pkey PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_hotel_city ON hotels (city);
+CREATE INDEX idx_hotel_rating ON hotels (rating);
+
+CREATE TABLE rooms (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name        VARCHAR(100)   NOT NULL,
+    description TEXT,
+    number      VARCHAR(20)    NOT NULL,
+    price       NUMERIC(10, 2) NOT NULL,
+    max_guests  INTEGER        NOT NULL,
+    hotel_id    BIGINT         NOT NULL,
+    CONSTRAINT rooms_pkey PRIMARY KEY (id),
+    CONSTRAINT fk_room_hotel FOREIGN KEY (hotel_id) REFERENCES hotels (id)
+);
+
+CREATE INDEX idx_room_hotel_id ON rooms (hotel_id);
+CREATE INDEX idx_room_price ON rooms (price);
+CREATE INDEX idx_room_max_guests ON rooms (max_guests);
+
+CREATE TABLE users (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    username VARCHAR(50)  NOT NULL,
+    password VARCHAR(100) NOT NULL,
+    email    VARCHAR(100) NOT NULL,
+    role     VARCHAR(20)  NOT NULL CHECK (role IN ('ROLE_USER', 'ROLE_ADMIN')),
+    CONSTRAINT users_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_user_username UNIQUE (username),
+    CONSTRAINT uk_user_email UNIQUE (email)
+);
+
+CREATE INDEX idx_user_role ON users (role);
+
+CREATE TABLE bookings (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    check_in_date  DATE   NOT NULL,
+    check_out_date DATE   NOT NULL,
+    room_id        BIGINT NOT NULL,
+    user_id        BIGINT NOT NULL,
+    CONSTRAINT bookings_pkey PRIMARY KEY (id),
+    CONSTRAINT fk_booking_room FOREIGN KEY (room_id) REFERENCES rooms (id),
+    CONSTRAINT fk_booking_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE INDEX idx_booking_user_id ON bookings (user_id);
+CREATE INDEX idx_booking_room_id ON bookings (room_id);
+CREATE INDEX idx_booking_dates ON bookings (check_in_date, check_out_date);
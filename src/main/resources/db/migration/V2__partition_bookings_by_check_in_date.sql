@@ -0,0 +1,57 @@
+-- Перевод bookings на секционирование по диапазонам check_in_date (по месяцам).
+-- Первичный ключ секционированной таблицы обязан включать ключ секционирования, поэтому он
+-- становится (id, check_in_date); уникальность id обеспечивает последовательность booking_id_seq.
+-- Секции на будущие месяцы создает BookingPartitionManager; строки вне созданных секций
+-- попадают в bookings_default и переносятся в свою секцию при ее создании.
+
+ALTER TABLE bookings RENAME TO bookings_legacy;
+ALTER INDEX IF EXISTS idx_booking_user_id RENAME TO idx_booking_legacy_user_id;
+ALTER INDEX IF EXISTS idx_booking_room_id RENAME TO idx_booking_legacy_room_id;
+ALTER INDEX IF EXISTS idx_booking_dates RENAME TO idx_booking_legacy_dates;
+
+CREATE SEQUENCE booking_id_seq;
+SELECT setval('booking_id_seq', COALESCE((SELECT MAX(id) FROM bookings_legacy), 0) + 1, false);
+
+CREATE TABLE bookings (
+    id             BIGINT NOT NULL DEFAULT nextval('booking_id_seq'),
+    check_in_date  DATE   NOT NULL,
+    check_out_date DATE   NOT NULL,
+    room_id        BIGINT NOT NULL,
+    user_id        BIGINT NOT NULL,
+    CONSTRAINT pk_bookings PRIMARY KEY (id, check_in_date),
+    CONSTRAINT fk_booking_room FOREIGN KEY (room_id) REFERENCES rooms (id),
+    CONSTRAINT fk_booking_user FOREIGN KEY (user_id) REFERENCES users (id)
+) PARTITION BY RANGE (check_in_date);
+
+ALTER SEQUENCE booking_id_seq OWNED BY bookings.id;
+
+CREATE INDEX idx_booking_user_id ON bookings (user_id);
+CREATE INDEX idx_booking_room_id ON bookings (room_id);
+CREATE INDEX idx_booking_dates ON bookings (check_in_date, check_out_date);
+
+CREATE TABLE bookings_default PARTITION OF bookings DEFAULT;
+
+-- Секции для уже существующих бронирований и на год вперед
+DO $$
+DECLARE
+    month_start DATE;
+    last_month  DATE := date_trunc('month', CURRENT_DATE + INTERVAL '12 months')::date;
+BEGIN
+    SELECT date_trunc('month', LEAST(COALESCE(MIN(check_in_date), CURRENT_DATE), CURRENT_DATE))::date
+    INTO month_start
+    FROM bookings_legacy;
+
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF bookings FOR VALUES FROM (%L) TO (%L)',
+                       'bookings_' || to_char(month_start, '"y"YYYY"m"MM'),
+                       month_start,
+                       (month_start + INTERVAL '1 month')::date);
+        month_start := (month_start + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+INSERT INTO bookings (id, check_in_date, check_out_date, room_id, user_id)
+SELECT id, check_in_date, check_out_date, room_id, user_id
+FROM bookings_legacy;
+
+DROP TABLE bookings_legacy;
@@ -0,0 +1,9 @@
+-- Составной индекс под проверку пересечений бронирований комнаты.
+-- Содержит все столбцы условия, поэтому проверка выполняется сканированием только индекса
+-- в каждой затронутой секции. Отдельный индекс по room_id им покрывается.
+-- Индекс idx_booking_dates сохраняется: запросы по периоду без комнаты (выгрузки, архивирование,
+-- поиск занятых комнат всех отелей) начинаются с check_in_date и составным индексом не покрываются.
+
+CREATE INDEX idx_booking_room_dates ON bookings (room_id, check_in_date, check_out_date);
+
+DROP INDEX IF EXISTS idx_booking_room_id;
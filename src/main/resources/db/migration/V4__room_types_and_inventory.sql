@@ -0,0 +1,36 @@
+-- Типы номеров и посуточный учет занятости по типам.
+-- room_inventory хранит количество забронированных номеров типа на каждую ночь;
+-- отсутствие строки означает, что на эту ночь номера типа не бронировались.
+-- Бронирование по типу сразу получает комнату типа, свободную на весь период.
+-- Типы номеров и их бронирования не удаляются каскадом: удаление отеля или типа
+-- с бронированиями отклоняется, как и удаление комнаты с бронированиями.
+
+CREATE TABLE room_types (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name        VARCHAR(100)   NOT NULL,
+    description TEXT,
+    price       NUMERIC(10, 2) NOT NULL,
+    max_guests  INTEGER        NOT NULL,
+    total_rooms INTEGER        NOT NULL DEFAULT 0,
+    hotel_id    BIGINT         NOT NULL,
+    CONSTRAINT room_types_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_room_type_hotel_name UNIQUE (hotel_id, name),
+    CONSTRAINT fk_room_type_hotel FOREIGN KEY (hotel_id) REFERENCES hotels (id) ON DELETE CASCADE
+);
+
+ALTER TABLE rooms ADD COLUMN room_type_id BIGINT;
+ALTER TABLE rooms ADD CONSTRAINT fk_room_room_type
+    FOREIGN KEY (room_type_id) REFERENCES room_types (id) ON DELETE SET NULL;
+CREATE INDEX idx_room_room_type_id ON rooms (room_type_id);
+
+CREATE TABLE room_inventory (
+    room_type_id BIGINT  NOT NULL,
+    stay_date    DATE    NOT NULL,
+    booked       INTEGER NOT NULL DEFAULT 0 CHECK (booked >= 0),
+    CONSTRAINT room_inventory_pkey PRIMARY KEY (room_type_id, stay_date),
+    CONSTRAINT fk_inventory_room_type FOREIGN KEY (room_type_id) REFERENCES room_types (id) ON DELETE CASCADE
+);
+
+ALTER TABLE bookings ADD COLUMN room_type_id BIGINT;
+ALTER TABLE bookings ADD CONSTRAINT fk_booking_room_type
+    FOREIGN KEY (room_type_id) REFERENCES room_types (id) ON DELETE RESTRICT;
@@ -0,0 +1,14 @@
+-- Ключи идемпотентности создания бронирований.
+-- Строка ключа вставляется в транзакции бронирования до его создания, поэтому параллельный
+-- повтор с тем же ключом ожидает фиксации первого запроса и получает сохраненный ответ.
+
+CREATE TABLE booking_idempotency_keys (
+    username            VARCHAR(50)  NOT NULL,
+    idempotency_key     VARCHAR(100) NOT NULL,
+    request_fingerprint VARCHAR(200) NOT NULL,
+    response            TEXT,
+    created_at          TIMESTAMP    NOT NULL,
+    CONSTRAINT booking_idempotency_keys_pkey PRIMARY KEY (username, idempotency_key)
+);
+
+CREATE INDEX idx_booking_idempotency_created_at ON booking_idempotency_keys (created_at);
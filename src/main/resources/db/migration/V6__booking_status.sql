@@ -0,0 +1,21 @@
+-- Статус бронирования: отмена меняет статус вместо удаления строки.
+-- Добавление столбца с постоянным значением по умолчанию не переписывает таблицу.
+-- Ограничение статуса добавляется без проверки существующих строк (NOT VALID), чтобы не сканировать
+-- секции под блокировкой ACCESS EXCLUSIVE, которую берет добавление столбца; проверка выполняется
+-- в V11 отдельной транзакцией под блокировкой, не мешающей чтению и записи.
+-- Проверки пересечений читают частичный индекс, содержащий только действующие бронирования,
+-- поэтому отмененные бронирования не увеличивают его размер.
+-- Секционированная таблица не поддерживает CREATE INDEX CONCURRENTLY: индекс строится
+-- с блокировкой записи в bookings на время построения во всех секциях. На большой базе его можно
+-- построить заранее без блокировки записи: CREATE INDEX ... ON ONLY bookings, затем
+-- CREATE INDEX CONCURRENTLY в каждой секции и ALTER INDEX ... ATTACH PARTITION; тогда
+-- CREATE INDEX IF NOT EXISTS ниже ничего не делает.
+
+ALTER TABLE bookings ADD COLUMN status VARCHAR(20) NOT NULL DEFAULT 'CONFIRMED';
+ALTER TABLE bookings ADD COLUMN cancelled_at TIMESTAMP;
+ALTER TABLE bookings ADD CONSTRAINT chk_booking_status CHECK (status IN ('CONFIRMED', 'CANCELLED')) NOT VALID;
+
+CREATE INDEX IF NOT EXISTS idx_booking_active_room_dates ON bookings (room_id, check_in_date, check_out_date)
+    WHERE status = 'CONFIRMED';
+
+DROP INDEX IF EXISTS idx_booking_room_dates;
@@ -0,0 +1,4 @@
+-- Хеши паролей хранятся с префиксом алгоритма ({bcrypt}, {argon2}),
+-- а хеш Argon2 с параметрами длиннее 100 символов.
+
+ALTER TABLE users ALTER COLUMN password TYPE VARCHAR(255);
@@ -0,0 +1,7 @@
+-- Выборки пользователей по роли идут страницами по возрастанию id.
+-- Составной индекс отдает строки роли сразу в порядке id и продолжает выборку
+-- с курсора без сортировки; он же обслуживает прежние запросы по роли.
+
+CREATE INDEX idx_user_role_id ON users (role, id);
+
+DROP INDEX IF EXISTS idx_user_role;
@@ -0,0 +1,19 @@
+-- Индексы под сортировки поиска отелей и комнат.
+-- Поиск отелей сравнивает город в нижнем регистре, поэтому индексы по городу построены по lower(city).
+-- Последний столбец - id: он задает порядок строк с равными значениями, и индекс отдает
+-- страницу сразу в порядке сортировки. Обратный порядок читается обратным сканированием того же индекса.
+-- Индексы по отдельным столбцам покрываются составными и удаляются.
+
+CREATE INDEX idx_hotel_city_id ON hotels (lower(city), id);
+CREATE INDEX idx_hotel_city_rating ON hotels (lower(city), rating, id);
+CREATE INDEX idx_hotel_city_distance ON hotels (lower(city), distance_from_city_center, id);
+CREATE INDEX idx_hotel_rating_id ON hotels (rating, id);
+CREATE INDEX idx_hotel_distance_id ON hotels (distance_from_city_center, id);
+
+CREATE INDEX idx_room_hotel_price ON rooms (hotel_id, price, id);
+CREATE INDEX idx_room_price_id ON rooms (price, id);
+
+DROP INDEX IF EXISTS idx_hotel_city;
+DROP INDEX IF EXISTS idx_hotel_rating;
+DROP INDEX IF EXISTS idx_room_hotel_id;
+DROP INDEX IF EXISTS idx_room_price;
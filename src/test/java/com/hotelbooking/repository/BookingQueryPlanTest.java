@@ -0,0 +1,176 @@
+package com.hotelbooking.repository;
+
+import com.hotelbooking.PostgresTest;
+import com.hotelbooking.entity.Booking;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет планы запросов бронирований по EXPLAIN ANALYZE на секционированной таблице.
+ * Запросы берутся из аннотаций репозитория, поэтому изменение запроса или индексов,
+ * после которого план перестает читать только индекс затронутых секций, ломает тест.
+ * Данные фиксируются вне транзакции теста, чтобы VACUUM обновил карту видимости секций.
+ * @author Кирилл_Христич
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookingQueryPlanTest extends PostgresTest {
+
+    private static final Pattern PARTITION = Pattern.compile("on (bookings_\\w+)");
+    private static final Pattern INDEX_SCAN = Pattern.compile("(Index Only Scan|Index Scan|Bitmap Index Scan)(?: Backward)? (?:using|on) (\\w+)");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private LocalDate firstMonth;
+
+    @BeforeAll
+    void seedBookings() {
+        firstMonth = LocalDate.now().withDayOfMonth(1).plusMonths(1);
+        jdbcTemplate.update("INSERT INTO users (username, password, email, role) " +
+                "VALUES ('plan-test', '{noop}secret', 'plan-test@example.com', 'ROLE_USER')");
+        jdbcTemplate.update("INSERT INTO hotels (name, title, city, address, rating, number_of_ratings) " +
+                "SELECT 'Hotel ' || g, 'Hotel', 'City ' || (g % 5), 'Street ' || g, 4.5, 10 " +
+                "FROM generate_series(1, 20) g");
+        jdbcTemplate.update("INSERT INTO rooms (name, number, price, max_guests, hotel_id) " +
+                "SELECT 'Room ' || g, g::text, 1000 + g, 1 + g % 4, h.id " +
+                "FROM generate_series(1, 400) g JOIN hotels h ON h.name = 'Hotel ' || (1 + g % 20)");
+        // По 25 бронирований на комнату с шагом в 12 дней на ближайшие 10 месяцев, каждое десятое отменено
+        jdbcTemplate.update("INSERT INTO bookings (check_in_date, check_out_date, room_id, user_id, status) " +
+                "SELECT ?::date + (s * 12 + r.id % 7)::int, ?::date + (s * 12 + r.id % 7 + 1 + (r.id + s) % 9)::int, " +
+                "r.id, u.id, CASE WHEN (r.id + s) % 10 = 0 THEN 'CANCELLED' ELSE 'CONFIRMED' END " +
+                "FROM rooms r CROSS JOIN generate_series(0, 24) s " +
+                "CROSS JOIN (SELECT id FROM users WHERE username = 'plan-test') u",
+                firstMonth, firstMonth);
+        jdbcTemplate.execute("VACUUM ANALYZE bookings");
+        jdbcTemplate.execute("VACUUM ANALYZE rooms");
+    }
+
+    @AfterAll
+    void deleteBookings() {
+        jdbcTemplate.execute("TRUNCATE bookings, rooms, hotels, users CASCADE");
+    }
+
+    @Test
+    void overlapCheckReadsOnlyActiveRoomIndexOfPeriodPartitions() throws NoSuchMethodException {
+        LocalDate checkIn = firstMonth.plusMonths(3).plusDays(9);
+        LocalDate checkOut = checkIn.plusDays(4);
+        String plan = explain(query("existsOverlappingBooking", Long.class, LocalDate.class, LocalDate.class,
+                LocalDate.class), Map.of(
+                "roomId", roomId(),
+                "checkIn", checkIn,
+                "checkOut", checkOut,
+                "earliestCheckIn", checkIn.minusDays(Booking.MAX_STAY_DAYS)));
+
+        assertThat(plan).doesNotContain("Seq Scan");
+        assertIndexOnlyScansOf(plan, "idx_booking_active_room_dates");
+        assertThat(scannedPartitions(plan)).as(plan).hasSizeBetween(1, 2).doesNotContain("bookings_default");
+    }
+
+    @Test
+    void bookedRoomsOfAllHotelsReadOnlyActiveDatesIndex() throws NoSuchMethodException {
+        LocalDate checkIn = firstMonth.plusMonths(5).plusDays(3);
+        LocalDate checkOut = checkIn.plusDays(2);
+        String plan = explain(query("findBookedRoomIds", LocalDate.class, LocalDate.class, LocalDate.class), Map.of(
+                "checkIn", checkIn,
+                "checkOut", checkOut,
+                "earliestCheckIn", checkIn.minusDays(Booking.MAX_STAY_DAYS)));
+
+        assertThat(plan).doesNotContain("Seq Scan on bookings");
+        assertIndexOnlyScansOf(plan, "idx_booking_active_dates");
+        assertThat(scannedPartitions(plan)).as(plan).hasSizeBetween(1, 2).doesNotContain("bookings_default");
+    }
+
+    @Test
+    void bookedRoomsOfHotelReadActiveRoomIndex() throws NoSuchMethodException {
+        LocalDate checkIn = firstMonth.plusMonths(2).plusDays(20);
+        LocalDate checkOut = checkIn.plusDays(7);
+        String plan = explain(query("findBookedRoomIdsInHotel", Long.class, LocalDate.class, LocalDate.class,
+                LocalDate.class), Map.of(
+                "hotelId", jdbcTemplate.queryForObject("SELECT MIN(id) FROM hotels", Long.class),
+                "checkIn", checkIn,
+                "checkOut", checkOut,
+                "earliestCheckIn", checkIn.minusDays(Booking.MAX_STAY_DAYS)));
+
+        assertThat(plan).doesNotContain("Seq Scan on bookings");
+        assertIndexOnlyScansOf(plan, "idx_booking_active_room_dates");
+    }
+
+    @Test
+    void dateIndexIsKeptForPeriodQueriesWithoutRoom() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_indexes WHERE tablename = 'bookings' AND indexname = 'idx_booking_dates'",
+                Integer.class);
+
+        assertThat(count).isEqualTo(1);
+    }
+
+    /**
+     * Проверяет, что каждое сканирование bookings читает только индекс секции заданного индекса
+     * и не обращается к таблице.
+     */
+    private void assertIndexOnlyScansOf(String plan, String parentIndex) {
+        Set<String> partitionIndexes = Set.copyOf(jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = ?::regclass", String.class, parentIndex));
+        Matcher matcher = INDEX_SCAN.matcher(plan);
+        int bookingScans = 0;
+        while (matcher.find()) {
+            if (partitionIndexes.contains(matcher.group(2))) {
+                assertThat(matcher.group(1)).as(plan).isEqualTo("Index Only Scan");
+                bookingScans++;
+            } else {
+                assertThat(matcher.group(2)).as(plan).doesNotStartWith("bookings_");
+            }
+        }
+        assertThat(bookingScans).as(plan).isPositive();
+        assertThat(plan).doesNotContainPattern("Heap Fetches: [1-9]");
+    }
+
+    private Set<String> scannedPartitions(String plan) {
+        return PARTITION.matcher(plan).results()
+                .map(result -> result.group(1))
+                .collect(Collectors.toSet());
+    }
+
+    private String query(String method, Class<?>... parameterTypes) throws NoSuchMethodException {
+        return BookingRepository.class.getMethod(method, parameterTypes).getAnnotation(Query.class).value();
+    }
+
+    /**
+     * Выполняет EXPLAIN ANALYZE запроса с подставленными литералами параметров, чтобы план
+     * строился с отсечением секций на этапе планирования, как для первых выполнений запроса.
+     */
+    private String explain(String sql, Map<String, Object> parameters) {
+        String statement = sql;
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            Object value = parameter.getValue();
+            String literal = value instanceof LocalDate ? "DATE '" + value + "'" : value.toString();
+            statement = statement.replaceAll(":" + parameter.getKey() + "\\b", literal);
+        }
+        List<String> lines = jdbcTemplate.queryForList(
+                "EXPLAIN (ANALYZE, COSTS OFF, TIMING OFF, SUMMARY OFF) " + statement, String.class);
+        return String.join("\n", lines);
+    }
+
+    private Long roomId() {
+        return jdbcTemplate.queryForObject("SELECT MIN(id) FROM rooms", Long.class);
+    }
+}
@@ -0,0 +1,297 @@
+package com.hotelbooking.service.catalog;
+
+import com.hotelbooking.PostgresTest;
+import com.hotelbooking.dto.request.HotelSearchCriteria;
+import com.hotelbooking.dto.request.HotelSortField;
+import com.hotelbooking.dto.request.RoomSearchCriteria;
+import com.hotelbooking.dto.request.RoomSortField;
+import com.hotelbooking.dto.response.HotelResponseDto;
+import com.hotelbooking.dto.response.RoomResponseDto;
+import com.hotelbooking.entity.Booking;
+import com.hotelbooking.entity.Hotel;
+import com.hotelbooking.entity.Room;
+import com.hotelbooking.entity.User;
+import com.hotelbooking.entity.enums.BookingStatus;
+import com.hotelbooking.entity.enums.Role;
+import com.hotelbooking.mapper.HotelMapper;
+import com.hotelbooking.mapper.HotelMapperImpl;
+import com.hotelbooking.mapper.RoomMapper;
+import com.hotelbooking.mapper.RoomMapperImpl;
+import com.hotelbooking.repository.BookingRepository;
+import com.hotelbooking.repository.HotelRepository;
+import com.hotelbooking.repository.RoomRepository;
+import com.hotelbooking.repository.UserRepository;
+import com.hotelbooking.util.HotelSpecification;
+import com.hotelbooking.util.LongHashSet;
+import com.hotelbooking.util.RoomSpecification;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнивает поиск по снимку каталога с поиском спецификациями JPA на тех же данных.
+ * Критерии, сортировки и страницы выбираются случайно с фиксированным начальным значением;
+ * результаты должны совпадать по составу, порядку и общему количеству.
+ * @author Кирилл_Христич
+ */
+@Import({HotelMapperImpl.class, RoomMapperImpl.class})
+class CatalogSnapshotSearchTest extends PostgresTest {
+
+    private static final LocalDate BASE_DATE = LocalDate.of(2030, 1, 1);
+    private static final List<String> CITIES = List.of("Москва", "Казань", "Сочи", "Пермь");
+    private static final List<String> WORDS = List.of("grand", "плаза", "sea", "парк", "royal", "central");
+
+    private static CatalogSearchPool searchPool;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private HotelMapper hotelMapper;
+
+    @Autowired
+    private RoomMapper roomMapper;
+
+    private final Random random = new Random(45);
+    private CatalogSnapshot snapshot;
+
+    @BeforeAll
+    static void createSearchPool() {
+        searchPool = new CatalogSearchPool(4, 16);
+    }
+
+    @AfterAll
+    static void shutdownSearchPool() {
+        searchPool.shutdown();
+    }
+
+    @BeforeEach
+    void seedCatalog() {
+        User user = userRepository.save(User.builder()
+                .username("snapshot-test")
+                .password("{noop}secret")
+                .email("snapshot-test@example.com")
+                .role(Role.ROLE_USER)
+                .build());
+
+        for (int h = 0; h < 60; h++) {
+            Hotel hotel = hotelRepository.save(Hotel.builder()
+                    .name(randomWord() + " " + randomWord() + " " + h)
+                    .title("Отель " + randomWord())
+                    .city(CITIES.get(random.nextInt(CITIES.size())))
+                    .address("ул. " + randomWord() + ", " + h)
+                    .distanceFromCityCenter(random.nextInt(8) == 0 ? null : random.nextInt(40) / 4.0)
+                    .rating(BigDecimal.valueOf(random.nextInt(51), 1).setScale(2, RoundingMode.HALF_UP))
+                    .numberOfRatings(random.nextInt(50))
+                    .build());
+
+            int roomCount = 1 + random.nextInt(8);
+            for (int r = 0; r < roomCount; r++) {
+                Room room = roomRepository.save(Room.builder()
+                        .name(randomWord() + " " + r)
+                        .number(h + "-" + r)
+                        .price(BigDecimal.valueOf(1000 + random.nextInt(40) * 250L))
+                        .maxGuests(1 + random.nextInt(5))
+                        .hotel(hotel)
+                        .build());
+
+                if (random.nextBoolean()) {
+                    LocalDate checkIn = BASE_DATE.plusDays(random.nextInt(60));
+                    bookingRepository.save(Booking.builder()
+                            .room(room)
+                            .user(user)
+                            .checkInDate(checkIn)
+                            .checkOutDate(checkIn.plusDays(1 + random.nextInt(10)))
+                            .status(random.nextInt(4) == 0 ? BookingStatus.CANCELLED : BookingStatus.CONFIRMED)
+                            .build());
+                }
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<HotelResponseDto> hotels = hotelRepository.findAll(Sort.by("id")).stream()
+                .map(hotelMapper::toResponseDto)
+                .toList();
+        List<RoomResponseDto> rooms = roomRepository.findAllForCatalog().stream()
+                .map(roomMapper::toResponseDto)
+                .toList();
+        snapshot = CatalogSnapshot.of(hotels, rooms);
+    }
+
+    @Test
+    void hotelSearchMatchesSpecification() {
+        for (int i = 0; i < 300; i++) {
+            HotelSearchCriteria criteria = randomHotelCriteria();
+            Pageable pageable = PageRequest.of(random.nextInt(3), 1 + random.nextInt(15),
+                    randomElement(HotelSortField.values()).toSort(randomDirection()));
+            assertThat(snapshot.supportsHotelSearch(criteria, pageable)).isTrue();
+
+            Page<Hotel> expected = hotelRepository.findAll(HotelSpecification.searchHotels(
+                    criteria.getId(), criteria.getName(), criteria.getTitle(), criteria.getCity(),
+                    criteria.getAddress(), criteria.getMinDistance(), criteria.getMaxDistance(),
+                    criteria.getMinRating(), criteria.getMaxRating(),
+                    criteria.getMinRatingsCount(), criteria.getMaxRatingsCount()), pageable);
+            Page<HotelResponseDto> actual = snapshot.searchHotels(criteria, pageable);
+
+            assertThat(actual.getContent()).extracting(HotelResponseDto::getId)
+                    .as("criteria %s, page %s", criteria, pageable)
+                    .containsExactlyElementsOf(expected.getContent().stream().map(Hotel::getId).toList());
+            assertThat(actual.getTotalElements()).as("criteria %s", criteria).isEqualTo(expected.getTotalElements());
+        }
+    }
+
+    @Test
+    void roomSearchMatchesSpecification() {
+        for (int i = 0; i < 300; i++) {
+            RoomSearchCriteria criteria = randomRoomCriteria();
+            Pageable pageable = PageRequest.of(random.nextInt(3), 1 + random.nextInt(20),
+                    randomElement(RoomSortField.values()).toSort(randomDirection()));
+            assertThat(snapshot.supportsRoomSearch(criteria, pageable)).isTrue();
+
+            Page<Room> expected = roomRepository.findAll(RoomSpecification.searchRooms(
+                    criteria.getId(), criteria.getName(), criteria.getMinPrice(), criteria.getMaxPrice(),
+                    criteria.getMaxGuests(), criteria.getHotelId(), criteria.getCheckInDate(),
+                    criteria.getCheckOutDate(), List.of()), pageable);
+            Page<RoomResponseDto> actual = snapshot.searchRooms(criteria, bookedRoomIds(criteria),
+                    new LongHashSet(), pageable, searchPool);
+
+            assertThat(actual.getContent()).extracting(RoomResponseDto::getId)
+                    .as("criteria %s, page %s", criteria, pageable)
+                    .containsExactlyElementsOf(expected.getContent().stream().map(Room::getId).toList());
+            assertThat(actual.getTotalElements()).as("criteria %s", criteria).isEqualTo(expected.getTotalElements());
+        }
+    }
+
+    /**
+     * Находит занятые комнаты так же, как RoomServiceImpl для поиска по снимку.
+     */
+    private LongHashSet bookedRoomIds(RoomSearchCriteria criteria) {
+        if (criteria.getCheckInDate() == null) {
+            return new LongHashSet();
+        }
+        LocalDate checkIn = criteria.getCheckInDate();
+        LocalDate checkOut = criteria.getCheckOutDate();
+        LocalDate earliestCheckIn = checkIn.minusDays(Booking.MAX_STAY_DAYS);
+        return LongHashSet.of(criteria.getHotelId() != null
+                ? bookingRepository.findBookedRoomIdsInHotel(criteria.getHotelId(), checkIn, checkOut, earliestCheckIn)
+                : bookingRepository.findBookedRoomIds(checkIn, checkOut, earliestCheckIn));
+    }
+
+    private HotelSearchCriteria randomHotelCriteria() {
+        HotelSearchCriteria criteria = new HotelSearchCriteria();
+        if (random.nextInt(20) == 0) {
+            criteria.setId(randomHotelId());
+        }
+        if (random.nextInt(4) == 0) {
+            criteria.setName(randomWord().substring(0, 2));
+        }
+        if (random.nextInt(6) == 0) {
+            criteria.setTitle(randomWord());
+        }
+        if (random.nextInt(3) == 0) {
+            String city = CITIES.get(random.nextInt(CITIES.size()));
+            criteria.setCity(random.nextBoolean() ? city.toUpperCase() : city);
+        }
+        if (random.nextInt(6) == 0) {
+            criteria.setAddress(randomWord());
+        }
+        if (random.nextInt(4) == 0) {
+            criteria.setMinDistance(random.nextInt(20) / 4.0);
+        }
+        if (random.nextInt(4) == 0) {
+            criteria.setMaxDistance(random.nextInt(40) / 4.0);
+        }
+        if (random.nextInt(4) == 0) {
+            criteria.setMinRating(BigDecimal.valueOf(random.nextInt(41), 1));
+        }
+        if (random.nextInt(4) == 0) {
+            criteria.setMaxRating(BigDecimal.valueOf(10 + random.nextInt(41), 1));
+        }
+        if (random.nextInt(5) == 0) {
+            criteria.setMinRatingsCount(random.nextInt(25));
+        }
+        if (random.nextInt(5) == 0) {
+            criteria.setMaxRatingsCount(random.nextInt(50));
+        }
+        return criteria;
+    }
+
+    private RoomSearchCriteria randomRoomCriteria() {
+        RoomSearchCriteria criteria = new RoomSearchCriteria();
+        if (random.nextInt(20) == 0) {
+            criteria.setId(randomRoomId());
+        }
+        if (random.nextInt(5) == 0) {
+            criteria.setName(randomWord().substring(0, 3));
+        }
+        if (random.nextInt(3) == 0) {
+            criteria.setMinPrice(BigDecimal.valueOf(1000 + random.nextInt(20) * 250L));
+        }
+        if (random.nextInt(3) == 0) {
+            criteria.setMaxPrice(BigDecimal.valueOf(3000 + random.nextInt(30) * 250L));
+        }
+        if (random.nextInt(3) == 0) {
+            criteria.setMaxGuests(1 + random.nextInt(5));
+        }
+        if (random.nextInt(3) == 0) {
+            criteria.setHotelId(randomHotelId());
+        }
+        if (random.nextBoolean()) {
+            LocalDate checkIn = BASE_DATE.plusDays(random.nextInt(70));
+            criteria.setCheckInDate(checkIn);
+            criteria.setCheckOutDate(checkIn.plusDays(1 + random.nextInt(14)));
+        }
+        return criteria;
+    }
+
+    private Long randomHotelId() {
+        List<Long> ids = hotelRepository.findAll().stream().map(Hotel::getId).toList();
+        return ids.get(random.nextInt(ids.size()));
+    }
+
+    private Long randomRoomId() {
+        List<Long> ids = roomRepository.findAll().stream().map(Room::getId).toList();
+        return ids.get(random.nextInt(ids.size()));
+    }
+
+    private String randomWord() {
+        return WORDS.get(random.nextInt(WORDS.size()));
+    }
+
+    private Sort.Direction randomDirection() {
+        return random.nextBoolean() ? Sort.Direction.ASC : Sort.Direction.DESC;
+    }
+
+    private <T> T randomElement(T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
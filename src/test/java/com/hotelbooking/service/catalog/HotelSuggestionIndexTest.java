@@ -0,0 +1,162 @@
+package com.hotelbooking.service.catalog;
+
+import com.hotelbooking.dto.response.HotelResponseDto;
+import com.hotelbooking.dto.response.HotelSuggestionDto;
+import com.hotelbooking.exception.CatalogUnavailableException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Сравнивает подсказки дерева с полным перебором отелей после случайных добавлений, замен и удалений.
+ * Словарь мал, чтобы ключи отелей часто имели общие начала и ребра дерева делились и сливались.
+ * @author Кирилл_Христич
+ */
+class HotelSuggestionIndexTest {
+
+    private static final int MAX_KEY_LENGTH = 12;
+    private static final int MAX_SUGGESTIONS = 5;
+    private static final String[] WORDS = {"гранд", "гранит", "град", "grand", "granada", "plaza", "plaz", "пар",
+            "парк", "парус", "Ёлка", "елки", "sea-view", "spa", "s", "г", "отель", "отельер", "центральный"};
+
+    private static final Comparator<HotelResponseDto> RANK = Comparator
+            .comparingLong(HotelSuggestionIndexTest::rating).reversed()
+            .thenComparing(Comparator.comparingInt((HotelResponseDto hotel) -> hotel.getNumberOfRatings() != null
+                    ? hotel.getNumberOfRatings() : 0).reversed())
+            .thenComparing(HotelResponseDto::getId);
+
+    private final Random random = new Random(50);
+    private final Map<Long, HotelResponseDto> hotels = new HashMap<>();
+    private final HotelSuggestionIndex index = new HotelSuggestionIndex(MAX_KEY_LENGTH, MAX_SUGGESTIONS);
+
+    @Test
+    void suggestFailsBeforeFirstLoad() {
+        assertThatThrownBy(() -> index.suggest("гр", 5)).isInstanceOf(CatalogUnavailableException.class);
+    }
+
+    @Test
+    void matchesBruteForceAfterRandomChanges() {
+        for (long id = 1; id <= 40; id++) {
+            hotels.put(id, hotel(id));
+        }
+        index.rebuild(hotels.values());
+        assertMatchesBruteForce();
+
+        for (int step = 0; step < 3000; step++) {
+            long id = 1 + random.nextInt(80);
+            if (random.nextInt(3) == 0) {
+                hotels.remove(id);
+                index.remove(id);
+            } else {
+                HotelResponseDto hotel = hotel(id);
+                hotels.put(id, hotel);
+                index.put(hotel);
+            }
+            if (step % 25 == 0) {
+                assertMatchesBruteForce();
+            }
+        }
+        assertMatchesBruteForce();
+
+        index.rebuild(hotels.values());
+        assertMatchesBruteForce();
+    }
+
+    private void assertMatchesBruteForce() {
+        for (String query : queries()) {
+            int limit = 1 + random.nextInt(MAX_SUGGESTIONS);
+            assertThat(index.suggest(query, limit))
+                    .extracting(HotelSuggestionDto::getId)
+                    .as("query \"%s\", limit %d", query, limit)
+                    .containsExactlyElementsOf(bruteForce(query, limit));
+        }
+    }
+
+    private List<String> queries() {
+        List<String> queries = new ArrayList<>();
+        for (String word : WORDS) {
+            for (int length = 1; length <= word.length(); length++) {
+                queries.add(word.substring(0, length));
+            }
+        }
+        for (int i = 0; i < 30; i++) {
+            queries.add(words(2 + random.nextInt(3)));
+        }
+        queries.add("ГРАНД   Plaza!");
+        queries.add("нет такого");
+        queries.add("");
+        return queries;
+    }
+
+    private List<Long> bruteForce(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        String key = prefix.length() > MAX_KEY_LENGTH ? prefix.substring(0, MAX_KEY_LENGTH) : prefix;
+        return hotels.values().stream()
+                .filter(hotel -> matches(hotel.getName(), key) || matches(hotel.getCity(), key)
+                        || matches(hotel.getTitle(), key))
+                .sorted(RANK)
+                .limit(limit)
+                .map(HotelResponseDto::getId)
+                .toList();
+    }
+
+    private static boolean matches(String field, String prefix) {
+        String text = normalize(field);
+        for (int start = 0; start < text.length(); start++) {
+            if (start == 0 || text.charAt(start - 1) == ' ') {
+                String word = text.substring(start, Math.min(text.length(), start + MAX_KEY_LENGTH));
+                if (word.startsWith(prefix)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String[] words = value.toLowerCase(Locale.ROOT).replace('ё', 'е').split("[^\\p{L}\\p{Nd}]+");
+        return String.join(" ", List.of(words).stream().filter(word -> !word.isEmpty()).toList());
+    }
+
+    private static long rating(HotelResponseDto hotel) {
+        return hotel.getRating() != null ? hotel.getRating().movePointRight(2).longValue() : -1;
+    }
+
+    private HotelResponseDto hotel(long id) {
+        HotelResponseDto hotel = new HotelResponseDto();
+        hotel.setId(id);
+        hotel.setName(words(1 + random.nextInt(3)));
+        hotel.setCity(random.nextInt(10) == 0 ? null : words(1));
+        hotel.setTitle(words(random.nextInt(6)));
+        hotel.setRating(random.nextInt(8) == 0 ? null : BigDecimal.valueOf(random.nextInt(6), 0));
+        hotel.setNumberOfRatings(random.nextInt(8) == 0 ? null : random.nextInt(4));
+        return hotel;
+    }
+
+    private String words(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(random.nextBoolean() ? " " : ", ");
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}